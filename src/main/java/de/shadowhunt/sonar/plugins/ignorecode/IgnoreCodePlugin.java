@@ -24,6 +24,9 @@ import org.sonar.api.SonarPlugin;
 import de.shadowhunt.sonar.plugins.ignorecode.batch.IgnoreCoverageDecorator;
 import de.shadowhunt.sonar.plugins.ignorecode.batch.IgnoreCoverageMeasurementFilter;
 import de.shadowhunt.sonar.plugins.ignorecode.batch.IgnoreIssueFilter;
+import de.shadowhunt.sonar.plugins.ignorecode.batch.LineHashCache;
+import de.shadowhunt.sonar.plugins.ignorecode.batch.PatternRegistry;
+import de.shadowhunt.sonar.plugins.ignorecode.batch.SharedIgnoreIndex;
 
 /**
  * Register all {@code Extension}s
@@ -35,7 +38,10 @@ public class IgnoreCodePlugin extends SonarPlugin {
         return ImmutableList.of( //
                 IgnoreCoverageDecorator.class, //
                 IgnoreCoverageMeasurementFilter.class, //
-                IgnoreIssueFilter.class //
+                IgnoreIssueFilter.class, //
+                LineHashCache.class, //
+                PatternRegistry.class, //
+                SharedIgnoreIndex.class //
         );
     }
 }
@@ -0,0 +1,147 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.utils.SonarException;
+
+/**
+ * {@link ConfigurationHelper} reads the optional properties of the project {@link Configuration}
+ */
+final class ConfigurationHelper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationHelper.class);
+
+    /**
+     * Returns the ignore files of the given property, the property may contain a comma-separated list
+     * of locations and each location may contain wildcards (see {@link IgnoreFileResolver})
+     *
+     * @param configuration project {@link Configuration}, may be {@code null}
+     * @param key the name of the property
+     *
+     * @return the existing ignore files in the order of their locations, empty if the property is not set
+     */
+    static List<File> getFiles(final Configuration configuration, final String key) {
+        if (configuration == null) {
+            return Collections.emptyList();
+        }
+
+        final List<String> locations = getLocations(configuration, key);
+        if (locations.isEmpty()) {
+            LOGGER.info("no ignore file configured for property: {}", key);
+            return Collections.emptyList();
+        }
+
+        final List<File> files = new ArrayList<>();
+        for (final String location : locations) {
+            files.addAll(resolve(null, location));
+        }
+        return files;
+    }
+
+    private static List<String> getLocations(final Configuration configuration, final String key) {
+        // depending on the configuration a comma-separated value is already split or not
+        String[] values = configuration.getStringArray(key);
+        if ((values == null) || (values.length == 0)) {
+            values = new String[] { configuration.getString(key) };
+        }
+
+        final List<String> locations = new ArrayList<>();
+        for (final String value : values) {
+            for (final String location : StringUtils.split(StringUtils.defaultString(value), ',')) {
+                if (StringUtils.isNotBlank(location)) {
+                    locations.add(location.trim());
+                }
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Returns the existing ignore files of the given location
+     *
+     * @param baseDirectory the directory relative locations are resolved against, {@code null} for the current directory
+     * @param location the location of the ignore files, may contain wildcards (see {@link IgnoreFileResolver})
+     *
+     * @return the existing ignore files of the given location, missing files are logged
+     */
+    static List<File> resolve(@Nullable final File baseDirectory, final String location) {
+        final List<File> resolved;
+        try {
+            resolved = IgnoreFileResolver.resolve(baseDirectory, location);
+        } catch (final IOException e) {
+            throw new SonarException("could not find ignore files: " + location, e);
+        }
+        if (resolved.isEmpty()) {
+            LOGGER.error("could not find ignore file: {}", location);
+            return resolved;
+        }
+
+        final List<File> files = new ArrayList<>(resolved.size());
+        for (final File file : resolved) {
+            if (file.isFile()) {
+                files.add(file);
+            } else {
+                LOGGER.error("could not find ignore file: {}", file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns the integer value of the given property
+     *
+     * @param configuration project {@link Configuration}, may be {@code null}
+     * @param key the name of the property
+     * @param defaultValue the value if the property is not set
+     *
+     * @return the integer value of the property or the default value if the property is not set
+     *
+     * @throws IllegalArgumentException if the value of the property is not an integer
+     */
+    static int getInt(final Configuration configuration, final String key, final int defaultValue) {
+        if (configuration == null) {
+            return defaultValue;
+        }
+
+        final String value = configuration.getString(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("property " + key + " must be an integer: " + value, e);
+        }
+    }
+
+    private ConfigurationHelper() {
+        // prevent instantiation
+    }
+}
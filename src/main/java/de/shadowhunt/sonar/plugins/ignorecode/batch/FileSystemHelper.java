@@ -0,0 +1,70 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * {@link FileSystemHelper} looks up the properties of resources in the module {@link FileSystem}
+ */
+final class FileSystemHelper {
+
+    /**
+     * the number of lines of a resource that can't be found
+     */
+    static final int UNKNOWN_LINE_COUNT = -1;
+
+    /**
+     * Returns the {@link InputFile} of the given resource
+     *
+     * @param fileSystem module {@link FileSystem}, may be {@code null}
+     * @param resourceKey the key of the resource: its path relative to the module
+     *
+     * @return the {@link InputFile} or {@code null} if the resource can't be found
+     */
+    @CheckForNull
+    static InputFile getInputFile(@Nullable final FileSystem fileSystem, final String resourceKey) {
+        if (fileSystem == null) {
+            return null;
+        }
+        return fileSystem.inputFile(fileSystem.predicates().hasRelativePath(resourceKey));
+    }
+
+    /**
+     * Returns the number of lines of the given resource
+     *
+     * @param fileSystem module {@link FileSystem}, may be {@code null}
+     * @param resourceKey the key of the resource: its path relative to the module
+     *
+     * @return the number of lines or {@link #UNKNOWN_LINE_COUNT} if the resource can't be found
+     */
+    static int getLineCount(@Nullable final FileSystem fileSystem, final String resourceKey) {
+        final InputFile inputFile = getInputFile(fileSystem, resourceKey);
+        if (inputFile == null) {
+            return UNKNOWN_LINE_COUNT;
+        }
+        return inputFile.lines();
+    }
+
+    private FileSystemHelper() {
+        // prevent instantiation
+    }
+}
@@ -17,30 +17,35 @@
 package de.shadowhunt.sonar.plugins.ignorecode.batch;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.apache.commons.configuration.Configuration;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
 import org.sonar.api.utils.SonarException;
-import org.sonar.api.utils.WildcardPattern;
 
 import de.shadowhunt.sonar.plugins.ignorecode.internal.ModifyMeasures;
 import de.shadowhunt.sonar.plugins.ignorecode.model.CoveragePattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.GlobPattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+import de.shadowhunt.sonar.plugins.ignorecode.model.Interner;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+import de.shadowhunt.sonar.plugins.ignorecode.model.PatternIndex;
 
 /**
  * Generated code as identified by the coverage.ignore, must not be covered by any unit tests.
@@ -50,7 +55,17 @@ import de.shadowhunt.sonar.plugins.ignorecode.model.CoveragePattern;
 public class IgnoreCoverageDecorator implements Decorator {
 
     /**
-     * property name that points to the ignore file: will be read from the project configuration
+     * property name that defines the number of resources whose matching patterns are cached: will be read from the project configuration
+     */
+    public static final String CACHE_SIZE = "sonar.ignorecoverage.cacheSize";
+
+    /**
+     * property name that defines the maximal complexity of each pattern: will be read from the project configuration
+     */
+    public static final String MAX_COMPLEXITY = "sonar.ignorecoverage.maxComplexity";
+
+    /**
+     * property name that points to the ignore files (comma-separated, may contain wildcards): will be read from the project configuration
      */
     public static final String CONFIG_FILE = "sonar.ignorecoverage.configFile";
 
@@ -93,47 +108,61 @@ public class IgnoreCoverageDecorator implements Decorator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IgnoreCoverageDecorator.class);
 
-    static List<CoveragePattern> loadPatterns(final Configuration configuration) {
-        if (configuration == null) {
-            return Collections.emptyList();
-        }
+    static int getCacheSize(final Configuration configuration) {
+        return ConfigurationHelper.getInt(configuration, CACHE_SIZE, PatternIndex.DEFAULT_CACHE_SIZE);
+    }
 
-        final String fileLocation = configuration.getString(CONFIG_FILE);
-        if (StringUtils.isBlank(fileLocation)) {
-            LOGGER.info("no ignore file configured for property: {}", CONFIG_FILE);
-            return Collections.emptyList();
+    /**
+     * Returns the number of lines of the decorated resource as calculated by the sensors
+     *
+     * @return the number of lines or {@link FileSystemHelper#UNKNOWN_LINE_COUNT} if the number is unknown
+     */
+    static int getLineCount(final DecoratorContext context) {
+        final Measure measure = context.getMeasure(CoreMetrics.LINES);
+        if ((measure == null) || (measure.getValue() == null)) {
+            return FileSystemHelper.UNKNOWN_LINE_COUNT;
         }
+        return measure.getIntValue();
+    }
 
-        final File ignoreFile = new File(fileLocation);
-        if (!ignoreFile.isFile()) {
-            LOGGER.error("could not find ignore file: {}", ignoreFile);
-            return Collections.emptyList();
-        }
+    static int getMaxComplexity(final Configuration configuration) {
+        return ConfigurationHelper.getInt(configuration, MAX_COMPLEXITY, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
 
-        FileInputStream fis = null;
+    static List<CoveragePattern> loadPatterns(final File ignoreFile, final ByteBuffer content, final int maxComplexity) {
         try {
-            fis = new FileInputStream(ignoreFile);
-            final List<CoveragePattern> patterns = CoveragePattern.parse(fis);
+            final Interner interner = new Interner();
+            final List<CoveragePattern> patterns = CoveragePattern.parse(content, maxComplexity, interner);
             LOGGER.info("loaded {} coverage ignores from {}", patterns.size(), ignoreFile);
-            return patterns;
+            LOGGER.info("coverage ignores share {} distinct patterns and {} distinct line sets", interner.getStringCount(), interner.getLineSetCount());
+
+            final List<CoveragePattern> merged = CoveragePattern.merge(patterns);
+            if (merged.size() < patterns.size()) {
+                LOGGER.info("merged {} coverage ignores with the same patterns", patterns.size() - merged.size());
+            }
+            return merged;
         } catch (final Exception e) {
             throw new SonarException("could not load ignores for file: " + ignoreFile, e);
-        } finally {
-            IOUtils.closeQuietly(fis);
         }
     }
 
     private ModifyMeasures modifyMeasures = new ModifyMeasures();
 
-    private final List<CoveragePattern> patterns;
+    private final IgnoreIndex index;
+
+    private final LineHashCache lineHashCache;
 
     /**
-     * Create a new {@link IgnoreCoverageDecorator} that removes all coverage metrics for ignored code
+     * Create a new {@link IgnoreCoverageDecorator} that removes all coverage metrics for code ignored by
+     * the given {@link SharedIgnoreIndex}, ranges relative to the last line and content hashes are resolved
+     * by the given {@link LineHashCache}
      *
-     * @param configuration project {@link Configuration}
+     * @param sharedIndex module {@link SharedIgnoreIndex} with all coverage ignores
+     * @param lineHashCache module {@link LineHashCache} to look up the lines of the resources, may be {@code null}
      */
-    public IgnoreCoverageDecorator(final Configuration configuration) {
-        patterns = loadPatterns(configuration);
+    public IgnoreCoverageDecorator(final SharedIgnoreIndex sharedIndex, @Nullable final LineHashCache lineHashCache) {
+        index = sharedIndex.getIndex();
+        this.lineHashCache = lineHashCache;
     }
 
     @DependsUpon
@@ -143,24 +172,26 @@ public class IgnoreCoverageDecorator implements Decorator {
 
     @Override
     public void decorate(final Resource resource, final DecoratorContext context) {
+        if (ResourceUtils.isRootProject(resource)) {
+            // the root project is decorated last
+            LOGGER.debug("coverage ignore cache statistics: {}", index.getCache());
+            return;
+        }
+
         if (!ResourceUtils.isFile(resource)) {
             return;
         }
 
         final String resourceKey = resource.getKey();
-        for (final CoveragePattern pattern : patterns) {
-            final WildcardPattern wildcardPattern = WildcardPattern.create(pattern.getResourcePattern());
-            if (!wildcardPattern.match(resourceKey)) {
-                continue;
-            }
-
-            final Set<Integer> lines = pattern.getLines();
+        final ResourceLines resourceLines = new ResourceLines(lineHashCache, resourceKey, getLineCount(context));
+        for (final CoveragePattern pattern : index.matchCoverage(resourceKey)) {
+            final LineSet lines = pattern.getLines();
             if (lines.isEmpty()) {
                 // empty is any line => already cleared by IgnoreCoverageMeasurementFilter
                 break;
             }
 
-            modifyMeasures.rewrite(context, lines);
+            modifyMeasures.rewrite(context, resourceLines.resolve(lines));
         }
     }
 
@@ -16,10 +16,10 @@
  */
 package de.shadowhunt.sonar.plugins.ignorecode.batch;
 
-import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.configuration.Configuration;
+import javax.annotation.Nullable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.measures.CoreMetrics;
@@ -27,11 +27,12 @@ import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
-import org.sonar.api.utils.WildcardPattern;
 import org.sonar.core.measure.MeasurementFilter;
 
 import de.shadowhunt.sonar.plugins.ignorecode.internal.ModifyMeasures;
 import de.shadowhunt.sonar.plugins.ignorecode.model.CoveragePattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
 
 /**
  * Disables all {@link Measure}s on completely ignored files and
@@ -45,16 +46,21 @@ public class IgnoreCoverageMeasurementFilter implements MeasurementFilter {
 
     private ModifyMeasures modifyMeasures = new ModifyMeasures();
 
-    private final List<CoveragePattern> patterns;
+    private final IgnoreIndex index;
+
+    private final LineHashCache lineHashCache;
 
     /**
-     * Create a new {@link IgnoreCoverageMeasurementFilter} that loads its patterns with
-     * {@link IgnoreCoverageDecorator#CONFIG_FILE} key from the given {@link Configuration}
+     * Create a new {@link IgnoreCoverageMeasurementFilter} for the coverage ignores of the given
+     * {@link SharedIgnoreIndex}, ranges relative to the last line and content hashes are resolved
+     * by the given {@link LineHashCache}
      *
-     * @param configuration project {@link org.apache.commons.configuration.Configuration}
+     * @param sharedIndex module {@link SharedIgnoreIndex} with all coverage ignores
+     * @param lineHashCache module {@link LineHashCache} to look up the lines of the resources, may be {@code null}
      */
-    public IgnoreCoverageMeasurementFilter(final Configuration configuration) {
-        patterns = IgnoreCoverageDecorator.loadPatterns(configuration);
+    public IgnoreCoverageMeasurementFilter(final SharedIgnoreIndex sharedIndex, @Nullable final LineHashCache lineHashCache) {
+        index = sharedIndex.getIndex();
+        this.lineHashCache = lineHashCache;
     }
 
     @Override
@@ -69,13 +75,9 @@ public class IgnoreCoverageMeasurementFilter implements MeasurementFilter {
 
         final String resourceKey = resource.getKey();
         final String metricKey = measure.getMetricKey();
-        for (final CoveragePattern pattern : patterns) {
-            final WildcardPattern wildcardPattern = WildcardPattern.create(pattern.getResourcePattern());
-            if (!wildcardPattern.match(resourceKey)) {
-                continue;
-            }
-
-            final Set<Integer> lines = pattern.getLines();
+        final ResourceLines resourceLines = new ResourceLines(lineHashCache, resourceKey, FileSystemHelper.UNKNOWN_LINE_COUNT);
+        for (final CoveragePattern pattern : index.matchCoverage(resourceKey)) {
+            final LineSet lines = pattern.getLines();
             if (lines.isEmpty()) {
                 // empty is any line => remove all measures
                 LOGGER.info("measure of metric {} on resource {} filtered by {}", metricKey, resourceKey, pattern);
@@ -83,7 +85,7 @@ public class IgnoreCoverageMeasurementFilter implements MeasurementFilter {
             }
 
             LOGGER.info("measure of metric {} on resource {} modified by {}", metricKey, resourceKey, pattern);
-            rewrite(measure, lines);
+            rewrite(measure, resourceLines.resolve(lines));
         }
         return true;
     }
@@ -92,7 +94,7 @@ public class IgnoreCoverageMeasurementFilter implements MeasurementFilter {
         return modifyMeasures;
     }
 
-    void rewrite(final Measure measure, final Set<Integer> lines) {
+    void rewrite(final Measure measure, final LineSet lines) {
         final String metricKey = measure.getMetricKey();
         if (CoreMetrics.CONDITIONS_BY_LINE_KEY.equals(metricKey)) {
             modifyMeasures.filterLineValuePairs(measure, lines);
@@ -0,0 +1,110 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.lang.StringUtils;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.GlobPattern;
+
+/**
+ * {@link IgnoreFileResolver} resolves the location of ignore files, a location may contain wildcards
+ * following the ant matching syntax (eg. {@code ignores/*.ignore} or {@code ignores/**}{@code /*.ignore})
+ */
+final class IgnoreFileResolver {
+
+    private static final String ANY_DIRECTORIES = "**";
+
+    static boolean isGlob(final String location) {
+        return StringUtils.containsAny(location, "*?");
+    }
+
+    /**
+     * Resolves the given location of ignore files
+     *
+     * @param baseDirectory the directory relative locations are resolved against, {@code null} for the current directory
+     * @param location the location of the ignore files, may contain wildcards
+     *
+     * @return the file of a location without wildcards (even if it doesn't exist) or all existing files that match
+     * the wildcards in the order of their paths
+     *
+     * @throws IOException if the directories can not be searched for matching files
+     */
+    static List<File> resolve(@Nullable final File baseDirectory, final String location) throws IOException {
+        final String normalized = location.trim().replace(File.separatorChar, '/');
+        final File file = new File(normalized);
+        if (!isGlob(normalized)) {
+            return Collections.singletonList(file.isAbsolute() ? file : new File(baseDirectory, normalized));
+        }
+
+        // search from the last directory before the first wildcard
+        final String[] segments = normalized.split("/", -1);
+        int fixed = 0;
+        while (!isGlob(segments[fixed])) {
+            fixed++;
+        }
+        final String prefix = StringUtils.join(segments, '/', 0, fixed);
+        final String pattern = StringUtils.join(segments, '/', fixed, segments.length);
+
+        final File root;
+        if (file.isAbsolute()) {
+            root = new File(prefix.isEmpty() ? "/" : prefix);
+        } else {
+            root = prefix.isEmpty() ? baseDirectory : new File(baseDirectory, prefix);
+        }
+        final File start = (root == null) ? new File(".") : root;
+        if (!start.isDirectory()) {
+            return Collections.emptyList();
+        }
+
+        final int depth = pattern.contains(ANY_DIRECTORIES) ? Integer.MAX_VALUE : (segments.length - fixed);
+        final GlobPattern glob = GlobPattern.compile(pattern);
+        final Path startPath = start.toPath();
+        final List<File> files = new ArrayList<>();
+        Files.walkFileTree(startPath, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path path, final BasicFileAttributes attributes) {
+                final String relative = startPath.relativize(path).toString().replace(File.separatorChar, '/');
+                if (attributes.isRegularFile() && glob.match(relative)) {
+                    files.add((root == null) ? new File(relative) : new File(root, relative));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }
+
+    private IgnoreFileResolver() {
+        // prevent instantiation
+    }
+}
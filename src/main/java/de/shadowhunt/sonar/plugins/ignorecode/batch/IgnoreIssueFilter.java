@@ -17,14 +17,13 @@
 package de.shadowhunt.sonar.plugins.ignorecode.batch;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.util.Collections;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.Set;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.apache.commons.configuration.Configuration;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.issue.Issue;
@@ -32,9 +31,15 @@ import org.sonar.api.issue.batch.IssueFilter;
 import org.sonar.api.issue.batch.IssueFilterChain;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.SonarException;
-import org.sonar.api.utils.WildcardPattern;
 
+import de.shadowhunt.sonar.plugins.ignorecode.model.AdaptiveOrder;
+import de.shadowhunt.sonar.plugins.ignorecode.model.GlobPattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+import de.shadowhunt.sonar.plugins.ignorecode.model.Interner;
 import de.shadowhunt.sonar.plugins.ignorecode.model.IssuePattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+import de.shadowhunt.sonar.plugins.ignorecode.model.PatternIndex;
+import de.shadowhunt.sonar.plugins.ignorecode.model.ResourcePath;
 
 /**
  * Generated code as identified by the violations.ignore, must not conform to quality profiles.
@@ -44,42 +49,81 @@ import de.shadowhunt.sonar.plugins.ignorecode.model.IssuePattern;
 public class IgnoreIssueFilter implements IssueFilter {
 
     /**
-     * property name that points to the ignore file: will be read from the project configuration
+     * property name that enables trying the most frequently hit patterns first: will be read from the project configuration
+     */
+    public static final String ADAPTIVE_ORDER = "sonar.ignoreviolations.adaptiveOrder";
+
+    /**
+     * property name that defines the number of resources whose matching patterns are cached: will be read from the project configuration
+     */
+    public static final String CACHE_SIZE = "sonar.ignoreviolations.cacheSize";
+
+    /**
+     * property name that defines the maximal complexity of each pattern: will be read from the project configuration
+     */
+    public static final String MAX_COMPLEXITY = "sonar.ignoreviolations.maxComplexity";
+
+    /**
+     * property name that points to the ignore files (comma-separated, may contain wildcards): will be read from the project configuration
      */
     public static final String CONFIG_FILE = "sonar.ignoreviolations.configFile";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IgnoreIssueFilter.class);
 
-    static List<IssuePattern> loadPatterns(final Configuration configuration) {
-        if (configuration == null) {
-            return Collections.emptyList();
-        }
-
-        final String fileLocation = configuration.getString(CONFIG_FILE);
-        if (StringUtils.isBlank(fileLocation)) {
-            LOGGER.info("no ignore file configured for property: {}", CONFIG_FILE);
-            return Collections.emptyList();
-        }
+    static int getCacheSize(final Configuration configuration) {
+        return ConfigurationHelper.getInt(configuration, CACHE_SIZE, PatternIndex.DEFAULT_CACHE_SIZE);
+    }
 
-        final File ignoreFile = new File(fileLocation);
-        if (!ignoreFile.isFile()) {
-            LOGGER.error("could not find ignore file: {}", ignoreFile);
-            return Collections.emptyList();
-        }
+    static int getMaxComplexity(final Configuration configuration) {
+        return ConfigurationHelper.getInt(configuration, MAX_COMPLEXITY, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
 
-        FileInputStream fis = null;
+    static List<IssuePattern> loadPatterns(final File ignoreFile, final ByteBuffer content, final int maxComplexity) {
         try {
-            fis = new FileInputStream(ignoreFile);
-            final List<IssuePattern> patterns = IssuePattern.parse(fis);
+            final Interner interner = new Interner();
+            final List<IssuePattern> patterns = IssuePattern.parse(content, maxComplexity, interner);
             LOGGER.info("loaded {} violation ignores from {}", patterns.size(), ignoreFile);
-            return patterns;
+            LOGGER.info("violation ignores share {} distinct patterns and {} distinct line sets", interner.getStringCount(), interner.getLineSetCount());
+
+            final List<IssuePattern> merged = IssuePattern.merge(patterns);
+            if (merged.size() < patterns.size()) {
+                LOGGER.info("merged {} violation ignores with the same patterns", patterns.size() - merged.size());
+            }
+            return merged;
         } catch (final Exception e) {
             throw new SonarException("could not load ignores for file: " + ignoreFile, e);
-        } finally {
-            IOUtils.closeQuietly(fis);
         }
     }
 
+    @CheckForNull
+    static String getResourceKey(final String componentKey) {
+        // same result as componentKey.split(":") having exactly 3 parts, without creating the parts
+        final int first = componentKey.indexOf(':');
+        if (first < 0) {
+            return null;
+        }
+        final int second = componentKey.indexOf(':', first + 1);
+        if (second < 0) {
+            return null;
+        }
+
+        int end = componentKey.indexOf(':', second + 1);
+        if (end < 0) {
+            end = componentKey.length();
+        } else {
+            for (int i = end; i < componentKey.length(); i++) {
+                if (componentKey.charAt(i) != ':') {
+                    return null;
+                }
+            }
+        }
+
+        if (end == (second + 1)) {
+            return null;
+        }
+        return componentKey.substring(second + 1, end);
+    }
+
     static boolean match(final Issue issue, final IssuePattern pattern) {
         final boolean isMatchingResource = matchResource(issue.componentKey(), pattern.getResourcePattern());
         if (!isMatchingResource) {
@@ -91,42 +135,88 @@ public class IgnoreIssueFilter implements IssueFilter {
             return false;
         }
 
-        final Set<Integer> lines = pattern.getLines();
+        return matchLine(issue, pattern);
+    }
+
+    static boolean matchLine(final Issue issue, final IssuePattern pattern) {
+        return matchLine(issue, pattern, null);
+    }
+
+    static boolean matchLine(final Issue issue, final IssuePattern pattern, @Nullable final ResourceLines resourceLines) {
+        final LineSet lines = pattern.getLines();
         if (lines.isEmpty()) {
             return true; // empty is any line
         }
-        return lines.contains(issue.line());
+        final Integer line = issue.line();
+        if (line == null) {
+            return false;
+        }
+        return (resourceLines == null) ? lines.contains(line) : resourceLines.contains(lines, line);
     }
 
     static boolean matchResource(final String componentKey, final String pattern) {
-        final String[] parts = componentKey.split(":");
-        if (parts.length != 3) {
+        final String resourceKey = getResourceKey(componentKey);
+        if (resourceKey == null) {
             return false;
         }
-        LOGGER.debug("matching resource {} against pattern {} ", parts[2], pattern);
-        return WildcardPattern.create(pattern).match(parts[2]);
+        LOGGER.debug("matching resource {} against pattern {} ", resourceKey, pattern);
+        return PatternIndex.matchResource(pattern, new ResourcePath(resourceKey));
     }
 
     static boolean matchRule(final RuleKey ruleKey, final String pattern) {
-        return WildcardPattern.create(pattern).match(ruleKey.repository() + ":" + ruleKey.rule());
+        return GlobPattern.compile(pattern).match(ruleKey.repository() + ":" + ruleKey.rule());
     }
 
-    private final List<IssuePattern> patterns;
+    private final AdaptiveOrder<IssuePattern> adaptiveOrder;
+
+    private final IgnoreIndex index;
+
+    private final LineHashCache lineHashCache;
 
     /**
-     * Create a new {@link IgnoreIssueFilter} that loads its patterns with
-     * {@link #CONFIG_FILE} key from the given {@link Configuration}
+     * Create a new {@link IgnoreIssueFilter} for the violation ignores of the given {@link SharedIgnoreIndex},
+     * the evaluation order is read with the {@link #ADAPTIVE_ORDER} key from the given {@link Configuration}.
+     * Ranges relative to the last line and content hashes are resolved by the given {@link LineHashCache}
      *
      * @param configuration project {@link org.apache.commons.configuration.Configuration}
+     * @param lineHashCache module {@link LineHashCache} to look up the lines of the resources, may be {@code null}
+     * @param sharedIndex module {@link SharedIgnoreIndex} with all violation ignores
      */
-    public IgnoreIssueFilter(final Configuration configuration) {
-        patterns = loadPatterns(configuration);
+    public IgnoreIssueFilter(final Configuration configuration, @Nullable final LineHashCache lineHashCache, final SharedIgnoreIndex sharedIndex) {
+        index = sharedIndex.getIndex();
+        this.lineHashCache = lineHashCache;
+        if ((configuration != null) && configuration.getBoolean(ADAPTIVE_ORDER, false)) {
+            adaptiveOrder = new AdaptiveOrder<>(index.getIssuePatterns());
+        } else {
+            adaptiveOrder = null;
+        }
     }
 
     @Override
     public boolean accept(final Issue issue, final IssueFilterChain chain) {
-        for (final IssuePattern pattern : patterns) {
-            if (match(issue, pattern)) {
+        if (!index.hasIssuePatterns()) {
+            return chain.accept(issue);
+        }
+
+        final String resourceKey = getResourceKey(issue.componentKey());
+        if (resourceKey == null) {
+            return chain.accept(issue);
+        }
+
+        final ResourcePath resourcePath = new ResourcePath(resourceKey);
+        final List<IssuePattern> candidates;
+        if (adaptiveOrder != null) {
+            candidates = adaptiveOrder.sort(index.matchIssueIndices(resourcePath, issue.ruleKey()));
+        } else {
+            candidates = index.matchIssues(resourcePath, issue.ruleKey());
+        }
+
+        final ResourceLines resourceLines = new ResourceLines(lineHashCache, resourceKey, FileSystemHelper.UNKNOWN_LINE_COUNT);
+        for (final IssuePattern pattern : candidates) {
+            if (matchLine(issue, pattern, resourceLines)) {
+                if (adaptiveOrder != null) {
+                    adaptiveOrder.hit(pattern);
+                }
                 LOGGER.info("issues {} switched off by {}", issue, pattern);
                 return false;
             }
@@ -0,0 +1,122 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineHashes;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LruCache;
+
+/**
+ * {@link LineHashCache} provides the number of lines and the {@link LineHashes} of the resources of a module.
+ * The {@link LineHashes} of a resource are calculated once and shared by the {@link IgnoreIssueFilter},
+ * the {@link IgnoreCoverageDecorator} and the {@link IgnoreCoverageMeasurementFilter}
+ */
+public class LineHashCache implements BatchComponent {
+
+    /**
+     * default number of resources whose {@link LineHashes} are cached
+     */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LineHashCache.class);
+
+    private final LruCache<String, LineHashes> cache;
+
+    private final FileSystem fileSystem;
+
+    /**
+     * Create a new {@link LineHashCache} for the resources of the given {@link FileSystem}
+     *
+     * @param fileSystem module {@link FileSystem}, may be {@code null}
+     */
+    public LineHashCache(@Nullable final FileSystem fileSystem) {
+        this(fileSystem, DEFAULT_CACHE_SIZE);
+    }
+
+    LineHashCache(@Nullable final FileSystem fileSystem, final int cacheSize) {
+        this.fileSystem = fileSystem;
+        cache = new LruCache<>(cacheSize);
+    }
+
+    /**
+     * Returns the {@link LruCache} that holds the {@link LineHashes} of the most recently used resources
+     *
+     * @return the {@link LruCache} of this {@link LineHashCache}
+     */
+    public LruCache<String, LineHashes> getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the number of lines of the given resource, without reading it
+     *
+     * @param resourceKey the key of the resource: its path relative to the module
+     *
+     * @return the number of lines or {@link FileSystemHelper#UNKNOWN_LINE_COUNT} if the resource can't be found
+     */
+    public int getLineCount(final String resourceKey) {
+        return FileSystemHelper.getLineCount(fileSystem, resourceKey);
+    }
+
+    /**
+     * Returns the {@link LineHashes} of the given resource, the resource is read only once
+     * as long as its {@link LineHashes} are cached
+     *
+     * @param resourceKey the key of the resource: its path relative to the module
+     *
+     * @return the {@link LineHashes} or {@code null} if the resource can't be found or read
+     */
+    @CheckForNull
+    public LineHashes getLineHashes(final String resourceKey) {
+        final LineHashes cached = cache.get(resourceKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        final InputFile inputFile = FileSystemHelper.getInputFile(fileSystem, resourceKey);
+        if (inputFile == null) {
+            return null;
+        }
+
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(inputFile.file()), fileSystem.encoding());
+            final LineHashes lineHashes = LineHashes.read(reader);
+            cache.put(resourceKey, lineHashes);
+            return lineHashes;
+        } catch (final IOException e) {
+            LOGGER.warn("could not read content hashes of resource " + resourceKey, e);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+}
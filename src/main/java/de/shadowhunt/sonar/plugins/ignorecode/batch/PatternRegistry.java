@@ -0,0 +1,577 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+import org.sonar.api.utils.SonarException;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.CoveragePattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreFile;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IncludeDirective;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IssuePattern;
+
+/**
+ * {@link PatternRegistry} lives as long as the whole analysis and loads each ignore file only once, even if
+ * several modules refer to it. Files are identified by their canonical path, size and modification time, so a
+ * changed file is loaded again. Modules with the same ignore files and settings share the same {@link IgnoreIndex}.
+ * <p>
+ * The loaded ignore files are also stored as snapshots in the {@link #SNAPSHOT_DIRECTORY} (see {@link SnapshotCache}),
+ * so later analyses of unchanged ignore files don't have to parse them again
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class PatternRegistry implements BatchComponent {
+
+    /**
+     * {@link Combined} is the {@link IgnoreFile} of all ignores of several files together with
+     * the number of ignores that have been dropped, because they are already defined in another file
+     */
+    private static final class Combined {
+
+        private final int duplicates;
+
+        private final IgnoreFile file;
+
+        Combined(final IgnoreFile file, final int duplicates) {
+            this.file = file;
+            this.duplicates = duplicates;
+        }
+
+        int getDuplicates() {
+            return duplicates;
+        }
+
+        IgnoreFile getFile() {
+            return file;
+        }
+    }
+
+    static final class FileKey {
+
+        static FileKey create(final String property, final File file, final int maxComplexity) {
+            try {
+                return new FileKey(property, file.getCanonicalFile(), file.length(), file.lastModified(), maxComplexity);
+            } catch (final IOException e) {
+                throw new SonarException("could not resolve ignore file: " + file, e);
+            }
+        }
+
+        private final File file;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final int maxComplexity;
+
+        private final String property;
+
+        FileKey(final String property, final File file, final long length, final long lastModified, final int maxComplexity) {
+            this.property = property;
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.maxComplexity = maxComplexity;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileKey)) {
+                return false;
+            }
+
+            final FileKey that = (FileKey) o;
+
+            if (lastModified != that.lastModified) {
+                return false;
+            }
+            if (length != that.length) {
+                return false;
+            }
+            if (maxComplexity != that.maxComplexity) {
+                return false;
+            }
+            if (!file.equals(that.file)) {
+                return false;
+            }
+            if (!property.equals(that.property)) {
+                return false;
+            }
+
+            return true;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        int getMaxComplexity() {
+            return maxComplexity;
+        }
+
+        /**
+         * Returns whether the given {@link FileKey} describes the same ignore file with the same settings,
+         * but possibly another version of its content
+         */
+        boolean isSameSource(final FileKey other) {
+            return (maxComplexity == other.maxComplexity) && file.equals(other.file) && property.equals(other.property);
+        }
+
+        String getProperty() {
+            return property;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = file.hashCode();
+            result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+            result = 31 * result + (int) (length ^ (length >>> 32));
+            result = 31 * result + maxComplexity;
+            result = 31 * result + property.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return file.toString();
+        }
+    }
+
+    /**
+     * {@link Fragment} is one loaded ignore file together with the files it includes
+     */
+    static final class Fragment {
+
+        private final IgnoreFile file;
+
+        private final List<File> includes;
+
+        private final FileKey key;
+
+        private final boolean snapshot;
+
+        Fragment(final FileKey key, final IgnoreFile file, final List<File> includes, final boolean snapshot) {
+            this.key = key;
+            this.file = file;
+            this.includes = includes;
+            this.snapshot = snapshot;
+        }
+
+        IgnoreFile getFile() {
+            return file;
+        }
+
+        List<File> getIncludes() {
+            return includes;
+        }
+
+        FileKey getKey() {
+            return key;
+        }
+
+        boolean isSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public String toString() {
+            return key.toString();
+        }
+    }
+
+    /**
+     * property name that points to the directory of the snapshots of the loaded ignore files: will be read from the project configuration,
+     * defaults to the {@link #SNAPSHOT_FOLDER} in the working directory of the analysis
+     */
+    public static final String SNAPSHOT_DIRECTORY = "sonar.ignorecode.snapshotDirectory";
+
+    /**
+     * name of the folder of the snapshots in the working directory of the analysis
+     */
+    public static final String SNAPSHOT_FOLDER = "ignorecode";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PatternRegistry.class);
+
+    // legacy files first, so their ignores keep their position in front of the unified ignores
+    private static final List<String> PROPERTIES = Arrays.asList(IgnoreCoverageDecorator.CONFIG_FILE, IgnoreIssueFilter.CONFIG_FILE, SharedIgnoreIndex.CONFIG_FILE);
+
+    private static <P> int addAll(final List<P> target, final Map<P, File> origins, final List<P> patterns, final File file) {
+        int duplicates = 0;
+        for (final P pattern : patterns) {
+            final File origin = origins.get(pattern);
+            if (origin == null) {
+                origins.put(pattern, file);
+            } else if (!origin.equals(file)) {
+                // duplicates within the same file are merged as before
+                LOGGER.warn("ignoring duplicate {} from {}, already defined in {}", pattern, file, origin);
+                duplicates++;
+                continue;
+            }
+            target.add(pattern);
+        }
+        return duplicates;
+    }
+
+    private static Combined combine(final List<Fragment> all) {
+        final List<CoveragePattern> coveragePatterns = new ArrayList<>();
+        final Map<CoveragePattern, File> coverageOrigins = new HashMap<>();
+        final List<IssuePattern> issuePatterns = new ArrayList<>();
+        final Map<IssuePattern, File> issueOrigins = new HashMap<>();
+        int duplicates = 0;
+        for (final Fragment fragment : all) {
+            final File file = fragment.getKey().getFile();
+            duplicates += addAll(coveragePatterns, coverageOrigins, fragment.getFile().getCoveragePatterns(), file);
+            duplicates += addAll(issuePatterns, issueOrigins, fragment.getFile().getIssuePatterns(), file);
+        }
+        return new Combined(new IgnoreFile(coveragePatterns, issuePatterns), duplicates);
+    }
+
+    private static int getMaxComplexity(final Configuration configuration, final String property) {
+        if (IgnoreCoverageDecorator.CONFIG_FILE.equals(property)) {
+            return IgnoreCoverageDecorator.getMaxComplexity(configuration);
+        }
+        if (IgnoreIssueFilter.CONFIG_FILE.equals(property)) {
+            return IgnoreIssueFilter.getMaxComplexity(configuration);
+        }
+        return SharedIgnoreIndex.getMaxComplexity(configuration);
+    }
+
+    private static IgnoreFile parse(final FileKey key, final ByteBuffer content) {
+        final File file = key.getFile();
+        final int maxComplexity = key.getMaxComplexity();
+        if (IgnoreCoverageDecorator.CONFIG_FILE.equals(key.getProperty())) {
+            return new IgnoreFile(IgnoreCoverageDecorator.loadPatterns(file, content, maxComplexity), Collections.<IssuePattern> emptyList());
+        }
+        if (IgnoreIssueFilter.CONFIG_FILE.equals(key.getProperty())) {
+            return new IgnoreFile(Collections.<CoveragePattern> emptyList(), IgnoreIssueFilter.loadPatterns(file, content, maxComplexity));
+        }
+        return SharedIgnoreIndex.loadFile(file, content, maxComplexity);
+    }
+
+    private final Map<FileKey, Fragment> fragments = new HashMap<>();
+
+    private final Map<List<Object>, IgnoreIndex> indices = new HashMap<>();
+
+    private int lastDuplicateCount = 0;
+
+    private int loadCount = 0;
+
+    private int snapshotCount = 0;
+
+    private final File workDir;
+
+    /**
+     * Create a new {@link PatternRegistry} without a working directory, snapshots are only
+     * used if the {@link #SNAPSHOT_DIRECTORY} is configured
+     */
+    public PatternRegistry() {
+        workDir = null;
+    }
+
+    /**
+     * Create a new {@link PatternRegistry} that stores the snapshots of the loaded ignore files in
+     * the working directory of the root project of the given {@link ProjectReactor}
+     *
+     * @param reactor batch {@link ProjectReactor}, may be {@code null}
+     */
+    public PatternRegistry(@Nullable final ProjectReactor reactor) {
+        final ProjectDefinition root = (reactor == null) ? null : reactor.getRoot();
+        workDir = (root == null) ? null : root.getWorkDir();
+    }
+
+    /**
+     * Returns the {@link IgnoreIndex} of all coverage and violation ignores of the ignore files configured in the given
+     * {@link Configuration}: the unified ignore files ({@link SharedIgnoreIndex#CONFIG_FILE}), the coverage ignore files
+     * ({@link IgnoreCoverageDecorator#CONFIG_FILE}) and the violation ignore files ({@link IgnoreIssueFilter#CONFIG_FILE})
+     * together with all files they include. Each file is only loaded if it has not been loaded before or has been changed
+     * since, an ignore that is defined in several files is only used once
+     *
+     * @param configuration project {@link org.apache.commons.configuration.Configuration}, may be {@code null}
+     *
+     * @return the {@link IgnoreIndex} of all coverage and violation ignores, the same instance for the same files and settings
+     */
+    public synchronized IgnoreIndex getIndex(final Configuration configuration) {
+        final File snapshotDirectory = getSnapshotDirectory(configuration);
+        final List<Fragment> all = new ArrayList<>();
+        for (final String property : PROPERTIES) {
+            all.addAll(getFragments(configuration, property, snapshotDirectory));
+        }
+        final int cacheSize = SharedIgnoreIndex.getCacheSize(configuration);
+
+        final List<Object> indexKey = new ArrayList<>(all.size() + 1);
+        for (final Fragment fragment : all) {
+            indexKey.add(fragment.getKey());
+        }
+        indexKey.add(cacheSize);
+        final IgnoreIndex cached = indices.get(indexKey);
+        if (cached != null) {
+            LOGGER.debug("reusing ignores of {}", all);
+            return cached;
+        }
+
+        final Combined combined = combine(all);
+        lastDuplicateCount = combined.getDuplicates();
+        if (lastDuplicateCount > 0) {
+            LOGGER.info("dropped {} duplicate ignores of {}", lastDuplicateCount, all);
+        }
+        final IgnoreFile file = combined.getFile();
+        final IgnoreIndex index = new IgnoreIndex(CoveragePattern.merge(file.getCoveragePatterns()), IssuePattern.merge(file.getIssuePatterns()), cacheSize);
+        indices.put(indexKey, index);
+        return index;
+    }
+
+    /**
+     * Returns how many ignores of the most recently combined {@link IgnoreIndex} have been dropped,
+     * because they are already defined in another file
+     *
+     * @return the number of dropped duplicate ignores
+     */
+    synchronized int getDuplicateCount() {
+        return lastDuplicateCount;
+    }
+
+    private List<Fragment> getFragments(final Configuration configuration, final String property, @CheckForNull final File snapshotDirectory) {
+        final int maxComplexity = getMaxComplexity(configuration, property);
+        // a file that is reached several times must get the same key, even if it changes meanwhile
+        final Map<File, FileKey> keys = new HashMap<>();
+        final List<FileKey> roots = new ArrayList<>();
+        for (final File file : ConfigurationHelper.getFiles(configuration, property)) {
+            roots.add(getKey(keys, FileKey.create(property, file, maxComplexity)));
+        }
+
+        // load the files level by level, all files of a level are loaded in parallel
+        final Map<FileKey, List<FileKey>> includes = new HashMap<>();
+        final Set<FileKey> seen = new HashSet<>(roots);
+        List<FileKey> level = new ArrayList<>(seen);
+        while (!level.isEmpty()) {
+            loadAll(level, snapshotDirectory);
+            final List<FileKey> next = new ArrayList<>();
+            for (final FileKey key : level) {
+                final List<FileKey> includeKeys = new ArrayList<>();
+                for (final File include : fragments.get(key).getIncludes()) {
+                    final FileKey includeKey = getKey(keys, FileKey.create(property, include, maxComplexity));
+                    includeKeys.add(includeKey);
+                    if (seen.add(includeKey)) {
+                        next.add(includeKey);
+                    }
+                }
+                includes.put(key, includeKeys);
+            }
+            level = next;
+        }
+
+        // each file is followed by the files it includes, a file that is included several times is only used once
+        final List<Fragment> ordered = new ArrayList<>();
+        final Set<FileKey> visited = new HashSet<>();
+        for (final FileKey root : roots) {
+            visit(root, includes, visited, ordered);
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns the number of ignore files whose ignores are held by this {@link PatternRegistry}
+     *
+     * @return the number of held ignore files
+     */
+    synchronized int getFragmentCount() {
+        return fragments.size();
+    }
+
+    private FileKey getKey(final Map<File, FileKey> keys, final FileKey key) {
+        final FileKey existing = keys.get(key.getFile());
+        if (existing != null) {
+            return existing;
+        }
+        keys.put(key.getFile(), key);
+        return key;
+    }
+
+    /**
+     * Returns how often an ignore file has been loaded by this {@link PatternRegistry}
+     *
+     * @return the number of loaded ignore files
+     */
+    synchronized int getLoadCount() {
+        return loadCount;
+    }
+
+    @CheckForNull
+    File getSnapshotDirectory(@CheckForNull final Configuration configuration) {
+        final String directory = (configuration == null) ? null : configuration.getString(SNAPSHOT_DIRECTORY);
+        if (StringUtils.isNotBlank(directory)) {
+            return new File(directory);
+        }
+        return (workDir == null) ? null : new File(workDir, SNAPSHOT_FOLDER);
+    }
+
+    /**
+     * Returns how often an ignore file has been loaded from a snapshot instead of parsing it
+     *
+     * @return the number of ignore files loaded from snapshots
+     */
+    synchronized int getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    private Fragment load(final FileKey key, @CheckForNull final File snapshotDirectory) {
+        final File file = key.getFile();
+        final ByteBuffer content;
+        final List<File> includes = new ArrayList<>();
+        try {
+            content = MappedFiles.map(file);
+            for (final String include : IncludeDirective.scan(content)) {
+                includes.addAll(ConfigurationHelper.resolve(file.getParentFile(), include));
+            }
+        } catch (final IOException | IllegalArgumentException e) {
+            throw new SonarException("could not load ignores for file: " + file, e);
+        }
+
+        if (snapshotDirectory == null) {
+            return new Fragment(key, parse(key, content), includes, false);
+        }
+
+        final String source = SnapshotCache.source(key.getProperty(), file, key.getMaxComplexity());
+        final String hash = SnapshotCache.hash(key.getProperty(), content, key.getMaxComplexity());
+        final SnapshotCache cache = new SnapshotCache(snapshotDirectory);
+        final IgnoreFile snapshot = cache.read(source, hash);
+        if (snapshot != null) {
+            return new Fragment(key, snapshot, includes, true);
+        }
+
+        final IgnoreFile ignoreFile = parse(key, content);
+        cache.write(source, hash, ignoreFile);
+        return new Fragment(key, ignoreFile, includes, false);
+    }
+
+    private void loadAll(final List<FileKey> keys, @CheckForNull final File snapshotDirectory) {
+        final List<FileKey> missing = new ArrayList<>();
+        for (final FileKey key : keys) {
+            if (fragments.containsKey(key)) {
+                LOGGER.debug("reusing ignores of {}", key);
+            } else {
+                missing.add(key);
+            }
+        }
+
+        final List<Fragment> loaded = new ArrayList<>(missing.size());
+        if (missing.size() == 1) {
+            loaded.add(load(missing.get(0), snapshotDirectory));
+        } else if (missing.size() > 1) {
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.min(missing.size(), Runtime.getRuntime().availableProcessors()));
+            try {
+                final List<Future<Fragment>> futures = new ArrayList<>(missing.size());
+                for (final FileKey key : missing) {
+                    futures.add(executor.submit(new Callable<Fragment>() {
+
+                        @Override
+                        public Fragment call() {
+                            return load(key, snapshotDirectory);
+                        }
+                    }));
+                }
+                for (final Future<Fragment> future : futures) {
+                    loaded.add(future.get());
+                }
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new SonarException("could not load ignore files: " + missing, e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SonarException("interrupted while loading ignore files: " + missing, e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (final Fragment fragment : loaded) {
+            removeOutdated(fragment.getKey());
+            fragments.put(fragment.getKey(), fragment);
+            loadCount++;
+            if (fragment.isSnapshot()) {
+                snapshotCount++;
+            }
+        }
+    }
+
+    private void removeOutdated(final FileKey key) {
+        // a long running batch must not keep every version of an edited file
+        final Iterator<FileKey> keys = fragments.keySet().iterator();
+        while (keys.hasNext()) {
+            final FileKey outdated = keys.next();
+            if (outdated.isSameSource(key)) {
+                LOGGER.debug("replacing outdated ignores of {}", outdated);
+                keys.remove();
+                final Iterator<List<Object>> indexKeys = indices.keySet().iterator();
+                while (indexKeys.hasNext()) {
+                    if (indexKeys.next().contains(outdated)) {
+                        indexKeys.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(final FileKey key, final Map<FileKey, List<FileKey>> includes, final Set<FileKey> visited, final List<Fragment> ordered) {
+        if (!visited.add(key)) {
+            return;
+        }
+
+        ordered.add(fragments.get(key));
+        for (final FileKey include : includes.get(key)) {
+            visit(include, includes, visited, ordered);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineHashes;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+
+/**
+ * {@link ResourceLines} resolves symbolic {@link LineSet}s against one resource, the number of lines
+ * and the {@link LineHashes} of the resource are only looked up if a {@link LineSet} depends on them
+ */
+final class ResourceLines {
+
+    private final LineHashCache lineHashCache;
+
+    private int lineCount;
+
+    private LineHashes lineHashes;
+
+    private boolean lineHashesLoaded;
+
+    private final String resourceKey;
+
+    /**
+     * Create a new {@link ResourceLines} for the given resource
+     *
+     * @param lineHashCache the {@link LineHashCache} of the module, may be {@code null}
+     * @param resourceKey the key of the resource
+     * @param lineCount the number of lines of the resource if already known, otherwise {@link FileSystemHelper#UNKNOWN_LINE_COUNT}
+     */
+    ResourceLines(@Nullable final LineHashCache lineHashCache, final String resourceKey, final int lineCount) {
+        this.lineHashCache = lineHashCache;
+        this.resourceKey = resourceKey;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Returns whether the given {@link LineSet} contains the given line of the resource
+     *
+     * @param lines the {@link LineSet} of a pattern
+     * @param line the line to look for
+     *
+     * @return {@code true} if the {@link LineSet} contains the line, otherwise {@code false}
+     */
+    boolean contains(final LineSet lines, final int line) {
+        if (!lines.isSymbolic()) {
+            return lines.contains(line);
+        }
+
+        if (lines.hasContentHashes()) {
+            final LineHashes hashes = getLineHashes();
+            if (hashes != null) {
+                return lines.contains(line, hashes);
+            }
+        }
+        return lines.contains(line, getLineCount());
+    }
+
+    private int getLineCount() {
+        if ((lineCount < 0) && (lineHashCache != null)) {
+            lineCount = lineHashCache.getLineCount(resourceKey);
+        }
+        return lineCount;
+    }
+
+    @CheckForNull
+    private LineHashes getLineHashes() {
+        if (!lineHashesLoaded && (lineHashCache != null)) {
+            lineHashes = lineHashCache.getLineHashes(resourceKey);
+            lineHashesLoaded = true;
+        }
+        return lineHashes;
+    }
+
+    /**
+     * Resolves the ranges relative to the last line and the content hashes of the given {@link LineSet},
+     * they are dropped if the resource can't be found
+     *
+     * @param lines the {@link LineSet} of a pattern
+     *
+     * @return the {@link LineSet} with absolute ranges only
+     */
+    LineSet resolve(final LineSet lines) {
+        if (!lines.isSymbolic()) {
+            return lines;
+        }
+
+        if (lines.hasContentHashes()) {
+            final LineHashes hashes = getLineHashes();
+            if (hashes != null) {
+                return lines.resolve(hashes);
+            }
+        }
+        return lines.resolve(Math.max(0, getLineCount()));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.utils.SonarException;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.GlobPattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreFile;
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+import de.shadowhunt.sonar.plugins.ignorecode.model.Interner;
+
+/**
+ * {@link SharedIgnoreIndex} provides the {@link IgnoreIndex} of the unified ignore file together with the coverage and
+ * violation ignore files of a module, as loaded by the {@link PatternRegistry}. The {@link IgnoreIndex} is shared by
+ * the {@link IgnoreCoverageDecorator}, the {@link IgnoreCoverageMeasurementFilter} and the {@link IgnoreIssueFilter}
+ */
+public class SharedIgnoreIndex implements BatchComponent {
+
+    /**
+     * property name that defines the number of resources whose matching patterns are cached: will be read from the project configuration
+     */
+    public static final String CACHE_SIZE = "sonar.ignorecode.cacheSize";
+
+    /**
+     * property name that defines the maximal complexity of each pattern: will be read from the project configuration
+     */
+    public static final String MAX_COMPLEXITY = "sonar.ignorecode.maxComplexity";
+
+    /**
+     * property name that points to the unified ignore files (comma-separated, may contain wildcards): will be read from the project configuration
+     */
+    public static final String CONFIG_FILE = "sonar.ignorecode.configFile";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedIgnoreIndex.class);
+
+    static int getCacheSize(final Configuration configuration) {
+        // all resources are looked up once, so the cache must be as large as the larger of the separate caches
+        final int defaultCacheSize = Math.max(IgnoreCoverageDecorator.getCacheSize(configuration), IgnoreIssueFilter.getCacheSize(configuration));
+        return ConfigurationHelper.getInt(configuration, CACHE_SIZE, defaultCacheSize);
+    }
+
+    static int getMaxComplexity(final Configuration configuration) {
+        return ConfigurationHelper.getInt(configuration, MAX_COMPLEXITY, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
+
+    static IgnoreFile loadFile(final File ignoreFile, final ByteBuffer content, final int maxComplexity) {
+        try {
+            final Interner interner = new Interner();
+            final IgnoreFile file = IgnoreFile.parse(content, maxComplexity, interner);
+            LOGGER.info("loaded {} coverage ignores and {} violation ignores from {}", file.getCoveragePatterns().size(), file.getIssuePatterns().size(), ignoreFile);
+            LOGGER.info("unified ignores share {} distinct patterns and {} distinct line sets", interner.getStringCount(), interner.getLineSetCount());
+            return file;
+        } catch (final Exception e) {
+            throw new SonarException("could not load ignores for file: " + ignoreFile, e);
+        }
+    }
+
+    private final IgnoreIndex index;
+
+    /**
+     * Create a new {@link SharedIgnoreIndex} that obtains the {@link IgnoreIndex} of the ignore files configured in
+     * the given {@link Configuration} from the given {@link PatternRegistry}, so each file is only loaded once per analysis
+     *
+     * @param configuration project {@link org.apache.commons.configuration.Configuration}
+     * @param registry batch {@link PatternRegistry} that holds the already loaded ignore files
+     */
+    public SharedIgnoreIndex(final Configuration configuration, final PatternRegistry registry) {
+        index = registry.getIndex(configuration);
+    }
+
+    /**
+     * Returns the {@link IgnoreIndex} of all coverage and violation ignores
+     *
+     * @return the {@link IgnoreIndex} of all coverage and violation ignores
+     */
+    public IgnoreIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public final String toString() {
+        return getClass().getSimpleName();
+    }
+}
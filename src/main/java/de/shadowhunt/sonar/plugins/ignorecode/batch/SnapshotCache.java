@@ -0,0 +1,213 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.annotation.CheckForNull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreFile;
+import de.shadowhunt.sonar.plugins.ignorecode.model.Interner;
+
+/**
+ * {@link SnapshotCache} stores the loaded {@link IgnoreFile}s in a binary format in a directory that survives
+ * the analysis, eg. the sonar working directory. The snapshots are named after a hash of the content of the
+ * ignore file, so later analyses of the same ignore file read the snapshot instead of parsing the file again.
+ * A corrupt snapshot or a snapshot of a different {@link IgnoreFile#FORMAT_VERSION} is ignored and replaced.
+ * <p>
+ * The name of a snapshot also identifies its source (see {@link #source(String, File, int)}), so writing the
+ * snapshot of a changed ignore file removes the outdated snapshots of the same source
+ */
+final class SnapshotCache {
+
+    static final String SEPARATOR = "-";
+
+    static final String SUFFIX = ".snapshot";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotCache.class);
+
+    private static final int SOURCE_DIGITS = 16;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Returns the hash of the given ignore file that identifies its snapshot
+     *
+     * @param property the property that points to the ignore file, as each kind of ignore file has a different format
+     * @param content the content of the ignore file, its position and limit are not changed
+     * @param maxComplexity the maximal complexity of each pattern, as the same content may be valid for one maximum and invalid for another
+     *
+     * @return the hexadecimal SHA-256 hash of the ignore file
+     */
+    static String hash(final String property, final ByteBuffer content, final int maxComplexity) {
+        final MessageDigest digest = createDigest();
+        digest.update((property + ';' + maxComplexity + ';').getBytes(UTF8));
+        digest.update(content.duplicate());
+        return toHex(digest.digest(), 64);
+    }
+
+    /**
+     * Returns the identifier of the source of a snapshot, all snapshots of the same source but with a different
+     * hash are outdated
+     *
+     * @param property the property that points to the ignore file
+     * @param file the canonical ignore file
+     * @param maxComplexity the maximal complexity of each pattern
+     *
+     * @return the hexadecimal identifier of the source
+     */
+    static String source(final String property, final File file, final int maxComplexity) {
+        final MessageDigest digest = createDigest();
+        digest.update((property + ';' + maxComplexity + ';' + file.getPath()).getBytes(UTF8));
+        return toHex(digest.digest(), SOURCE_DIGITS);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 must be supported by every java platform", e);
+        }
+    }
+
+    private static String toHex(final byte[] hash, final int digits) {
+        final char[] hex = new char[digits];
+        for (int i = 0; i < digits; i++) {
+            final int value = hash[i / 2] >> (((i % 2) == 0) ? 4 : 0);
+            hex[i] = HEX_DIGITS[value & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private final File directory;
+
+    /**
+     * Create a new {@link SnapshotCache} that stores its snapshots in the given directory
+     *
+     * @param directory the directory of the snapshots, will be created when the first snapshot is written
+     */
+    SnapshotCache(final File directory) {
+        this.directory = directory;
+    }
+
+    File getFile(final String source, final String hash) {
+        return new File(directory, source + SEPARATOR + hash + SUFFIX);
+    }
+
+    /**
+     * Reads the snapshot with the given hash
+     *
+     * @param source the source of the ignore file (see {@link #source(String, File, int)})
+     * @param hash the hash of the ignore file (see {@link #hash(String, ByteBuffer, int)})
+     *
+     * @return the {@link IgnoreFile} of the snapshot or {@code null} if there is no valid snapshot
+     */
+    @CheckForNull
+    IgnoreFile read(final String source, final String hash) {
+        final File file = getFile(source, hash);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            final Interner interner = new Interner();
+            final IgnoreFile ignoreFile = IgnoreFile.read(Files.readAllBytes(file.toPath()), interner);
+            LOGGER.info("loaded {} coverage ignores and {} violation ignores from snapshot {}", ignoreFile.getCoveragePatterns().size(), ignoreFile.getIssuePatterns().size(), file);
+            return ignoreFile;
+        } catch (final IOException e) {
+            LOGGER.warn("ignoring invalid snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot of the given {@link IgnoreFile} and removes the outdated snapshots of the same source,
+     * a failure is logged but does not fail the analysis
+     *
+     * @param source the source of the ignore file (see {@link #source(String, File, int)})
+     * @param hash the hash of the ignore file (see {@link #hash(String, ByteBuffer, int)})
+     * @param ignoreFile the {@link IgnoreFile} loaded from the ignore file
+     *
+     * @return {@code true} if the snapshot has been written, otherwise {@code false}
+     */
+    boolean write(final String source, final String hash, final IgnoreFile ignoreFile) {
+        final File file = getFile(source, hash);
+        File temporary = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("could not create directory: " + directory);
+            }
+
+            // write to a temporary file first, so concurrent analyses never read a partial snapshot
+            temporary = File.createTempFile(source + SEPARATOR, ".tmp", directory);
+            final OutputStream output = new FileOutputStream(temporary);
+            try {
+                ignoreFile.write(output);
+            } finally {
+                output.close();
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.debug("wrote snapshot {}", file);
+            removeOutdated(source, file);
+            return true;
+        } catch (final IOException e) {
+            LOGGER.warn("could not write snapshot {}: {}", file, e.getMessage());
+            if (temporary != null) {
+                temporary.delete();
+            }
+            return false;
+        }
+    }
+
+    private void removeOutdated(final String source, final File current) {
+        final File[] snapshots = directory.listFiles();
+        if (snapshots == null) {
+            return;
+        }
+
+        final String prefix = source + SEPARATOR;
+        for (final File snapshot : snapshots) {
+            final String name = snapshot.getName();
+            if (name.startsWith(prefix) && name.endsWith(SUFFIX) && !snapshot.equals(current)) {
+                if (snapshot.delete()) {
+                    LOGGER.debug("removed outdated snapshot {}", snapshot);
+                } else {
+                    LOGGER.warn("could not remove outdated snapshot {}", snapshot);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotCache [directory=" + directory + ']';
+    }
+}
@@ -17,8 +17,8 @@
 package de.shadowhunt.sonar.plugins.ignorecode.internal;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 
 import javax.annotation.CheckForNull;
 
@@ -30,6 +30,8 @@ import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.utils.KeyValueFormat;
 
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+
 public class ModifyMeasures {
 
     private static final KeyValueFormat.IntegerConverter CONVERTER = KeyValueFormat.newIntegerConverter();
@@ -50,9 +52,13 @@ public class ModifyMeasures {
         return count;
     }
 
-    static void removeIgnores(final Map<Integer, ?> data, final Set<Integer> lines) {
-        for (final Integer line : lines) {
-            data.remove(line);
+    static void removeIgnores(final Map<Integer, ?> data, final LineSet lines) {
+        // the data is usually much smaller than the ignored ranges
+        final Iterator<Integer> it = data.keySet().iterator();
+        while (it.hasNext()) {
+            if (lines.contains(it.next())) {
+                it.remove();
+            }
         }
     }
 
@@ -71,7 +77,7 @@ public class ModifyMeasures {
     }
 
     @CheckForNull
-    Map<String, Map<Integer, Integer>> filterConditionsData(final DecoratorContext context, final Metric metric, final Set<Integer> lines) {
+    Map<String, Map<Integer, Integer>> filterConditionsData(final DecoratorContext context, final Metric metric, final LineSet lines) {
         final Measure conditions = context.getMeasure(metric);
         if (conditions == null) {
             LOGGER.debug("no condition coverage data for {}", metric.getKey());
@@ -94,7 +100,7 @@ public class ModifyMeasures {
         return result;
     }
 
-    public Map<Integer, Integer> filterLineValuePairs(final Measure measure, final Set<Integer> lines) {
+    public Map<Integer, Integer> filterLineValuePairs(final Measure measure, final LineSet lines) {
         final String originalData = measure.getData();
         final Map<Integer, Integer> conditionsByLine = KeyValueFormat.parse(originalData, CONVERTER, CONVERTER);
         removeIgnores(conditionsByLine, lines);
@@ -106,7 +112,7 @@ public class ModifyMeasures {
     }
 
     @CheckForNull
-    Map<Integer, Integer> filterLinesData(final DecoratorContext context, final Metric metric, final Set<Integer> lines) {
+    Map<Integer, Integer> filterLinesData(final DecoratorContext context, final Metric metric, final LineSet lines) {
         final Measure measure = context.getMeasure(metric);
         if (measure == null) {
             LOGGER.debug("no coverage data for {}", metric.getKey());
@@ -123,7 +129,7 @@ public class ModifyMeasures {
         return measuresStorage;
     }
 
-    public void rewrite(final DecoratorContext context, final Set<Integer> lines) {
+    public void rewrite(final DecoratorContext context, final LineSet lines) {
         LOGGER.debug("processing {}", context.getResource().getKey());
 
         rewriteUnitTestCoverage(context, lines);
@@ -131,7 +137,7 @@ public class ModifyMeasures {
         rewriteOverallTestCoverage(context, lines);
     }
 
-    private void rewriteOverallTestCoverage(final DecoratorContext context, final Set<Integer> lines) {
+    private void rewriteOverallTestCoverage(final DecoratorContext context, final LineSet lines) {
         final Map<Integer, Integer> linesData = filterLinesData(context, CoreMetrics.OVERALL_COVERAGE_LINE_HITS_DATA, lines);
         if (linesData == null) {
             LOGGER.debug("no overall test coverage data available");
@@ -198,7 +204,7 @@ public class ModifyMeasures {
         return newValue;
     }
 
-    void rewriteIntegrationTestCoverage(final DecoratorContext context, final Set<Integer> lines) {
+    void rewriteIntegrationTestCoverage(final DecoratorContext context, final LineSet lines) {
         final Map<Integer, Integer> linesData = filterLinesData(context, CoreMetrics.IT_COVERAGE_LINE_HITS_DATA, lines);
         if (linesData == null) {
             LOGGER.debug("no integration test coverage data available");
@@ -282,7 +288,7 @@ public class ModifyMeasures {
         return newValue;
     }
 
-    void rewriteUnitTestCoverage(final DecoratorContext context, final Set<Integer> lines) {
+    void rewriteUnitTestCoverage(final DecoratorContext context, final LineSet lines) {
         final Map<Integer, Integer> linesData = filterLinesData(context, CoreMetrics.COVERAGE_LINE_HITS_DATA, lines);
         if (linesData == null) {
             LOGGER.debug("no unit test coverage data available");
@@ -16,10 +16,12 @@
  */
 package de.shadowhunt.sonar.plugins.ignorecode.model;
 
-import java.util.SortedSet;
-import java.util.TreeSet;
-
-import org.apache.commons.lang.StringUtils;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * {@link AbstractPattern} is the base for all patterns that must handle lines
@@ -35,43 +37,81 @@ abstract class AbstractPattern {
      *
      * @throws IllegalArgumentException if from is not greater or equal than to
      */
-    static void addLines(final SortedSet<Integer> lines, final int from, final int to) {
-        if (to < from) {
-            throw new IllegalArgumentException("from: " + from + " must be greater or equal than to: " + to);
-        }
-        for (int line = from; line <= to; line++) {
-            lines.add(line);
+    static void addLines(final LineSet.Builder lines, final int from, final int to) {
+        lines.add(from, to);
+    }
+
+    /**
+     * Checks that the complexity of the given pattern does not exceed the given maximum
+     *
+     * @param pattern the resource or rule pattern to check
+     * @param maxComplexity the maximal complexity (see {@link GlobPattern#getComplexity()})
+     * @param tokenizer the {@link PatternTokenizer} that has read the pattern
+     *
+     * @throws IllegalArgumentException if the complexity of the pattern exceeds the maximum
+     */
+    static void checkComplexity(final String pattern, final int maxComplexity, final PatternTokenizer tokenizer) {
+        final int complexity = GlobPattern.compile(pattern).getComplexity();
+        if (complexity > maxComplexity) {
+            throw tokenizer.error("The pattern " + pattern + " has " + complexity + " wildcards, but at most " + maxComplexity + " are allowed");
         }
     }
 
-    static SortedSet<Integer> parseLineValues(final String lineValues) {
-        final SortedSet<Integer> lines = new TreeSet<>();
-        if ("*".equals(lineValues)) {
-            return lines;
+    /**
+     * Groups the given patterns by the given keys, retaining the order of the first occurrence of each key
+     *
+     * @param patterns the patterns to group
+     * @param keys the key of each pattern, patterns with the same key end up in the same group
+     *
+     * @return the {@link Map} from each key to all patterns with this key
+     */
+    static <P extends AbstractPattern> Map<String, List<P>> group(final List<P> patterns, final List<String> keys) {
+        final Map<String, List<P>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < patterns.size(); i++) {
+            List<P> group = groups.get(keys.get(i));
+            if (group == null) {
+                group = new ArrayList<>(1);
+                groups.put(keys.get(i), group);
+            }
+            group.add(patterns.get(i));
         }
+        return groups;
+    }
 
-        final String s = StringUtils.substringBetween(StringUtils.trim(lineValues), "[", "]");
-        final String[] parts = StringUtils.split(s, ',');
-        for (final String part : parts) {
-            if (StringUtils.contains(part, '-')) {
-                final String[] range = StringUtils.split(part, '-');
-                final int from = Integer.parseInt(range[0]);
-                final int to = Integer.parseInt(range[1]);
-                addLines(lines, from, to);
-            } else {
-                lines.add(Integer.parseInt(part));
+    /**
+     * Returns the union of the lines of all given patterns, as an empty {@link LineSet}
+     * matches all lines the union is empty if the lines of any pattern are empty
+     *
+     * @param patterns the patterns whose lines shall be combined
+     *
+     * @return the {@link LineSet} of all lines the patterns shall match
+     */
+    static LineSet union(final List<? extends AbstractPattern> patterns) {
+        final LineSet.Builder builder = new LineSet.Builder();
+        for (final AbstractPattern pattern : patterns) {
+            if (pattern.getLines().isEmpty()) {
+                return LineSet.EMPTY;
             }
+            builder.add(pattern.getLines());
         }
-        return lines;
+        return builder.build();
     }
 
-    protected final SortedSet<Integer> lines;
+    static LineSet parseLineValues(final String lineValues) {
+        try {
+            return new PatternTokenizer(new StringReader(lineValues)).readLines();
+        } catch (final IOException e) {
+            throw new IllegalStateException("could not read from String", e);
+        }
+    }
+
+    protected final LineSet lines;
 
     protected final String resourcePattern;
 
-    protected AbstractPattern(final String resourcePattern, final SortedSet<Integer> lines) {
+    protected AbstractPattern(final String resourcePattern, final LineSet lines) {
         this.resourcePattern = resourcePattern;
-        this.lines = new TreeSet<>(lines);
+        this.lines = lines;
     }
 
     @Override
@@ -96,12 +136,12 @@ abstract class AbstractPattern {
     }
 
     /**
-     * Returns a {@link SortedSet} of all lines the pattern shall match
+     * Returns the {@link LineSet} of all lines the pattern shall match, an empty {@link LineSet} matches all lines
      *
-     * @return the {@link SortedSet} of all lines the pattern shall match
+     * @return the {@link LineSet} of all lines the pattern shall match
      */
-    public SortedSet<Integer> getLines() {
-        return new TreeSet<>(lines);
+    public LineSet getLines() {
+        return lines;
     }
 
     /**
@@ -120,4 +160,12 @@ abstract class AbstractPattern {
         return result;
     }
 
+    /**
+     * Returns an equal pattern that only refers to the shared instances of the given {@link Interner}
+     *
+     * @param interner the {@link Interner} that shares equal patterns and lines
+     *
+     * @return this pattern if it already refers to the shared instances, otherwise an equal new pattern
+     */
+    abstract AbstractPattern intern(Interner interner);
 }
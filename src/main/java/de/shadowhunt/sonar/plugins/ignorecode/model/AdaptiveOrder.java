@@ -0,0 +1,162 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AdaptiveOrder} counts how often each pattern was hit and orders candidate patterns
+ * so that the most frequently hit patterns are tried first. The order is recalculated
+ * after a fixed number of hits, until then patterns keep their current rank. Patterns
+ * with the same number of hits keep their original order.
+ * <p>
+ * The ranked order of all patterns is only rebuilt when it is recalculated, ordering the
+ * candidates just filters the ranked order by the candidates without any locking
+ */
+public final class AdaptiveOrder<P> {
+
+    /**
+     * default number of hits after which the order is recalculated
+     */
+    public static final int DEFAULT_REORDER_INTERVAL = 256;
+
+    private final long[] hits;
+
+    private final Map<P, Integer> indices = new IdentityHashMap<>();
+
+    private final List<P> patterns;
+
+    private int pendingHits;
+
+    // indices of all patterns, most frequently hit first, replaced as a whole on every reorder
+    private volatile int[] ranked;
+
+    private final int reorderInterval;
+
+    /**
+     * Create a new {@link AdaptiveOrder} for the given patterns
+     *
+     * @param patterns all patterns in their original order
+     */
+    public AdaptiveOrder(final List<P> patterns) {
+        this(patterns, DEFAULT_REORDER_INTERVAL);
+    }
+
+    /**
+     * Create a new {@link AdaptiveOrder} for the given patterns
+     *
+     * @param patterns all patterns in their original order
+     * @param reorderInterval number of hits after which the order is recalculated
+     */
+    public AdaptiveOrder(final List<P> patterns, final int reorderInterval) {
+        if (reorderInterval <= 0) {
+            throw new IllegalArgumentException("reorderInterval: " + reorderInterval + " must be greater than 0");
+        }
+        this.patterns = new ArrayList<>(patterns);
+        this.reorderInterval = reorderInterval;
+        hits = new long[patterns.size()];
+        final int[] initial = new int[patterns.size()];
+        for (int i = 0; i < initial.length; i++) {
+            indices.put(patterns.get(i), i);
+            initial[i] = i;
+        }
+        ranked = initial;
+    }
+
+    /**
+     * Returns the number of times the given pattern was hit
+     *
+     * @param pattern the pattern
+     *
+     * @return the number of times the given pattern was hit
+     */
+    public synchronized long getHits(final P pattern) {
+        return hits[indices.get(pattern)];
+    }
+
+    /**
+     * Records a hit of the given pattern, after every {@code reorderInterval} hits the order is recalculated
+     *
+     * @param pattern the pattern that was hit
+     */
+    public synchronized void hit(final P pattern) {
+        hits[indices.get(pattern)]++;
+        pendingHits++;
+        if (pendingHits >= reorderInterval) {
+            reorder();
+        }
+    }
+
+    private void reorder() {
+        pendingHits = 0;
+
+        final List<Integer> order = new ArrayList<>(hits.length);
+        for (int i = 0; i < hits.length; i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer i1, final Integer i2) {
+                final int result = Long.compare(hits[i2], hits[i1]);
+                if (result != 0) {
+                    return result;
+                }
+                return Integer.compare(i1, i2);
+            }
+        });
+
+        final int[] reordered = new int[order.size()];
+        for (int position = 0; position < reordered.length; position++) {
+            reordered[position] = order.get(position);
+        }
+        ranked = reordered;
+    }
+
+    /**
+     * Orders the given candidates so the most frequently hit patterns come first
+     *
+     * @param candidates the indices of the candidates in the patterns of this {@link AdaptiveOrder}
+     *
+     * @return the {@link List} of the candidates in their current order
+     */
+    public List<P> sort(final BitSet candidates) {
+        final int count = candidates.cardinality();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        if (count == 1) {
+            return Collections.singletonList(patterns.get(candidates.nextSetBit(0)));
+        }
+
+        final int[] order = ranked;
+        final List<P> sorted = new ArrayList<>(count);
+        for (int position = 0; sorted.size() < count; position++) {
+            final int index = order[position];
+            if (candidates.get(index)) {
+                sorted.add(patterns.get(index));
+            }
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+/**
+ * {@link BloomFilter} is a compact probabilistic set of {@link String}s: it never reports
+ * an added value as absent, but may report a value that was never added as present.
+ * Values are hashed with 64 bit FNV-1a, which can be calculated incrementally, so all
+ * prefixes of a value can be tested in one pass (see {@link #hash(long, char)})
+ */
+final class BloomFilter {
+
+    private static final int BITS_PER_VALUE = 10;
+
+    private static final int HASH_FUNCTIONS = 7;
+
+    /**
+     * initial hash value of the empty {@link String}
+     */
+    static final long INITIAL_HASH = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    /**
+     * Returns the hash of a {@link String} extended by the given character
+     *
+     * @param hash the hash of the {@link String} so far
+     * @param c the next character
+     *
+     * @return the hash of the extended {@link String}
+     */
+    static long hash(final long hash, final char c) {
+        return (hash ^ c) * PRIME;
+    }
+
+    static long hash(final String value) {
+        long hash = INITIAL_HASH;
+        for (int i = 0; i < value.length(); i++) {
+            hash = hash(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long mix(final long hash) {
+        // murmur3 finalizer: spreads the FNV-1a hash over all bits
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private final long[] bits;
+
+    private final int mask;
+
+    /**
+     * Create a new {@link BloomFilter} for the given number of values
+     *
+     * @param expectedValues the number of values that will be added
+     */
+    BloomFilter(final int expectedValues) {
+        final int size = Math.max(Long.SIZE, Integer.highestOneBit(Math.max(1, expectedValues * BITS_PER_VALUE) - 1) << 1);
+        bits = new long[size / Long.SIZE];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds the given value
+     *
+     * @param value the value to add
+     */
+    void add(final String value) {
+        final long hash = mix(hash(value));
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            final int bit = (h1 + (i * h2)) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Returns whether a value with the given hash might have been added
+     *
+     * @param hash the hash of the value, as calculated by {@link #hash(long, char)}
+     *
+     * @return {@code false} if the value was definitely not added, otherwise {@code true}
+     */
+    boolean mightContain(final long hash) {
+        final long mixed = mix(hash);
+        final int h1 = (int) mixed;
+        final int h2 = (int) (mixed >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            final int bit = (h1 + (i * h2)) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given value might have been added
+     *
+     * @param value the value to test
+     *
+     * @return {@code false} if the value was definitely not added, otherwise {@code true}
+     */
+    boolean mightContain(final String value) {
+        return mightContain(hash(value));
+    }
+}
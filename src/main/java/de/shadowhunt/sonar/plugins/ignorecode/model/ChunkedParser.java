@@ -0,0 +1,197 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link ChunkedParser} splits the UTF-8 content of an ignore file at line boundaries into chunks and
+ * parses the chunks in parallel on a {@link ForkJoinPool}. The patterns of all chunks are merged in file order.
+ * <p>
+ * The chunks are parsed without knowing how many lines precede them, so a chunk that contains an invalid
+ * entry is parsed again with the number of lines of all preceding chunks, and its error reports the same
+ * line as a sequential parse would
+ * <p>
+ * Each chunk interns its values into its own {@link Interner}, so the parallel chunks do not contend for the
+ * monitor of a shared {@link Interner}. The patterns of each chunk are interned into the shared {@link Interner}
+ * when the chunks are merged
+ */
+abstract class ChunkedParser<P extends AbstractPattern> {
+
+    private static final class Chunk<P> {
+
+        private IllegalArgumentException error;
+
+        private int lineCount;
+
+        private final List<P> patterns = new ArrayList<>();
+    }
+
+    private static final class PoolHolder {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * default number of bytes per chunk
+     */
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static ByteBuffer slice(final ByteBuffer content, final int start, final int end) {
+        final ByteBuffer chunk = content.duplicate();
+        chunk.limit(end);
+        chunk.position(start);
+        return chunk.slice();
+    }
+
+    /**
+     * Splits the given content into chunks of at least the given size, each chunk ends after a line break
+     *
+     * @return the {@link List} of chunks in file order
+     */
+    static List<ByteBuffer> split(final ByteBuffer content, final int chunkSize) {
+        final List<ByteBuffer> chunks = new ArrayList<>();
+        final int end = content.limit();
+        int start = content.position();
+        while ((end - start) > chunkSize) {
+            int boundary = start + chunkSize;
+            while ((boundary < end) && (content.get(boundary - 1) != '\n')) {
+                boundary++;
+            }
+            chunks.add(slice(content, start, boundary));
+            start = boundary;
+        }
+        if ((start < end) || chunks.isEmpty()) {
+            chunks.add(slice(content, start, end));
+        }
+        return chunks;
+    }
+
+    private final int chunkSize;
+
+    private final Interner interner;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a new {@link ChunkedParser} that parses chunks of {@link #DEFAULT_CHUNK_SIZE} on a shared {@link ForkJoinPool}
+     *
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     */
+    ChunkedParser(final Interner interner) {
+        this(PoolHolder.POOL, DEFAULT_CHUNK_SIZE, interner);
+    }
+
+    ChunkedParser(final ForkJoinPool pool, final int chunkSize, final Interner interner) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + " must be greater than 0");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.interner = interner;
+    }
+
+    /**
+     * Parses all entries of the given UTF-8 content
+     *
+     * @param content the content of the ignore file, its position and limit are not changed
+     *
+     * @return the {@link List} of all patterns in file order
+     *
+     * @throws IllegalArgumentException if an entry is invalid, the message contains its line and column
+     */
+    final List<P> parse(final ByteBuffer content) {
+        final List<ByteBuffer> chunks = split(content, chunkSize);
+        if (chunks.size() == 1) {
+            return parseChunk(chunks.get(0), 1, interner).patterns;
+        }
+
+        final List<ForkJoinTask<Chunk<P>>> tasks = new ArrayList<>(chunks.size());
+        for (final ByteBuffer chunk : chunks) {
+            tasks.add(pool.submit(new RecursiveTask<Chunk<P>>() {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected Chunk<P> compute() {
+                    try {
+                        return parseChunk(chunk, 1, new Interner());
+                    } catch (final IllegalArgumentException e) {
+                        final Chunk<P> failed = new Chunk<>();
+                        failed.error = e;
+                        return failed;
+                    }
+                }
+            }));
+        }
+
+        final List<P> patterns = new ArrayList<>();
+        int lineCount = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            final Chunk<P> chunk = tasks.get(i).join();
+            if (chunk.error != null) {
+                // report the error with the line in the file, the chunk can only fail again
+                parseChunk(chunks.get(i), lineCount + 1, new Interner());
+                throw chunk.error;
+            }
+            for (final P pattern : chunk.patterns) {
+                patterns.add(intern(pattern));
+            }
+            lineCount += chunk.lineCount;
+        }
+        return patterns;
+    }
+
+    @SuppressWarnings("unchecked")
+    private P intern(final P pattern) {
+        // the subclasses return their own type
+        return (P) pattern.intern(interner);
+    }
+
+    private Chunk<P> parseChunk(final ByteBuffer content, final int firstLine, final Interner chunkInterner) {
+        final PatternTokenizer tokenizer = new PatternTokenizer(new Utf8Reader(content.duplicate()), PatternTokenizer.DEFAULT_BUFFER_SIZE, firstLine, true);
+        final Chunk<P> chunk = new Chunk<>();
+        try {
+            while (tokenizer.nextEntry()) {
+                chunk.patterns.add(parseEntry(tokenizer, chunkInterner));
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("could not read from ByteBuffer", e);
+        }
+        chunk.lineCount = tokenizer.getLine() - firstLine;
+        return chunk;
+    }
+
+    /**
+     * Parses the entry at the current position of the given {@link PatternTokenizer}
+     *
+     * @param tokenizer the {@link PatternTokenizer} of the chunk
+     * @param chunkInterner the {@link Interner} of the chunk, it must be used instead of a shared {@link Interner}
+     *
+     * @return the pattern of the entry
+     *
+     * @throws IOException in case the chunk can not be read
+     * @throws IllegalArgumentException if the entry is invalid
+     */
+    abstract P parseEntry(PatternTokenizer tokenizer, Interner chunkInterner) throws IOException;
+}
@@ -18,15 +18,44 @@ package de.shadowhunt.sonar.plugins.ignorecode.model;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.SortedSet;
+import java.util.Map;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 
 public final class CoveragePattern extends AbstractPattern {
 
+    /**
+     * Merge all {@link CoveragePattern}s with the same resource pattern into one {@link CoveragePattern}
+     * that matches the union of their lines
+     *
+     * @param patterns the {@link CoveragePattern}s to merge
+     *
+     * @return the list of merged {@link CoveragePattern}s, in the order of their first occurrence
+     */
+    public static List<CoveragePattern> merge(final List<CoveragePattern> patterns) {
+        final List<String> keys = new ArrayList<>(patterns.size());
+        for (final CoveragePattern pattern : patterns) {
+            keys.add(pattern.getResourcePattern());
+        }
+
+        final List<CoveragePattern> merged = new ArrayList<>();
+        for (final List<CoveragePattern> group : group(patterns, keys).values()) {
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+
+            final CoveragePattern first = group.get(0);
+            merged.add(new CoveragePattern(first.getResourcePattern(), union(group)));
+        }
+        return merged;
+    }
+
     /**
      * Create a list of {@link CoveragePattern} from the given {@link java.io.InputStream}
      *
@@ -39,18 +68,97 @@ public final class CoveragePattern extends AbstractPattern {
      * @throws java.io.IOException in case the {@link java.io.InputStream} can not be read
      */
     public static List<CoveragePattern> parse(final InputStream input) throws IOException {
-        final List<CoveragePattern> patterns = new ArrayList<>();
-        for (final String line : IOUtils.readLines(input)) {
-            if (StringUtils.isBlank(line) || (line.charAt(0) == '#')) {
-                continue;
-            }
+        return parse(input, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
 
-            final CoveragePattern pattern = parseLine(line);
-            patterns.add(pattern);
+    /**
+     * Create a list of {@link CoveragePattern} from the given {@link java.io.InputStream}
+     *
+     * @param input containing one {@link CoveragePattern} per line (for a description of the
+     * line format see {@link #parseLine(String)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     *
+     * @return the list of {@link CoveragePattern} from the given {@link java.io.InputStream}
+     *
+     * @throws java.io.IOException in case the {@link java.io.InputStream} can not be read
+     */
+    public static List<CoveragePattern> parse(final InputStream input, final int maxComplexity) throws IOException {
+        return parse(input, maxComplexity, new Interner());
+    }
+
+    /**
+     * Create a list of {@link CoveragePattern} from the given {@link java.io.InputStream}
+     *
+     * @param input containing one {@link CoveragePattern} per line (for a description of the
+     * line format see {@link #parseLine(String)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all {@link CoveragePattern}s
+     *
+     * @return the list of {@link CoveragePattern} from the given {@link java.io.InputStream}
+     *
+     * @throws java.io.IOException in case the {@link java.io.InputStream} can not be read
+     */
+    public static List<CoveragePattern> parse(final InputStream input, final int maxComplexity, final Interner interner) throws IOException {
+        return parse(new InputStreamReader(input), maxComplexity, interner);
+    }
+
+    /**
+     * Create a list of {@link CoveragePattern} from the given {@link Reader}, the entries are parsed while reading
+     * without holding the whole content in memory
+     *
+     * @param reader containing one {@link CoveragePattern} per line (for a description of the
+     * line format see {@link #parseLine(String)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all {@link CoveragePattern}s
+     *
+     * @return the list of {@link CoveragePattern} from the given {@link Reader}
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     * @throws IllegalArgumentException if an entry is invalid or an include directive is found, the message contains its line and column
+     */
+    public static List<CoveragePattern> parse(final Reader reader, final int maxComplexity, final Interner interner) throws IOException {
+        final PatternTokenizer tokenizer = new PatternTokenizer(reader);
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        while (tokenizer.nextEntry()) {
+            patterns.add(parseEntry(tokenizer, maxComplexity, interner));
         }
         return patterns;
     }
 
+    /**
+     * Create a list of {@link CoveragePattern} from the given UTF-8 content, eg. a memory-mapped file. Large content is split
+     * at line boundaries into chunks that are parsed in parallel. Include directives are skipped, they must be
+     * resolved by the caller (see {@link IncludeDirective#scan(ByteBuffer)})
+     *
+     * @param content the UTF-8 content containing one {@link CoveragePattern} per line, its position and limit are not changed
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the list of {@link CoveragePattern} from the given content
+     *
+     * @throws IllegalArgumentException if an entry is invalid, the message contains its line and column
+     */
+    public static List<CoveragePattern> parse(final ByteBuffer content, final int maxComplexity, final Interner interner) {
+        return new ChunkedParser<CoveragePattern>(interner) {
+
+            @Override
+            CoveragePattern parseEntry(final PatternTokenizer tokenizer, final Interner chunkInterner) throws IOException {
+                return CoveragePattern.parseEntry(tokenizer, maxComplexity, chunkInterner);
+            }
+        }.parse(content);
+    }
+
+    static CoveragePattern parseEntry(final PatternTokenizer tokenizer, final int maxComplexity, final Interner interner) throws IOException {
+        final String resourcePattern = interner.intern(tokenizer.readField("a resource pattern"));
+        checkComplexity(resourcePattern, maxComplexity, tokenizer);
+
+        final LineSet lines = tokenizer.readLines();
+        return new CoveragePattern(resourcePattern, interner.intern(lines));
+    }
+
     /**
      * Create a new {@link CoveragePattern} from the given line describing the resourcePattern, the rulePattern and
      * the lines in the resource
@@ -61,26 +169,55 @@ public final class CoveragePattern extends AbstractPattern {
      * @return the new {@link CoveragePattern} from the given line
      */
     public static CoveragePattern parseLine(final String line) {
-        final String[] fields = StringUtils.split(line, ';');
-        if (fields.length != 2) {
-            throw new IllegalArgumentException("The line does not define 2 fields separated by ';': " + line);
-        }
+        return parseLine(line, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
 
-        final String resourcePattern = fields[0];
-        if (StringUtils.isBlank(resourcePattern)) {
-            throw new IllegalArgumentException("The first field does not define a resource pattern: " + line);
-        }
+    /**
+     * Create a new {@link CoveragePattern} from the given line describing the resourcePattern, the rulePattern and
+     * the lines in the resource
+     *
+     * @param line each line must consist out of the resourcePattern and lineValues,
+     * separated by a ';'
+     * @param maxComplexity the maximal complexity of the patterns (see {@link GlobPattern#getComplexity()})
+     *
+     * @return the new {@link CoveragePattern} from the given line
+     *
+     * @throws IllegalArgumentException if the line is invalid or a pattern exceeds the maximal complexity
+     */
+    public static CoveragePattern parseLine(final String line, final int maxComplexity) {
+        return parseLine(line, maxComplexity, new Interner());
+    }
 
-        final String lineValues = fields[1];
-        if (StringUtils.isBlank(lineValues)) {
-            throw new IllegalArgumentException("The third field does not define a range of lines: " + line);
+    /**
+     * Create a new {@link CoveragePattern} from the given line describing the resourcePattern, the rulePattern and
+     * the lines in the resource
+     *
+     * @param line each line must consist out of the resourcePattern and lineValues,
+     * separated by a ';'
+     * @param maxComplexity the maximal complexity of the patterns (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all {@link CoveragePattern}s
+     *
+     * @return the new {@link CoveragePattern} from the given line
+     *
+     * @throws IllegalArgumentException if the line is invalid or a pattern exceeds the maximal complexity
+     */
+    public static CoveragePattern parseLine(final String line, final int maxComplexity, final Interner interner) {
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(line));
+        try {
+            if (!tokenizer.nextEntry()) {
+                throw tokenizer.error("The line does not define 2 fields separated by ';'");
+            }
+            final CoveragePattern pattern = parseEntry(tokenizer, maxComplexity, interner);
+            if (tokenizer.nextEntry()) {
+                throw tokenizer.error("The line must not define more than one entry");
+            }
+            return pattern;
+        } catch (final IOException e) {
+            throw new IllegalStateException("could not read from String", e);
         }
-
-        final SortedSet<Integer> lines = parseLineValues(lineValues);
-        return new CoveragePattern(resourcePattern, lines);
     }
 
-    public CoveragePattern(final String resourcePattern, final SortedSet<Integer> lines) {
+    public CoveragePattern(final String resourcePattern, final LineSet lines) {
         super(resourcePattern, lines);
     }
 
@@ -89,12 +226,22 @@ public final class CoveragePattern extends AbstractPattern {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof IssuePattern)) {
+        if (!(o instanceof CoveragePattern)) {
             return false;
         }
         return super.equals(o);
     }
 
+    @Override
+    CoveragePattern intern(final Interner interner) {
+        final String sharedResourcePattern = interner.intern(resourcePattern);
+        final LineSet sharedLines = interner.intern(lines);
+        if ((sharedResourcePattern == resourcePattern) && (sharedLines == lines)) {
+            return this;
+        }
+        return new CoveragePattern(sharedResourcePattern, sharedLines);
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -0,0 +1,267 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link GlobAutomaton} combines a list of resource patterns (see {@link GlobPattern} for the syntax)
+ * into one automaton. A resource key is scanned only once from left to right, independent of the
+ * number of patterns. The automaton is determinized lazily: every set of active states that is reached is cached together with its
+ * transitions, so resource keys sharing directories share the same work. The transitions of a state
+ * only take memory for the characters that have been scanned in this state. If the number of
+ * cached states exceeds the configured maximum the cache is dropped and built up again
+ */
+final class GlobAutomaton {
+
+    private static final class State {
+
+        final int[] accepted;
+
+        final int[] active;
+
+        private char[] chars = NO_CHARS;
+
+        private int size;
+
+        private State[] targets = NO_TARGETS;
+
+        State(final int[] active, final int[] accepted) {
+            this.active = active;
+            this.accepted = accepted;
+        }
+
+        State get(final char c) {
+            final int index = Arrays.binarySearch(chars, 0, size, c);
+            return (index >= 0) ? targets[index] : null;
+        }
+
+        void put(final char c, final State target) {
+            // the transitions are kept sorted by character in arrays that grow with the number of
+            // transitions, as a resource key only uses a few characters in each state
+            final int index = -(Arrays.binarySearch(chars, 0, size, c) + 1);
+            if (size == chars.length) {
+                final int capacity = Math.max(INITIAL_TRANSITIONS, size * 2);
+                chars = Arrays.copyOf(chars, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+            }
+            System.arraycopy(chars, index, chars, index + 1, size - index);
+            System.arraycopy(targets, index, targets, index + 1, size - index);
+            chars[index] = c;
+            targets[index] = target;
+            size++;
+        }
+    }
+
+    private static final class StateKey {
+
+        private final int[] active;
+
+        private final int hash;
+
+        StateKey(final int[] active) {
+            this.active = active;
+            hash = Arrays.hashCode(active);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StateKey)) {
+                return false;
+            }
+            return Arrays.equals(active, ((StateKey) o).active);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final int INITIAL_TRANSITIONS = 2;
+
+    static final int MAX_CACHED_STATES = 10000;
+
+    private static final char[] NO_CHARS = new char[0];
+
+    private static final int[] NO_STATES = new int[0];
+
+    private static final State[] NO_TARGETS = new State[0];
+
+    private int generation;
+
+    private int[] mark = new int[0];
+
+    private final int maxCachedStates;
+
+    private final GlobNfa nfa = new GlobNfa();
+
+    private final int patternCount;
+
+    private int[] stack = new int[0];
+
+    private State start;
+
+    private int[] startStates = NO_STATES;
+
+    private final Map<StateKey, State> states = new HashMap<>();
+
+    /**
+     * Create a new {@link GlobAutomaton} for the given resource patterns
+     *
+     * @param resourcePatterns the resource patterns, the index of a pattern in the list is its id
+     */
+    GlobAutomaton(final List<String> resourcePatterns) {
+        this(resourcePatterns, MAX_CACHED_STATES);
+    }
+
+    /**
+     * Create a new {@link GlobAutomaton} for the given resource patterns
+     *
+     * @param resourcePatterns the resource patterns, the index of a pattern in the list is its id
+     * @param maxCachedStates the maximal number of deterministic states that are cached
+     */
+    GlobAutomaton(final List<String> resourcePatterns, final int maxCachedStates) {
+        this.maxCachedStates = maxCachedStates;
+        patternCount = resourcePatterns.size();
+        for (int id = 0; id < patternCount; id++) {
+            final String pattern = resourcePatterns.get(id);
+            if (pattern != null) {
+                startStates = PatternIndex.append(startStates, nfa.add(id, GlobPattern.compile(pattern)));
+            }
+        }
+        mark = new int[nfa.size()];
+        stack = new int[nfa.size()];
+        start = intern(closure(startStates));
+    }
+
+    private int[] closure(final int[] initial) {
+        generation++;
+        int size = 0;
+        for (final int state : initial) {
+            if (mark[state] != generation) {
+                mark[state] = generation;
+                stack[size++] = state;
+            }
+        }
+
+        int position = 0;
+        while (position < size) {
+            final int[] targets = nfa.getEpsilon(stack[position++]);
+            if (targets == null) {
+                continue;
+            }
+            for (final int target : targets) {
+                if (mark[target] != generation) {
+                    mark[target] = generation;
+                    stack[size++] = target;
+                }
+            }
+        }
+
+        final int[] result = Arrays.copyOf(stack, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the number of currently cached deterministic states
+     *
+     * @return the number of currently cached deterministic states
+     */
+    synchronized int getCachedStates() {
+        return states.size();
+    }
+
+    private State intern(final int[] active) {
+        final StateKey key = new StateKey(active);
+        final State cached = states.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (states.size() >= maxCachedStates) {
+            states.clear();
+            if (start != null) {
+                start = new State(start.active, start.accepted);
+                states.put(new StateKey(start.active), start);
+            }
+        }
+
+        int[] accepted = NO_STATES;
+        for (final int state : active) {
+            if (nfa.getAccept(state) >= 0) {
+                accepted = PatternIndex.append(accepted, nfa.getAccept(state));
+            }
+        }
+        Arrays.sort(accepted);
+
+        final State state = new State(active, accepted);
+        states.put(key, state);
+        return state;
+    }
+
+    /**
+     * Returns the ids of all resource patterns that match the given resource key
+     *
+     * @param resourceKey the normalized key of the resource
+     *
+     * @return the {@link BitSet} of the ids of all matching resource patterns
+     */
+    synchronized BitSet match(final String resourceKey) {
+        State state = start;
+        for (int i = 0; (i < resourceKey.length()) && (state.active.length > 0); i++) {
+            state = step(state, resourceKey.charAt(i));
+        }
+
+        final BitSet matching = new BitSet(patternCount);
+        for (final int id : state.accepted) {
+            matching.set(id);
+        }
+        return matching;
+    }
+
+    private State step(final State state, final char c) {
+        final State cached = state.get(c);
+        if (cached != null) {
+            return cached;
+        }
+
+        int[] reached = new int[state.active.length * 2];
+        int size = 0;
+        for (final int active : state.active) {
+            if (GlobNfa.matches(nfa.getLoopKind(active), c, c)) {
+                reached[size++] = active;
+            }
+            if (GlobNfa.matches(nfa.getEdgeKind(active), nfa.getEdgeChar(active), c)) {
+                reached[size++] = nfa.getEdgeTarget(active);
+            }
+        }
+        reached = Arrays.copyOf(reached, size);
+
+        final State next = intern(closure(reached));
+        state.put(c, next);
+        return next;
+    }
+}
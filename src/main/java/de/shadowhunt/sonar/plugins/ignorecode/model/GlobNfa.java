@@ -0,0 +1,166 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * {@link GlobNfa} is the non deterministic automaton of one or more {@link GlobPattern}s.
+ * Every state has at most one outgoing edge, one self loop and any number of epsilon transitions
+ */
+final class GlobNfa {
+
+    static final int ANY = 2;
+
+    static final int LITERAL = 1;
+
+    static final int NONE = 0;
+
+    static final int NOT_SEPARATOR = 3;
+
+    static boolean matches(final int kind, final char expected, final char c) {
+        switch (kind) {
+            case LITERAL:
+                return c == expected;
+            case NOT_SEPARATOR:
+                return c != '/';
+            case ANY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private int[] accept = new int[16];
+
+    private char[] edgeChar = new char[16];
+
+    private int[] edgeKind = new int[16];
+
+    private int[] edgeTarget = new int[16];
+
+    private int[][] epsilon = new int[16][];
+
+    private int[] loopKind = new int[16];
+
+    private int stateCount;
+
+    /**
+     * Add the given {@link GlobPattern} to the {@link GlobNfa}
+     *
+     * @param id the id that is reported when the {@link GlobPattern} matches
+     * @param pattern the {@link GlobPattern} to add
+     *
+     * @return the start state of the {@link GlobPattern}, the accepting state is the last created state
+     */
+    int add(final int id, final GlobPattern pattern) {
+        final int start = newState();
+        int current = start;
+        for (int token = 0; token < pattern.getTokenCount(); token++) {
+            final int kind = pattern.getKind(token);
+            if (kind == GlobPattern.TOKEN_DIRECTORIES) {
+                // zero or more directories: (?:.*/|)
+                final int directories = newState();
+                final int next = newState();
+                addEpsilon(current, directories);
+                loopKind[directories] = ANY;
+                setEdge(directories, LITERAL, '/', next);
+                addEpsilon(current, next);
+                current = next;
+                continue;
+            }
+
+            final int next = newState();
+            switch (kind) {
+                case GlobPattern.TOKEN_ANY:
+                    addEpsilon(current, next);
+                    loopKind[next] = ANY;
+                    break;
+                case GlobPattern.TOKEN_SEGMENT:
+                    addEpsilon(current, next);
+                    loopKind[next] = NOT_SEPARATOR;
+                    break;
+                case GlobPattern.TOKEN_ANY_CHAR:
+                    setEdge(current, NOT_SEPARATOR, '?', next);
+                    break;
+                default:
+                    setEdge(current, LITERAL, pattern.getChar(token), next);
+                    break;
+            }
+            current = next;
+        }
+        accept[current] = id;
+        return start;
+    }
+
+    private void addEpsilon(final int from, final int to) {
+        epsilon[from] = (epsilon[from] == null) ? new int[] { to } : PatternIndex.append(epsilon[from], to);
+    }
+
+    int getAccept(final int state) {
+        return accept[state];
+    }
+
+    char getEdgeChar(final int state) {
+        return edgeChar[state];
+    }
+
+    int getEdgeKind(final int state) {
+        return edgeKind[state];
+    }
+
+    int getEdgeTarget(final int state) {
+        return edgeTarget[state];
+    }
+
+    @CheckForNull
+    int[] getEpsilon(final int state) {
+        return epsilon[state];
+    }
+
+    int getLoopKind(final int state) {
+        return loopKind[state];
+    }
+
+    private int newState() {
+        if (stateCount == accept.length) {
+            final int capacity = stateCount * 2;
+            accept = Arrays.copyOf(accept, capacity);
+            edgeChar = Arrays.copyOf(edgeChar, capacity);
+            edgeKind = Arrays.copyOf(edgeKind, capacity);
+            edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+            epsilon = Arrays.copyOf(epsilon, capacity);
+            loopKind = Arrays.copyOf(loopKind, capacity);
+        }
+        accept[stateCount] = -1;
+        edgeKind[stateCount] = NONE;
+        loopKind[stateCount] = NONE;
+        return stateCount++;
+    }
+
+    private void setEdge(final int from, final int kind, final char c, final int to) {
+        edgeKind[from] = kind;
+        edgeChar[from] = c;
+        edgeTarget[from] = to;
+    }
+
+    int size() {
+        return stateCount;
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+
+/**
+ * {@link GlobPattern} matches values against an ant like pattern: {@code ?} matches exactly one character
+ * and {@code *} zero or more characters, both excluding the directory separator {@code /}. {@code **}
+ * matches zero or more characters including the directory separator and {@code **}{@code /} matches
+ * zero or more directories. A backslash in the pattern is treated as directory separator, a leading
+ * separator of the pattern and a leading and a trailing separator of the value are ignored.
+ * <p>
+ * The pattern is compiled into a non deterministic automaton whose active states are tracked in
+ * parallel, so matching never backtracks and runs in linear time in the length of the value.
+ * Matching does not allocate any memory once the per thread scratch space has been created.
+ * <p>
+ * Consecutive wildcards that are equivalent to a single one (e.g. {@code ***} or {@code **}{@code /**}{@code /})
+ * are collapsed when the pattern is compiled. The remaining number of wildcards is the complexity of
+ * the pattern (see {@link #getComplexity()}), as every wildcard can keep one more state active
+ */
+public final class GlobPattern {
+
+    private static final ThreadLocal<long[]> SCRATCH = new ThreadLocal<long[]>() {
+
+        @Override
+        protected long[] initialValue() {
+            return new long[0];
+        }
+    };
+
+    /**
+     * default maximal complexity of a pattern (see {@link #getComplexity()})
+     */
+    public static final int DEFAULT_MAX_COMPLEXITY = 32;
+
+    static final int TOKEN_ANY = 3;
+
+    static final int TOKEN_ANY_CHAR = 1;
+
+    static final int TOKEN_CHAR = 0;
+
+    static final int TOKEN_DIRECTORIES = 4;
+
+    static final int TOKEN_SEGMENT = 2;
+
+    /**
+     * Create a new {@link GlobPattern} from the given pattern
+     *
+     * @param pattern the ant like pattern
+     *
+     * @return the new {@link GlobPattern} for the given pattern
+     */
+    public static GlobPattern compile(final String pattern) {
+        return new GlobPattern(pattern);
+    }
+
+    static boolean isSeparator(final char c) {
+        return (c == '/') || (c == '\\');
+    }
+
+    /**
+     * Returns the wildcard that is equivalent to the two given consecutive wildcards
+     *
+     * @return the kind of the equivalent wildcard or {@code -1} if the wildcards can't be collapsed
+     */
+    static int collapse(final int first, final int second) {
+        if ((first == TOKEN_ANY) && ((second == TOKEN_ANY) || (second == TOKEN_SEGMENT) || (second == TOKEN_DIRECTORIES))) {
+            return TOKEN_ANY;
+        }
+        if ((second == TOKEN_ANY) && ((first == TOKEN_SEGMENT) || (first == TOKEN_DIRECTORIES))) {
+            return TOKEN_ANY;
+        }
+        if ((first == second) && ((first == TOKEN_SEGMENT) || (first == TOKEN_DIRECTORIES))) {
+            return first;
+        }
+        return -1;
+    }
+
+    private final int accept;
+
+    private final long[][] closures;
+
+    private final char[] chars;
+
+    private final int[] kinds;
+
+    private final GlobNfa nfa;
+
+    private final String pattern;
+
+    private final long[] startClosure;
+
+    private final int words;
+
+    private GlobPattern(final String pattern) {
+        this.pattern = pattern;
+
+        final int length = pattern.length();
+        final int[] tokenKinds = new int[length];
+        final char[] tokenChars = new char[length];
+        int size = 0;
+
+        int i = (pattern.startsWith("/") || pattern.startsWith("\\")) ? 1 : 0;
+        while (i < length) {
+            final char c = pattern.charAt(i);
+            if (c == '*') {
+                int kind;
+                if (((i + 1) < length) && (pattern.charAt(i + 1) == '*')) {
+                    if (((i + 2) < length) && isSeparator(pattern.charAt(i + 2))) {
+                        kind = TOKEN_DIRECTORIES;
+                        i += 2;
+                    } else {
+                        kind = TOKEN_ANY;
+                        i += 1;
+                    }
+                } else {
+                    kind = TOKEN_SEGMENT;
+                }
+
+                while (size > 0) {
+                    final int collapsed = collapse(tokenKinds[size - 1], kind);
+                    if (collapsed < 0) {
+                        break;
+                    }
+                    kind = collapsed;
+                    size--;
+                }
+                tokenKinds[size] = kind;
+            } else if (c == '?') {
+                tokenKinds[size] = TOKEN_ANY_CHAR;
+            } else {
+                tokenKinds[size] = TOKEN_CHAR;
+                tokenChars[size] = isSeparator(c) ? '/' : c;
+            }
+            size++;
+            i++;
+        }
+        kinds = Arrays.copyOf(tokenKinds, size);
+        chars = Arrays.copyOf(tokenChars, size);
+
+        nfa = new GlobNfa();
+        final int start = nfa.add(0, this);
+        accept = nfa.size() - 1;
+        words = (nfa.size() + 63) / 64;
+        closures = new long[nfa.size()][];
+        for (int state = 0; state < nfa.size(); state++) {
+            closures[state] = closure(state);
+        }
+        startClosure = closures[start];
+    }
+
+    private long[] closure(final int state) {
+        final long[] closure = new long[words];
+        final int[] stack = new int[nfa.size()];
+        int size = 0;
+        closure[state >>> 6] |= 1L << state;
+        stack[size++] = state;
+        while (size > 0) {
+            final int[] targets = nfa.getEpsilon(stack[--size]);
+            if (targets == null) {
+                continue;
+            }
+            for (final int target : targets) {
+                if ((closure[target >>> 6] & (1L << target)) == 0L) {
+                    closure[target >>> 6] |= 1L << target;
+                    stack[size++] = target;
+                }
+            }
+        }
+        return closure;
+    }
+
+    char getChar(final int token) {
+        return chars[token];
+    }
+
+    /**
+     * Returns the complexity of this pattern: the number of {@code *}, {@code **} and
+     * {@code **}{@code /} wildcards after collapsing equivalent consecutive wildcards
+     *
+     * @return the complexity of this pattern
+     */
+    public int getComplexity() {
+        int complexity = 0;
+        for (final int kind : kinds) {
+            if ((kind == TOKEN_SEGMENT) || (kind == TOKEN_ANY) || (kind == TOKEN_DIRECTORIES)) {
+                complexity++;
+            }
+        }
+        return complexity;
+    }
+
+    int getKind(final int token) {
+        return kinds[token];
+    }
+
+    /**
+     * Returns the pattern this {@link GlobPattern} was compiled from
+     *
+     * @return the pattern this {@link GlobPattern} was compiled from
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    int getTokenCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Returns whether the given value matches this {@link GlobPattern}
+     *
+     * @param value the value to match
+     *
+     * @return {@code true} if the value matches, otherwise {@code false}
+     */
+    public boolean match(final String value) {
+        final int from = value.startsWith("/") ? 1 : 0;
+        int to = value.length();
+        if ((to > from) && (value.charAt(to - 1) == '/')) {
+            to--;
+        }
+        return match(value, from, to);
+    }
+
+    /**
+     * Returns whether the given {@link ResourcePath} matches this pattern,
+     * the already normalized path is matched without any further processing
+     *
+     * @param resourcePath the {@link ResourcePath} to match
+     *
+     * @return {@code true} if the {@link ResourcePath} matches this pattern, otherwise {@code false}
+     */
+    public boolean match(final ResourcePath resourcePath) {
+        final String path = resourcePath.getPath();
+        return match(path, 0, path.length());
+    }
+
+    private boolean match(final String value, final int from, final int to) {
+        long[] scratch = SCRATCH.get();
+        if (scratch.length < (2 * words)) {
+            scratch = new long[2 * words];
+            SCRATCH.set(scratch);
+        }
+
+        int current = 0;
+        int next = words;
+        System.arraycopy(startClosure, 0, scratch, current, words);
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            Arrays.fill(scratch, next, next + words, 0L);
+
+            boolean alive = false;
+            for (int word = 0; word < words; word++) {
+                long bits = scratch[current + word];
+                while (bits != 0L) {
+                    final int state = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (GlobNfa.matches(nfa.getLoopKind(state), c, c)) {
+                        or(scratch, next, closures[state]);
+                        alive = true;
+                    }
+                    if (GlobNfa.matches(nfa.getEdgeKind(state), nfa.getEdgeChar(state), c)) {
+                        or(scratch, next, closures[nfa.getEdgeTarget(state)]);
+                        alive = true;
+                    }
+                }
+            }
+            if (!alive) {
+                return false;
+            }
+
+            final int swap = current;
+            current = next;
+            next = swap;
+        }
+        return (scratch[current + (accept >>> 6)] & (1L << accept)) != 0L;
+    }
+
+    private void or(final long[] target, final int offset, final long[] bits) {
+        for (int word = 0; word < words; word++) {
+            target[offset + word] |= bits[word];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,351 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * {@link IgnoreFile} holds the {@link CoveragePattern}s and {@link IssuePattern}s of a unified ignore file.
+ * Each line of a unified ignore file starts with the kind of the ignore followed by the fields of
+ * the corresponding pattern: {@code coverage;resourcePattern;lines} or {@code issue;resourcePattern;rulePattern;lines}
+ */
+public final class IgnoreFile {
+
+    /**
+     * kind of the lines that describe a {@link CoveragePattern}
+     */
+    public static final String COVERAGE = "coverage";
+
+    /**
+     * version of the binary format written by {@link #write(OutputStream)}, must be increased whenever the format changes
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * kind of the lines that describe an {@link IssuePattern}
+     */
+    public static final String ISSUE = "issue";
+
+    private static final int MAGIC = 0x49474E46; // "IGNF"
+
+    private static final int TRAILER_BYTES = 8;
+
+    /**
+     * Create a new {@link IgnoreFile} from the given {@link InputStream}
+     *
+     * @param input containing one {@link CoveragePattern} or {@link IssuePattern} per line (for a description of the
+     * line format see {@link #parseLine(String, int, Interner)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     *
+     * @return the {@link IgnoreFile} with all patterns from the given {@link InputStream}
+     *
+     * @throws IOException in case the {@link InputStream} can not be read
+     */
+    public static IgnoreFile parse(final InputStream input) throws IOException {
+        return parse(input, GlobPattern.DEFAULT_MAX_COMPLEXITY, new Interner());
+    }
+
+    /**
+     * Create a new {@link IgnoreFile} from the given {@link InputStream}
+     *
+     * @param input containing one {@link CoveragePattern} or {@link IssuePattern} per line (for a description of the
+     * line format see {@link #parseLine(String, int, Interner)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the {@link IgnoreFile} with all patterns from the given {@link InputStream}
+     *
+     * @throws IOException in case the {@link InputStream} can not be read
+     */
+    public static IgnoreFile parse(final InputStream input, final int maxComplexity, final Interner interner) throws IOException {
+        return parse(new InputStreamReader(input), maxComplexity, interner);
+    }
+
+    /**
+     * Create a new {@link IgnoreFile} from the given {@link Reader}, the entries are parsed while reading
+     * without holding the whole content in memory
+     *
+     * @param reader containing one {@link CoveragePattern} or {@link IssuePattern} per line (for a description of the
+     * line format see {@link #parseLine(String, int, Interner)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the {@link IgnoreFile} with all patterns from the given {@link Reader}
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     * @throws IllegalArgumentException if an entry is invalid or an include directive is found, the message contains its line and column
+     */
+    public static IgnoreFile parse(final Reader reader, final int maxComplexity, final Interner interner) throws IOException {
+        final PatternTokenizer tokenizer = new PatternTokenizer(reader);
+        final List<AbstractPattern> patterns = new ArrayList<>();
+        while (tokenizer.nextEntry()) {
+            patterns.add(parseEntry(tokenizer, maxComplexity, interner));
+        }
+        return create(patterns);
+    }
+
+    private static IgnoreFile create(final List<AbstractPattern> patterns) {
+        final List<CoveragePattern> coveragePatterns = new ArrayList<>();
+        final List<IssuePattern> issuePatterns = new ArrayList<>();
+        for (final AbstractPattern pattern : patterns) {
+            if (pattern instanceof CoveragePattern) {
+                coveragePatterns.add((CoveragePattern) pattern);
+            } else {
+                issuePatterns.add((IssuePattern) pattern);
+            }
+        }
+        return new IgnoreFile(coveragePatterns, issuePatterns);
+    }
+
+    /**
+     * Create a new {@link IgnoreFile} from the given UTF-8 content, eg. a memory-mapped file. Large content is split
+     * at line boundaries into chunks that are parsed in parallel. Include directives are skipped, they must be
+     * resolved by the caller (see {@link IncludeDirective#scan(ByteBuffer)})
+     *
+     * @param content the UTF-8 content containing one {@link CoveragePattern} or {@link IssuePattern} per line, its position and limit are not changed
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the {@link IgnoreFile} with all patterns from the given content
+     *
+     * @throws IllegalArgumentException if an entry is invalid, the message contains its line and column
+     */
+    public static IgnoreFile parse(final ByteBuffer content, final int maxComplexity, final Interner interner) {
+        final List<AbstractPattern> patterns = new ChunkedParser<AbstractPattern>(interner) {
+
+            @Override
+            AbstractPattern parseEntry(final PatternTokenizer tokenizer, final Interner chunkInterner) throws IOException {
+                return IgnoreFile.parseEntry(tokenizer, maxComplexity, chunkInterner);
+            }
+        }.parse(content);
+        return create(patterns);
+    }
+
+    /**
+     * Create a new {@link IgnoreFile} from the given binary content as written by {@link #write(OutputStream)}
+     *
+     * @param content the complete binary content
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the {@link IgnoreFile} with all patterns from the given content
+     *
+     * @throws IOException in case the content is corrupt or has been written in a different {@link #FORMAT_VERSION}
+     */
+    public static IgnoreFile read(final byte[] content, final Interner interner) throws IOException {
+        if (content.length < TRAILER_BYTES) {
+            throw new IOException("content is truncated");
+        }
+
+        final int length = content.length - TRAILER_BYTES;
+        final CRC32 checksum = new CRC32();
+        checksum.update(content, 0, length);
+        final DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(content, length, TRAILER_BYTES));
+        if (trailer.readLong() != checksum.getValue()) {
+            throw new IOException("checksum of content does not match");
+        }
+
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(content, 0, length));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("content is not a binary ignore file");
+        }
+        final int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("format version " + version + " is not supported, expected " + FORMAT_VERSION);
+        }
+
+        final int coverageCount = readCount(input);
+        final List<CoveragePattern> coveragePatterns = new ArrayList<>(coverageCount);
+        for (int i = 0; i < coverageCount; i++) {
+            final String resourcePattern = interner.intern(input.readUTF());
+            coveragePatterns.add(new CoveragePattern(resourcePattern, interner.intern(LineSet.read(input))));
+        }
+
+        final int issueCount = readCount(input);
+        final List<IssuePattern> issuePatterns = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            final String resourcePattern = interner.intern(input.readUTF());
+            final String rulePattern = interner.intern(input.readUTF());
+            issuePatterns.add(new IssuePattern(resourcePattern, rulePattern, interner.intern(LineSet.read(input))));
+        }
+
+        if (input.available() > 0) {
+            throw new IOException("content has " + input.available() + " unexpected bytes");
+        }
+        return new IgnoreFile(coveragePatterns, issuePatterns);
+    }
+
+    private static int readCount(final DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        if ((count < 0) || (count > input.available())) {
+            throw new IOException("invalid number of patterns: " + count);
+        }
+        return count;
+    }
+
+    static AbstractPattern parseEntry(final PatternTokenizer tokenizer, final int maxComplexity, final Interner interner) throws IOException {
+        final CharSequence kind = tokenizer.readField("a kind");
+        if (isKind(kind, COVERAGE)) {
+            return CoveragePattern.parseEntry(tokenizer, maxComplexity, interner);
+        }
+        if (isKind(kind, ISSUE)) {
+            return IssuePattern.parseEntry(tokenizer, maxComplexity, interner);
+        }
+        throw tokenizer.error("The line does not start with " + COVERAGE + " or " + ISSUE);
+    }
+
+    private static boolean isKind(final CharSequence field, final String kind) {
+        int start = 0;
+        int end = field.length();
+        while ((start < end) && Character.isWhitespace(field.charAt(start))) {
+            start++;
+        }
+        while ((end > start) && Character.isWhitespace(field.charAt(end - 1))) {
+            end--;
+        }
+        if ((end - start) != kind.length()) {
+            return false;
+        }
+        for (int i = 0; i < kind.length(); i++) {
+            if (field.charAt(start + i) != kind.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create a new {@link CoveragePattern} or {@link IssuePattern} from the given line
+     *
+     * @param line each line must consist out of the kind ({@link #COVERAGE} or {@link #ISSUE}) and the
+     * fields of the pattern (see {@link CoveragePattern#parseLine(String)} and {@link IssuePattern#parseLine(String)}),
+     * separated by a ';'
+     * @param maxComplexity the maximal complexity of the patterns (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the new {@link CoveragePattern} or {@link IssuePattern} from the given line
+     *
+     * @throws IllegalArgumentException if the line is invalid or a pattern exceeds the maximal complexity
+     */
+    static AbstractPattern parseLine(final String line, final int maxComplexity, final Interner interner) {
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(line));
+        try {
+            if (!tokenizer.nextEntry()) {
+                throw tokenizer.error("The line does not define a kind separated by ';'");
+            }
+            final AbstractPattern pattern = parseEntry(tokenizer, maxComplexity, interner);
+            if (tokenizer.nextEntry()) {
+                throw tokenizer.error("The line must not define more than one entry");
+            }
+            return pattern;
+        } catch (final IOException e) {
+            throw new IllegalStateException("could not read from String", e);
+        }
+    }
+
+    private final List<CoveragePattern> coveragePatterns;
+
+    private final List<IssuePattern> issuePatterns;
+
+    /**
+     * Create a new {@link IgnoreFile} with the given patterns
+     *
+     * @param coveragePatterns the {@link CoveragePattern}s of the file
+     * @param issuePatterns the {@link IssuePattern}s of the file
+     */
+    public IgnoreFile(final List<CoveragePattern> coveragePatterns, final List<IssuePattern> issuePatterns) {
+        this.coveragePatterns = Collections.unmodifiableList(new ArrayList<>(coveragePatterns));
+        this.issuePatterns = Collections.unmodifiableList(new ArrayList<>(issuePatterns));
+    }
+
+    /**
+     * Returns all {@link CoveragePattern}s of this {@link IgnoreFile}
+     *
+     * @return the unmodifiable {@link List} of all {@link CoveragePattern}s in their original order
+     */
+    public List<CoveragePattern> getCoveragePatterns() {
+        return coveragePatterns;
+    }
+
+    /**
+     * Returns all {@link IssuePattern}s of this {@link IgnoreFile}
+     *
+     * @return the unmodifiable {@link List} of all {@link IssuePattern}s in their original order
+     */
+    public List<IssuePattern> getIssuePatterns() {
+        return issuePatterns;
+    }
+
+    /**
+     * Writes all patterns of this {@link IgnoreFile} in a binary format that can be read by {@link #read(byte[], Interner)}
+     * without parsing the patterns again, the content ends with a checksum to detect corruption
+     *
+     * @param output the {@link OutputStream} to write to, will not be closed
+     *
+     * @throws IOException in case the {@link OutputStream} can not be written
+     */
+    public void write(final OutputStream output) throws IOException {
+        final CRC32 checksum = new CRC32();
+        final DataOutputStream data = new DataOutputStream(new CheckedOutputStream(output, checksum));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+
+        data.writeInt(coveragePatterns.size());
+        for (final CoveragePattern pattern : coveragePatterns) {
+            data.writeUTF(pattern.getResourcePattern());
+            pattern.getLines().write(data);
+        }
+
+        data.writeInt(issuePatterns.size());
+        for (final IssuePattern pattern : issuePatterns) {
+            data.writeUTF(pattern.getResourcePattern());
+            data.writeUTF(pattern.getRulePattern());
+            pattern.getLines().write(data);
+        }
+        data.flush();
+
+        // the checksum itself must not be part of the checksum
+        new DataOutputStream(output).writeLong(checksum.getValue());
+        output.flush();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("IgnoreFile [coveragePatterns=");
+        builder.append(coveragePatterns.size());
+        builder.append(", issuePatterns=");
+        builder.append(issuePatterns.size());
+        builder.append(']');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * {@link IgnoreIndex} compiles the {@link CoveragePattern}s and {@link IssuePattern}s into one
+ * {@link PatternIndex}, so a single resource lookup answers both whether the coverage of a line is
+ * ignored and whether a rule is suppressed on a line. The rule patterns of the {@link IssuePattern}s
+ * are indexed by a {@link RuleIndex}
+ */
+public final class IgnoreIndex {
+
+    private final int coverageCount;
+
+    private final List<CoveragePattern> coveragePatterns;
+
+    private final PatternIndex<AbstractPattern> index;
+
+    private final List<IssuePattern> issuePatterns;
+
+    private final RuleIndex ruleIndex;
+
+    /**
+     * Create a new {@link IgnoreIndex} for the given patterns
+     *
+     * @param coveragePatterns the {@link CoveragePattern}s to compile, the order of the patterns is retained
+     * @param issuePatterns the {@link IssuePattern}s to compile, the order of the patterns is retained
+     * @param cacheSize the number of resource keys whose matches are cached, {@code 0} disables the cache
+     */
+    public IgnoreIndex(final List<CoveragePattern> coveragePatterns, final List<IssuePattern> issuePatterns, final int cacheSize) {
+        this.coveragePatterns = Collections.unmodifiableList(new ArrayList<>(coveragePatterns));
+        this.issuePatterns = Collections.unmodifiableList(new ArrayList<>(issuePatterns));
+        coverageCount = coveragePatterns.size();
+
+        final List<AbstractPattern> patterns = new ArrayList<>(coverageCount + issuePatterns.size());
+        patterns.addAll(coveragePatterns);
+        patterns.addAll(issuePatterns);
+        index = new PatternIndex<>(patterns, cacheSize);
+
+        // coverage patterns never match any rule
+        final List<String> rulePatterns = new ArrayList<>(patterns.size());
+        rulePatterns.addAll(Collections.<String> nCopies(coverageCount, null));
+        for (final IssuePattern pattern : issuePatterns) {
+            rulePatterns.add(pattern.getRulePattern());
+        }
+        ruleIndex = new RuleIndex(rulePatterns);
+    }
+
+    /**
+     * Returns the {@link LruCache} that holds the matches of the most recently used resource keys
+     *
+     * @return the {@link LruCache} of this {@link IgnoreIndex}
+     */
+    public LruCache<String, BitSet> getCache() {
+        return index.getCache();
+    }
+
+    /**
+     * Returns all {@link CoveragePattern}s of this {@link IgnoreIndex}
+     *
+     * @return the unmodifiable {@link List} of all {@link CoveragePattern}s in their original order
+     */
+    public List<CoveragePattern> getCoveragePatterns() {
+        return coveragePatterns;
+    }
+
+    /**
+     * Returns all {@link IssuePattern}s of this {@link IgnoreIndex}
+     *
+     * @return the unmodifiable {@link List} of all {@link IssuePattern}s in their original order
+     */
+    public List<IssuePattern> getIssuePatterns() {
+        return issuePatterns;
+    }
+
+    /**
+     * Returns whether this {@link IgnoreIndex} contains any {@link CoveragePattern}s
+     *
+     * @return {@code true} if there are {@link CoveragePattern}s, otherwise {@code false}
+     */
+    public boolean hasCoveragePatterns() {
+        return !coveragePatterns.isEmpty();
+    }
+
+    /**
+     * Returns whether this {@link IgnoreIndex} contains any {@link IssuePattern}s
+     *
+     * @return {@code true} if there are {@link IssuePattern}s, otherwise {@code false}
+     */
+    public boolean hasIssuePatterns() {
+        return !issuePatterns.isEmpty();
+    }
+
+    /**
+     * Returns all {@link CoveragePattern}s whose resource pattern matches the given resource key
+     *
+     * @param resourceKey the key of the resource
+     *
+     * @return the {@link List} of all matching {@link CoveragePattern}s in their original order
+     */
+    public List<CoveragePattern> matchCoverage(final String resourceKey) {
+        return matchCoverage(new ResourcePath(resourceKey));
+    }
+
+    /**
+     * Returns all {@link CoveragePattern}s whose resource pattern matches the given {@link ResourcePath}
+     *
+     * @param resourcePath the {@link ResourcePath} of the resource
+     *
+     * @return the {@link List} of all matching {@link CoveragePattern}s in their original order
+     */
+    public List<CoveragePattern> matchCoverage(final ResourcePath resourcePath) {
+        if (coverageCount == 0) {
+            return Collections.emptyList();
+        }
+
+        final BitSet indices = index.matchResource(resourcePath);
+        final List<CoveragePattern> matching = new ArrayList<>();
+        for (int i = indices.nextSetBit(0); (i >= 0) && (i < coverageCount); i = indices.nextSetBit(i + 1)) {
+            matching.add(coveragePatterns.get(i));
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the indices of all {@link IssuePattern}s whose resource pattern matches the given {@link ResourcePath}
+     * and whose rule pattern matches the given {@link RuleKey}
+     *
+     * @param resourcePath the {@link ResourcePath} of the resource
+     * @param ruleKey the {@link RuleKey} of the issue
+     *
+     * @return the {@link BitSet} of the indices of all matching {@link IssuePattern}s in {@link #getIssuePatterns()}
+     */
+    public BitSet matchIssueIndices(final ResourcePath resourcePath, final RuleKey ruleKey) {
+        final BitSet ruleIndices = ruleIndex.match(ruleKey);
+        if (ruleIndices.isEmpty()) {
+            return new BitSet();
+        }
+
+        final BitSet indices = (BitSet) index.matchResource(resourcePath).clone();
+        indices.and(ruleIndices);
+        return indices.get(coverageCount, Math.max(coverageCount, indices.length()));
+    }
+
+    /**
+     * Returns all {@link IssuePattern}s whose resource pattern matches the given {@link ResourcePath}
+     * and whose rule pattern matches the given {@link RuleKey}
+     *
+     * @param resourcePath the {@link ResourcePath} of the resource
+     * @param ruleKey the {@link RuleKey} of the issue
+     *
+     * @return the {@link List} of all matching {@link IssuePattern}s in their original order
+     */
+    public List<IssuePattern> matchIssues(final ResourcePath resourcePath, final RuleKey ruleKey) {
+        final BitSet indices = matchIssueIndices(resourcePath, ruleKey);
+        if (indices.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<IssuePattern> matching = new ArrayList<>(indices.cardinality());
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            matching.add(issuePatterns.get(i));
+        }
+        return matching;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("IgnoreIndex [coveragePatterns=");
+        builder.append(coveragePatterns.size());
+        builder.append(", issuePatterns=");
+        builder.append(issuePatterns.size());
+        builder.append(']');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link IncludeDirective} finds the other ignore files an ignore file includes. A line starting with
+ * {@code @include} followed by a path includes the file at that path, relative paths are resolved against
+ * the directory of the including file. The included file must have the same format as the including file,
+ * the parsers skip the include directives like comments
+ */
+public final class IncludeDirective {
+
+    /**
+     * the directive at the start of a line that includes another ignore file
+     */
+    public static final String INCLUDE = "@include";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static boolean isSpace(final int c) {
+        return (c == ' ') || (c == '\t');
+    }
+
+    /**
+     * Returns whether the given character may follow the {@link #INCLUDE}, so the line is an include directive
+     *
+     * @param next the character after the {@link #INCLUDE}, {@code -1} at the end of the input
+     *
+     * @return {@code true} if the character ends the {@link #INCLUDE}, otherwise {@code false}
+     */
+    static boolean isDirectiveEnd(final int next) {
+        return (next < 0) || isSpace(next) || (next == '\r') || (next == '\n');
+    }
+
+    /**
+     * Returns the paths of all files included by the given content
+     *
+     * @param content the UTF-8 content of the ignore file, its position and limit are not changed
+     *
+     * @return the paths of the included files in the order of their directives
+     *
+     * @throws IllegalArgumentException if an include directive has no path
+     */
+    public static List<String> scan(final ByteBuffer content) {
+        final List<String> paths = new ArrayList<>();
+        final int limit = content.limit();
+        int line = 1;
+        int start = content.position();
+        while (start < limit) {
+            int end = start;
+            while ((end < limit) && (content.get(end) != '\n')) {
+                end++;
+            }
+            if (startsWithDirective(content, start, end)) {
+                paths.add(readPath(content, start + INCLUDE.length(), end, line));
+            }
+            start = end + 1;
+            line++;
+        }
+        return paths;
+    }
+
+    private static boolean startsWithDirective(final ByteBuffer content, final int start, final int end) {
+        if ((end - start) < INCLUDE.length()) {
+            return false;
+        }
+        for (int i = 0; i < INCLUDE.length(); i++) {
+            if (content.get(start + i) != INCLUDE.charAt(i)) {
+                return false;
+            }
+        }
+        final int next = ((start + INCLUDE.length()) < end) ? content.get(start + INCLUDE.length()) : -1;
+        return isDirectiveEnd(next);
+    }
+
+    private static String readPath(final ByteBuffer content, final int start, final int end, final int line) {
+        int from = start;
+        int to = end;
+        while ((from < to) && (isSpace(content.get(from)) || (content.get(from) == '\r'))) {
+            from++;
+        }
+        while ((to > from) && (isSpace(content.get(to - 1)) || (content.get(to - 1) == '\r'))) {
+            to--;
+        }
+        if (from == to) {
+            throw new IllegalArgumentException("The include directive has no path (line " + line + ")");
+        }
+
+        final byte[] path = new byte[to - from];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = content.get(from + i);
+        }
+        return new String(path, UTF8);
+    }
+
+    private IncludeDirective() {
+        // prevent instantiation
+    }
+}
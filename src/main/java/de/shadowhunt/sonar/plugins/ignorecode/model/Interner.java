@@ -0,0 +1,165 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Interner} returns a shared instance for equal pattern {@link String}s and {@link LineSet}s,
+ * so values that are repeated on many lines of an ignore file are only kept once in memory. It counts
+ * the number of distinct and the number of interned values to report the saving.
+ * <p>
+ * {@link String}s are kept in an open addressing table that is probed with the content of a
+ * {@link CharSequence}, so a repeated value is found without creating a {@link String} for it
+ */
+public final class Interner {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    static int hash(final CharSequence value) {
+        // same as String.hashCode(), so the cached hash of the interned Strings can be compared
+        int hash = 0;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (31 * hash) + value.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int indexOf(final String[] table, final CharSequence value, final int hash) {
+        final int mask = table.length - 1;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (true) {
+            final String candidate = table[index];
+            if ((candidate == null) || ((candidate.hashCode() == hash) && candidate.contentEquals(value))) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private final Map<LineSet, LineSet> lineSets = new HashMap<>();
+
+    private long requests;
+
+    private int stringCount;
+
+    private String[] strings = new String[INITIAL_CAPACITY];
+
+    /**
+     * Returns the number of distinct {@link LineSet}s
+     *
+     * @return the number of distinct {@link LineSet}s
+     */
+    public synchronized int getLineSetCount() {
+        return lineSets.size();
+    }
+
+    /**
+     * Returns the number of interned values including duplicates
+     *
+     * @return the number of interned values
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the number of distinct {@link String}s
+     *
+     * @return the number of distinct {@link String}s
+     */
+    public synchronized int getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * Returns the shared instance of the given {@link LineSet}
+     *
+     * @param lines the {@link LineSet} to intern
+     *
+     * @return the first interned {@link LineSet} that is equal to the given {@link LineSet}
+     */
+    public synchronized LineSet intern(final LineSet lines) {
+        requests++;
+        final LineSet shared = lineSets.get(lines);
+        if (shared != null) {
+            return shared;
+        }
+        lineSets.put(lines, lines);
+        return lines;
+    }
+
+    /**
+     * Returns the shared instance of the given {@link String}
+     *
+     * @param value the {@link String} to intern
+     *
+     * @return the first interned {@link String} that is equal to the given {@link String}
+     */
+    public String intern(final String value) {
+        return intern((CharSequence) value);
+    }
+
+    /**
+     * Returns the shared {@link String} with the content of the given {@link CharSequence}, a new
+     * {@link String} is only created if no equal {@link String} has been interned before
+     *
+     * @param value the {@link CharSequence} to intern, it is not retained
+     *
+     * @return the first interned {@link String} that is equal to the content of the given {@link CharSequence}
+     */
+    public synchronized String intern(final CharSequence value) {
+        requests++;
+        final int hash = hash(value);
+        final int index = indexOf(strings, value, hash);
+        if (strings[index] != null) {
+            return strings[index];
+        }
+
+        final String shared = value.toString();
+        strings[index] = shared;
+        stringCount++;
+        if ((2 * stringCount) > strings.length) {
+            rehash();
+        }
+        return shared;
+    }
+
+    private void rehash() {
+        final String[] table = new String[strings.length * 2];
+        for (final String value : strings) {
+            if (value != null) {
+                table[indexOf(table, value, value.hashCode())] = value;
+            }
+        }
+        strings = table;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("Interner [strings=");
+        builder.append(stringCount);
+        builder.append(", lineSets=");
+        builder.append(lineSets.size());
+        builder.append(", requests=");
+        builder.append(requests);
+        builder.append(']');
+        return builder.toString();
+    }
+}
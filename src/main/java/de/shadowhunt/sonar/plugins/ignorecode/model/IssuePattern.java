@@ -18,18 +18,46 @@ package de.shadowhunt.sonar.plugins.ignorecode.model;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.SortedSet;
-
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
+import java.util.Map;
 
 /**
  * {@link IssuePattern} describes which rules on which lines of resources shall be matched
  */
 public final class IssuePattern extends AbstractPattern {
 
+    /**
+     * Merge all {@link IssuePattern}s with the same resource pattern and rule pattern into one {@link IssuePattern}
+     * that matches the union of their lines
+     *
+     * @param patterns the {@link IssuePattern}s to merge
+     *
+     * @return the list of merged {@link IssuePattern}s, in the order of their first occurrence
+     */
+    public static List<IssuePattern> merge(final List<IssuePattern> patterns) {
+        final List<String> keys = new ArrayList<>(patterns.size());
+        for (final IssuePattern pattern : patterns) {
+            keys.add(pattern.getResourcePattern() + ';' + pattern.getRulePattern());
+        }
+
+        final List<IssuePattern> merged = new ArrayList<>();
+        for (final List<IssuePattern> group : group(patterns, keys).values()) {
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+
+            final IssuePattern first = group.get(0);
+            merged.add(new IssuePattern(first.getResourcePattern(), first.getRulePattern(), union(group)));
+        }
+        return merged;
+    }
+
     /**
      * Create a list of {@link IssuePattern} from the given {@link InputStream}
      *
@@ -42,18 +70,100 @@ public final class IssuePattern extends AbstractPattern {
      * @throws IOException in case the {@link InputStream} can not be read
      */
     public static List<IssuePattern> parse(final InputStream input) throws IOException {
-        final List<IssuePattern> patterns = new ArrayList<>();
-        for (final String line : IOUtils.readLines(input)) {
-            if (StringUtils.isBlank(line) || (line.charAt(0) == '#')) {
-                continue;
-            }
+        return parse(input, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
 
-            final IssuePattern pattern = parseLine(line);
-            patterns.add(pattern);
+    /**
+     * Create a list of {@link IssuePattern} from the given {@link InputStream}
+     *
+     * @param input containing one {@link IssuePattern} per line (for a description of the
+     * line format see {@link #parseLine(String)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     *
+     * @return the list of {@link IssuePattern} from the given {@link InputStream}
+     *
+     * @throws IOException in case the {@link InputStream} can not be read
+     */
+    public static List<IssuePattern> parse(final InputStream input, final int maxComplexity) throws IOException {
+        return parse(input, maxComplexity, new Interner());
+    }
+
+    /**
+     * Create a list of {@link IssuePattern} from the given {@link InputStream}
+     *
+     * @param input containing one {@link IssuePattern} per line (for a description of the
+     * line format see {@link #parseLine(String)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all {@link IssuePattern}s
+     *
+     * @return the list of {@link IssuePattern} from the given {@link InputStream}
+     *
+     * @throws IOException in case the {@link InputStream} can not be read
+     */
+    public static List<IssuePattern> parse(final InputStream input, final int maxComplexity, final Interner interner) throws IOException {
+        return parse(new InputStreamReader(input), maxComplexity, interner);
+    }
+
+    /**
+     * Create a list of {@link IssuePattern} from the given {@link Reader}, the entries are parsed while reading
+     * without holding the whole content in memory
+     *
+     * @param reader containing one {@link IssuePattern} per line (for a description of the
+     * line format see {@link #parseLine(String)}. Empty lines or comments (lines starting
+     * with '#') are ignored
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all {@link IssuePattern}s
+     *
+     * @return the list of {@link IssuePattern} from the given {@link Reader}
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     * @throws IllegalArgumentException if an entry is invalid or an include directive is found, the message contains its line and column
+     */
+    public static List<IssuePattern> parse(final Reader reader, final int maxComplexity, final Interner interner) throws IOException {
+        final PatternTokenizer tokenizer = new PatternTokenizer(reader);
+        final List<IssuePattern> patterns = new ArrayList<>();
+        while (tokenizer.nextEntry()) {
+            patterns.add(parseEntry(tokenizer, maxComplexity, interner));
         }
         return patterns;
     }
 
+    /**
+     * Create a list of {@link IssuePattern} from the given UTF-8 content, eg. a memory-mapped file. Large content is split
+     * at line boundaries into chunks that are parsed in parallel. Include directives are skipped, they must be
+     * resolved by the caller (see {@link IncludeDirective#scan(ByteBuffer)})
+     *
+     * @param content the UTF-8 content containing one {@link IssuePattern} per line, its position and limit are not changed
+     * @param maxComplexity the maximal complexity of each pattern (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all patterns
+     *
+     * @return the list of {@link IssuePattern} from the given content
+     *
+     * @throws IllegalArgumentException if an entry is invalid, the message contains its line and column
+     */
+    public static List<IssuePattern> parse(final ByteBuffer content, final int maxComplexity, final Interner interner) {
+        return new ChunkedParser<IssuePattern>(interner) {
+
+            @Override
+            IssuePattern parseEntry(final PatternTokenizer tokenizer, final Interner chunkInterner) throws IOException {
+                return IssuePattern.parseEntry(tokenizer, maxComplexity, chunkInterner);
+            }
+        }.parse(content);
+    }
+
+    static IssuePattern parseEntry(final PatternTokenizer tokenizer, final int maxComplexity, final Interner interner) throws IOException {
+        final String resourcePattern = interner.intern(tokenizer.readField("a resource pattern"));
+        checkComplexity(resourcePattern, maxComplexity, tokenizer);
+
+        final String rulePattern = interner.intern(tokenizer.readField("a rule pattern"));
+        checkComplexity(rulePattern, maxComplexity, tokenizer);
+
+        final LineSet lines = tokenizer.readLines();
+        return new IssuePattern(resourcePattern, rulePattern, interner.intern(lines));
+    }
+
     /**
      * Create a new {@link IssuePattern} from the given line describing the resourcePattern, the rulePattern and
      * the lines in the resource
@@ -64,28 +174,52 @@ public final class IssuePattern extends AbstractPattern {
      * @return the new {@link IssuePattern} from the given line
      */
     public static IssuePattern parseLine(final String line) {
-        final String[] fields = StringUtils.split(line, ';');
-        if (fields.length != 3) {
-            throw new IllegalArgumentException("The line does not define 3 fields separated by ';': " + line);
-        }
-
-        final String resourcePattern = fields[0];
-        if (StringUtils.isBlank(resourcePattern)) {
-            throw new IllegalArgumentException("The first field does not define a resource pattern: " + line);
-        }
+        return parseLine(line, GlobPattern.DEFAULT_MAX_COMPLEXITY);
+    }
 
-        final String rulePattern = fields[1];
-        if (StringUtils.isBlank(rulePattern)) {
-            throw new IllegalArgumentException("The second field does not define a rule pattern: " + line);
-        }
+    /**
+     * Create a new {@link IssuePattern} from the given line describing the resourcePattern, the rulePattern and
+     * the lines in the resource
+     *
+     * @param line each line must consist out of the resourcePattern, rulePattern and lineValues,
+     * separated by a ';' (lines can be given as values ([1,3]) or as ranges ([5-10]) or a combination of both ([1,3,5-10]))
+     * @param maxComplexity the maximal complexity of the patterns (see {@link GlobPattern#getComplexity()})
+     *
+     * @return the new {@link IssuePattern} from the given line
+     *
+     * @throws IllegalArgumentException if the line is invalid or a pattern exceeds the maximal complexity
+     */
+    public static IssuePattern parseLine(final String line, final int maxComplexity) {
+        return parseLine(line, maxComplexity, new Interner());
+    }
 
-        final String lineValues = fields[2];
-        if (StringUtils.isBlank(lineValues)) {
-            throw new IllegalArgumentException("The third field does not define a range of lines: " + line);
+    /**
+     * Create a new {@link IssuePattern} from the given line describing the resourcePattern, the rulePattern and
+     * the lines in the resource
+     *
+     * @param line each line must consist out of the resourcePattern, rulePattern and lineValues,
+     * separated by a ';' (lines can be given as values ([1,3]) or as ranges ([5-10]) or a combination of both ([1,3,5-10]))
+     * @param maxComplexity the maximal complexity of the patterns (see {@link GlobPattern#getComplexity()})
+     * @param interner the {@link Interner} that shares equal patterns and lines between all {@link IssuePattern}s
+     *
+     * @return the new {@link IssuePattern} from the given line
+     *
+     * @throws IllegalArgumentException if the line is invalid or a pattern exceeds the maximal complexity
+     */
+    public static IssuePattern parseLine(final String line, final int maxComplexity, final Interner interner) {
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(line));
+        try {
+            if (!tokenizer.nextEntry()) {
+                throw tokenizer.error("The line does not define 3 fields separated by ';'");
+            }
+            final IssuePattern pattern = parseEntry(tokenizer, maxComplexity, interner);
+            if (tokenizer.nextEntry()) {
+                throw tokenizer.error("The line must not define more than one entry");
+            }
+            return pattern;
+        } catch (final IOException e) {
+            throw new IllegalStateException("could not read from String", e);
         }
-
-        final SortedSet<Integer> lines = parseLineValues(lineValues);
-        return new IssuePattern(resourcePattern, rulePattern, lines);
     }
 
     private final String rulePattern;
@@ -96,7 +230,7 @@ public final class IssuePattern extends AbstractPattern {
      * @param resourcePattern pattern that describes the resources this {@link IssuePattern} shall match
      * @param rulePattern pattern that describes the rules this {@link IssuePattern} shall match
      */
-    public IssuePattern(final String resourcePattern, final String rulePattern, final SortedSet<Integer> lines) {
+    public IssuePattern(final String resourcePattern, final String rulePattern, final LineSet lines) {
         super(resourcePattern, lines);
         this.rulePattern = rulePattern;
     }
@@ -138,6 +272,17 @@ public final class IssuePattern extends AbstractPattern {
         return result;
     }
 
+    @Override
+    IssuePattern intern(final Interner interner) {
+        final String sharedResourcePattern = interner.intern(resourcePattern);
+        final String sharedRulePattern = interner.intern(rulePattern);
+        final LineSet sharedLines = interner.intern(lines);
+        if ((sharedResourcePattern == resourcePattern) && (sharedRulePattern == rulePattern) && (sharedLines == lines)) {
+            return this;
+        }
+        return new IssuePattern(sharedResourcePattern, sharedRulePattern, sharedLines);
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
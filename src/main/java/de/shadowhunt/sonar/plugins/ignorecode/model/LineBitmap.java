@@ -0,0 +1,283 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+
+/**
+ * {@link LineBitmap} is a compressed bitmap of lines in the style of a roaring bitmap: the lines are
+ * grouped into chunks of {@code 2^16} by their upper bits and the lower bits of every chunk are stored
+ * in the smallest of three containers: a sorted array of single lines, a plain bitmap or a sorted array
+ * of runs. Scattered lines cost two bytes each, independent of how fragmented they are
+ */
+final class LineBitmap {
+
+    static final int ARRAY_MAX_CARDINALITY = 4096;
+
+    private static final int BITMAP_BYTES = 8192;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    static final int CHUNK_OVERHEAD = 5;
+
+    static final byte TYPE_ARRAY = 0;
+
+    static final byte TYPE_BITMAP = 1;
+
+    static final byte TYPE_RUN = 2;
+
+    /**
+     * Returns the number of chunks the given ranges spread over, every chunk costs
+     * at least {@value #CHUNK_OVERHEAD} bytes and one run
+     *
+     * @param ranges sorted and disjoint ranges of alternating start and end values (both including)
+     *
+     * @return the number of chunks of a {@link LineBitmap} of the ranges
+     */
+    static long countChunks(final int[] ranges) {
+        long chunks = 0L;
+        int last = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            final int first = ranges[i] >> 16;
+            chunks += (ranges[i + 1] >> 16) - first + 1;
+            if ((i > 0) && (first == last)) {
+                chunks--;
+            }
+            last = ranges[i + 1] >> 16;
+        }
+        return chunks;
+    }
+
+    /**
+     * Create a {@link LineBitmap} from the given ranges
+     *
+     * @param ranges sorted and disjoint ranges of alternating start and end values (both including)
+     *
+     * @return the new {@link LineBitmap}
+     */
+    static LineBitmap of(final int[] ranges) {
+        final int capacity = (int) countChunks(ranges);
+        final int[] keys = new int[capacity];
+        final Object[] containers = new Object[capacity];
+        final byte[] types = new byte[capacity];
+        int chunks = 0;
+
+        char[] runs = new char[8];
+        int runCount = 0;
+        int cardinality = 0;
+        int key = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            int from = ranges[i];
+            final int to = ranges[i + 1];
+            while (true) {
+                final int chunk = from >> 16;
+                if ((runCount > 0) && (chunk != key)) {
+                    keys[chunks] = key;
+                    types[chunks] = chooseType(runCount, cardinality);
+                    containers[chunks] = createContainer(types[chunks], runs, runCount, cardinality);
+                    chunks++;
+                    runCount = 0;
+                    cardinality = 0;
+                }
+                key = chunk;
+
+                final int end = Math.min(to, (chunk << 16) | 0xFFFF);
+                if ((2 * (runCount + 1)) > runs.length) {
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                }
+                runs[2 * runCount] = (char) from;
+                runs[(2 * runCount) + 1] = (char) end;
+                runCount++;
+                cardinality += (end - from) + 1;
+
+                if (end == to) {
+                    break;
+                }
+                from = end + 1;
+            }
+        }
+        if (runCount > 0) {
+            keys[chunks] = key;
+            types[chunks] = chooseType(runCount, cardinality);
+            containers[chunks] = createContainer(types[chunks], runs, runCount, cardinality);
+            chunks++;
+        }
+        return new LineBitmap(keys, types, containers);
+    }
+
+    static byte chooseType(final int runCount, final int cardinality) {
+        final int runBytes = 4 * runCount;
+        final int arrayBytes = (cardinality <= ARRAY_MAX_CARDINALITY) ? (2 * cardinality) : Integer.MAX_VALUE;
+        if ((runBytes <= arrayBytes) && (runBytes <= BITMAP_BYTES)) {
+            return TYPE_RUN;
+        }
+        if (arrayBytes <= BITMAP_BYTES) {
+            return TYPE_ARRAY;
+        }
+        return TYPE_BITMAP;
+    }
+
+    private static Object createContainer(final byte type, final char[] runs, final int runCount, final int cardinality) {
+        if (type == TYPE_RUN) {
+            return Arrays.copyOf(runs, 2 * runCount);
+        }
+
+        if (type == TYPE_ARRAY) {
+            final char[] values = new char[cardinality];
+            int size = 0;
+            for (int run = 0; run < runCount; run++) {
+                for (int value = runs[2 * run]; value <= runs[(2 * run) + 1]; value++) {
+                    values[size++] = (char) value;
+                }
+            }
+            return values;
+        }
+
+        final long[] bits = new long[BITMAP_WORDS];
+        for (int run = 0; run < runCount; run++) {
+            for (int value = runs[2 * run]; value <= runs[(2 * run) + 1]; value++) {
+                bits[value >>> 6] |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static boolean containsRun(final char[] runs, final char value) {
+        int low = 0;
+        int high = (runs.length / 2) - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (value < runs[2 * middle]) {
+                high = middle - 1;
+            } else if (value > runs[(2 * middle) + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final Object[] containers;
+
+    private final int[] keys;
+
+    private final byte[] types;
+
+    private LineBitmap(final int[] keys, final byte[] types, final Object[] containers) {
+        this.keys = keys;
+        this.types = types;
+        this.containers = containers;
+    }
+
+    /**
+     * Returns whether this {@link LineBitmap} contains the given line
+     *
+     * @param line the line to look for
+     *
+     * @return {@code true} if this {@link LineBitmap} contains the line, otherwise {@code false}
+     */
+    boolean contains(final int line) {
+        final int chunk = Arrays.binarySearch(keys, line >> 16);
+        if (chunk < 0) {
+            return false;
+        }
+
+        final char value = (char) line;
+        switch (types[chunk]) {
+            case TYPE_ARRAY:
+                return Arrays.binarySearch((char[]) containers[chunk], value) >= 0;
+            case TYPE_BITMAP:
+                return (((long[]) containers[chunk])[value >>> 6] & (1L << value)) != 0L;
+            default:
+                return containsRun((char[]) containers[chunk], value);
+        }
+    }
+
+    int getChunkCount() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the approximate number of bytes of all containers, without the object headers
+     *
+     * @return the approximate number of bytes of all containers
+     */
+    int getSizeInBytes() {
+        int bytes = 0;
+        for (int chunk = 0; chunk < keys.length; chunk++) {
+            bytes += CHUNK_OVERHEAD;
+            if (types[chunk] == TYPE_BITMAP) {
+                bytes += BITMAP_BYTES;
+            } else {
+                bytes += 2 * ((char[]) containers[chunk]).length;
+            }
+        }
+        return bytes;
+    }
+
+    byte getType(final int chunk) {
+        return types[chunk];
+    }
+
+    /**
+     * Decodes all lines into sorted and disjoint ranges, adjacent lines are merged into one range
+     *
+     * @param rangeCount the number of ranges
+     *
+     * @return the alternating start and end values (both including) of all ranges
+     */
+    int[] toRanges(final int rangeCount) {
+        final int[] ranges = new int[2 * rangeCount];
+        int size = 0;
+        for (int chunk = 0; chunk < keys.length; chunk++) {
+            final int base = keys[chunk] << 16;
+            final Object container = containers[chunk];
+            if (types[chunk] == TYPE_RUN) {
+                final char[] runs = (char[]) container;
+                for (int i = 0; i < runs.length; i += 2) {
+                    size = append(ranges, size, base | runs[i], base | runs[i + 1]);
+                }
+            } else if (types[chunk] == TYPE_ARRAY) {
+                for (final char value : (char[]) container) {
+                    size = append(ranges, size, base | value, base | value);
+                }
+            } else {
+                final long[] bits = (long[]) container;
+                for (int word = 0; word < bits.length; word++) {
+                    long remaining = bits[word];
+                    while (remaining != 0L) {
+                        final int line = base | ((word << 6) + Long.numberOfTrailingZeros(remaining));
+                        remaining &= remaining - 1;
+                        size = append(ranges, size, line, line);
+                    }
+                }
+            }
+        }
+        return ranges;
+    }
+
+    private static int append(final int[] ranges, final int size, final int from, final int to) {
+        if ((size > 0) && (((long) ranges[size - 1] + 1L) == from)) {
+            ranges[size - 1] = to;
+            return size;
+        }
+        ranges[size] = from;
+        ranges[size + 1] = to;
+        return size + 2;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * {@link LineHashes} holds the content hash of every line of a resource. The content hash of a line
+ * is the 64 bit FNV-1a hash of all its UTF-16 characters except whitespace, so changes of the
+ * indentation don't change the hash. All hashes are calculated in one pass over the resource
+ */
+public final class LineHashes {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Returns the content hash of the given line
+     *
+     * @param line the content of the line without line separator
+     *
+     * @return the content hash of the line
+     */
+    public static long hash(final CharSequence line) {
+        long hash = BloomFilter.INITIAL_HASH;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                hash = BloomFilter.hash(hash, c);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Calculates the content hashes of all lines of the given {@link Reader}, lines are separated
+     * by {@code \n}, {@code \r\n} or {@code \r}
+     *
+     * @param reader the {@link Reader} of the resource, it is not closed
+     *
+     * @return the new {@link LineHashes}
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     */
+    public static LineHashes read(final Reader reader) throws IOException {
+        long[] hashes = new long[256];
+        int lineCount = 0;
+
+        final char[] buffer = new char[BUFFER_SIZE];
+        long hash = BloomFilter.INITIAL_HASH;
+        boolean pending = false; // characters after the last line separator
+        boolean carriageReturn = false;
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                final char c = buffer[i];
+                if ((c == '\n') && carriageReturn) {
+                    // second half of \r\n: the line was already completed
+                    carriageReturn = false;
+                    continue;
+                }
+                carriageReturn = (c == '\r');
+                if ((c == '\n') || (c == '\r')) {
+                    if (lineCount == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                    }
+                    hashes[lineCount++] = hash;
+                    hash = BloomFilter.INITIAL_HASH;
+                    pending = false;
+                } else {
+                    if (!Character.isWhitespace(c)) {
+                        hash = BloomFilter.hash(hash, c);
+                    }
+                    pending = true;
+                }
+            }
+        }
+        if (pending) {
+            if (lineCount == hashes.length) {
+                hashes = Arrays.copyOf(hashes, hashes.length + 1);
+            }
+            hashes[lineCount++] = hash;
+        }
+        return new LineHashes(Arrays.copyOf(hashes, lineCount));
+    }
+
+    /**
+     * Returns the hexadecimal representation of the given content hash as used in ignore files
+     *
+     * @param hash the content hash
+     *
+     * @return the 16 hexadecimal digits of the content hash
+     */
+    public static String toHex(final long hash) {
+        return String.format("%016x", hash);
+    }
+
+    private final long[] hashes;
+
+    private LineHashes(final long[] hashes) {
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns the content hash of the given line
+     *
+     * @param line the line, must be between {@code 1} and {@link #getLineCount()}
+     *
+     * @return the content hash of the line
+     *
+     * @throws IndexOutOfBoundsException if the resource does not contain the line
+     */
+    public long getHash(final int line) {
+        if ((line < 1) || (line > hashes.length)) {
+            throw new IndexOutOfBoundsException("line: " + line + " must be between 1 and " + hashes.length);
+        }
+        return hashes[line - 1];
+    }
+
+    /**
+     * Returns the number of lines of the resource
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return hashes.length;
+    }
+}
@@ -0,0 +1,690 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link LineSet} is an immutable set of lines, stored as sorted and disjoint ranges
+ * of {@code int} start and end values. A range of lines costs the same memory
+ * independent of its length and {@link #contains(int)} is a binary search over the ranges.
+ * <p>
+ * Heavily fragmented lines (e.g. thousands of single lines) are stored in a {@link LineBitmap}
+ * instead, the smaller representation is chosen when the {@link LineSet} is built.
+ * <p>
+ * Ranges relative to the last line of a resource (e.g. the last 20 lines) are kept symbolic
+ * until the number of lines is known and {@link #resolve(int)} turns them into absolute ranges.
+ * Content hashes (see {@link LineHashes}) match all lines with the same content independent of
+ * their position, they are resolved against the {@link LineHashes} of a resource
+ */
+public final class LineSet implements Iterable<Integer> {
+
+    /**
+     * {@link Builder} collects lines and ranges of lines in any order
+     */
+    public static final class Builder {
+
+        private int[] hashBits = new int[0];
+
+        private int hashCount;
+
+        private long[] hashes = new long[0];
+
+        private int[] ranges = new int[8];
+
+        private int[] relative = new int[0];
+
+        private int relativeSize;
+
+        private int size;
+
+        /**
+         * Add the given line
+         *
+         * @param line the line to add
+         *
+         * @return this {@link Builder}
+         */
+        public Builder add(final int line) {
+            return add(line, line);
+        }
+
+        /**
+         * Add all lines between from (including) and to (including)
+         *
+         * @param from the first line of the range
+         * @param to the last line of the range
+         *
+         * @return this {@link Builder}
+         *
+         * @throws IllegalArgumentException if from is greater than to
+         */
+        public Builder add(final int from, final int to) {
+            if (to < from) {
+                throw new IllegalArgumentException("from: " + from + " must be greater or equal than to: " + to);
+            }
+            if ((size + 2) > ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            ranges[size++] = from;
+            ranges[size++] = to;
+            return this;
+        }
+
+        /**
+         * Add all lines whose content hash starts with the given hexadecimal digits
+         *
+         * @param hex between 1 and 16 hexadecimal digits of the content hash (see {@link LineHashes#toHex(long)})
+         *
+         * @return this {@link Builder}
+         *
+         * @throws IllegalArgumentException if hex does not consist of 1 to 16 hexadecimal digits
+         */
+        public Builder addContentHash(final String hex) {
+            if ((hex.length() < 1) || (hex.length() > 16)) {
+                throw new IllegalArgumentException("content hash: " + hex + " must have between 1 and 16 hexadecimal digits");
+            }
+
+            long value = 0L;
+            for (int i = 0; i < hex.length(); i++) {
+                final int digit = Character.digit(hex.charAt(i), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("content hash: " + hex + " must only contain hexadecimal digits");
+                }
+                value = (value << 4) | digit;
+            }
+            return addContentHash(value, 4 * hex.length());
+        }
+
+        Builder addContentHash(final long prefix, final int bits) {
+            if (hashCount == hashes.length) {
+                hashes = Arrays.copyOf(hashes, Math.max(1, hashes.length * 2));
+                hashBits = Arrays.copyOf(hashBits, Math.max(1, hashBits.length * 2));
+            }
+            hashes[hashCount] = prefix;
+            hashBits[hashCount] = bits;
+            hashCount++;
+            return this;
+        }
+
+        /**
+         * Add all lines between from (including) and to (including), a bound of {@code 0} or less
+         * is relative to the last line: {@code 0} is the last line and {@code -20} the first of the
+         * last 20 lines. A positive bound is an absolute line
+         *
+         * @param from the first line of the range
+         * @param to the last line of the range
+         *
+         * @return this {@link Builder}
+         *
+         * @throws IllegalArgumentException if both bounds are relative or absolute and from is greater than to
+         */
+        public Builder addRelative(final int from, final int to) {
+            if ((from > 0) && (to > 0)) {
+                return add(from, to);
+            }
+            if ((from <= 0) && (to < from)) {
+                throw new IllegalArgumentException("from: $" + from + " must be greater or equal than to: $" + to);
+            }
+            if ((relativeSize + 2) > relative.length) {
+                relative = Arrays.copyOf(relative, Math.max(2, relative.length * 2));
+            }
+            relative[relativeSize++] = from;
+            relative[relativeSize++] = to;
+            return this;
+        }
+
+        /**
+         * Add all lines of the given {@link LineSet}
+         *
+         * @param lines the {@link LineSet} to add
+         *
+         * @return this {@link Builder}
+         */
+        public Builder add(final LineSet lines) {
+            final int[] values = lines.toRanges();
+            for (int i = 0; i < values.length; i += 2) {
+                add(values[i], values[i + 1]);
+            }
+            for (int i = 0; i < lines.relative.length; i += 2) {
+                addRelative(lines.relative[i], lines.relative[i + 1]);
+            }
+            for (int i = 0; i < lines.hashes.length; i++) {
+                addContentHash(lines.hashes[i], lines.hashBits[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Create the {@link LineSet} of all added lines, overlapping and adjacent ranges are merged
+         *
+         * @return the new {@link LineSet}
+         */
+        public LineSet build() {
+            final int count = size / 2;
+            final int[] symbolic = Arrays.copyOf(relative, relativeSize);
+            final long[] contentHashes = Arrays.copyOf(hashes, hashCount);
+            final int[] contentHashBits = Arrays.copyOf(hashBits, hashCount);
+            if (count == 0) {
+                if ((relativeSize == 0) && (hashCount == 0)) {
+                    return EMPTY;
+                }
+                return new LineSet(new int[0], null, symbolic, contentHashes, contentHashBits);
+            }
+
+            final long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                // start in the upper, end in the lower half: sorts by start
+                sorted[i] = ((long) ranges[2 * i] << 32) | (ranges[(2 * i) + 1] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(sorted);
+
+            final int[] merged = new int[size];
+            int length = 0;
+            for (final long range : sorted) {
+                final int from = (int) (range >> 32);
+                final int to = (int) range;
+                if ((length > 0) && (((long) from - 1) <= merged[length - 1])) {
+                    merged[length - 1] = Math.max(merged[length - 1], to);
+                } else {
+                    merged[length++] = from;
+                    merged[length++] = to;
+                }
+            }
+            return create(Arrays.copyOf(merged, length), symbolic, contentHashes, contentHashBits);
+        }
+    }
+
+    /**
+     * the {@link LineSet} without any lines
+     */
+    public static final LineSet EMPTY = new LineSet(new int[0], null, new int[0], new long[0], new int[0]);
+
+    /**
+     * prefix of a content hash in the {@link String} representation of a {@link LineSet}
+     */
+    public static final String CONTENT_HASH_PREFIX = "#h:";
+
+    private static final int RANGE_BYTES = 8;
+
+    static LineSet create(final int[] ranges, final int[] relative, final long[] hashes, final int[] hashBits) {
+        final int rangeCount = ranges.length / 2;
+        // every chunk of a LineBitmap costs more than a range, so don't even try if there are more chunks than ranges
+        if (LineBitmap.countChunks(ranges) < rangeCount) {
+            final LineBitmap bitmap = LineBitmap.of(ranges);
+            if (bitmap.getSizeInBytes() < (RANGE_BYTES * rangeCount)) {
+                return new LineSet(ranges, bitmap, relative, hashes, hashBits);
+            }
+        }
+        return new LineSet(ranges, null, relative, hashes, hashBits);
+    }
+
+    /**
+     * Read a {@link LineSet} as written by {@link #write(DataOutput)}
+     *
+     * @param input the completely buffered input, {@link DataInputStream#available()} must return the number of remaining bytes
+     *
+     * @return the {@link LineSet} read from the input
+     *
+     * @throws IOException in case the input can not be read or does not contain a valid {@link LineSet}
+     */
+    static LineSet read(final DataInputStream input) throws IOException {
+        final int[] ranges = readInts(input);
+        for (int i = 0; i < ranges.length; i += 2) {
+            // ranges must be sorted, disjoint and not adjacent, as created by the Builder
+            if ((ranges[i + 1] < ranges[i]) || ((i > 0) && (((long) ranges[i - 1] + 1) >= ranges[i]))) {
+                throw new IOException("ranges of line set are not sorted and disjoint");
+            }
+        }
+
+        final int[] relative = readInts(input);
+        final int hashCount = readLength(input, 12);
+        final long[] contentHashes = new long[hashCount];
+        final int[] contentHashBits = new int[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            contentHashes[i] = input.readLong();
+            contentHashBits[i] = input.readInt();
+            if ((contentHashBits[i] < 1) || (contentHashBits[i] > 64)) {
+                throw new IOException("content hash of line set has invalid length: " + contentHashBits[i]);
+            }
+        }
+
+        if ((ranges.length == 0) && (relative.length == 0) && (hashCount == 0)) {
+            return EMPTY;
+        }
+        return create(ranges, relative, contentHashes, contentHashBits);
+    }
+
+    private static int[] readInts(final DataInputStream input) throws IOException {
+        final int length = readLength(input, 4);
+        if ((length % 2) != 0) {
+            throw new IOException("ranges of line set must consist of start and end values");
+        }
+        final int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+
+    private static int readLength(final DataInputStream input, final int elementBytes) throws IOException {
+        final int length = input.readInt();
+        // don't trust the length of a corrupt input to allocate the values
+        if ((length < 0) || (length > (input.available() / elementBytes))) {
+            throw new IOException("invalid number of values in line set: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Create a {@link LineSet} from the given lines
+     *
+     * @param lines the lines in any order
+     *
+     * @return the new {@link LineSet}
+     */
+    public static LineSet of(final int... lines) {
+        final Builder builder = new Builder();
+        for (final int line : lines) {
+            builder.add(line);
+        }
+        return builder.build();
+    }
+
+    private static void appendContentHashes(final StringBuilder builder, final long[] hashes, final int[] hashBits) {
+        for (int i = 0; i < hashes.length; i++) {
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            builder.append(CONTENT_HASH_PREFIX);
+            builder.append(LineHashes.toHex(hashes[i]).substring(16 - (hashBits[i] / 4)));
+        }
+    }
+
+    private static void append(final StringBuilder builder, final int[] values, final boolean symbolic) {
+        for (int i = 0; i < values.length; i += 2) {
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            appendBound(builder, values[i], symbolic);
+            if (values[i] != values[i + 1]) {
+                builder.append('-');
+                appendBound(builder, values[i + 1], symbolic);
+            }
+        }
+    }
+
+    private static void appendBound(final StringBuilder builder, final int bound, final boolean symbolic) {
+        if (symbolic && (bound <= 0)) {
+            builder.append('$');
+            if (bound < 0) {
+                builder.append(bound);
+            }
+        } else {
+            builder.append(bound);
+        }
+    }
+
+    private static int resolve(final int bound, final int lineCount) {
+        if (bound > 0) {
+            return bound;
+        }
+        // $-20 is the first of the last 20 lines, so [$-20-$] contains exactly 20 lines
+        return (bound == 0) ? lineCount : (lineCount + bound + 1);
+    }
+
+    private final LineBitmap bitmap;
+
+    private final int hash;
+
+    private final int[] hashBits;
+
+    private final long[] hashes;
+
+    private final int rangeCount;
+
+    private final int[] ranges;
+
+    private final int[] relative;
+
+    private final int size;
+
+    private LineSet(final int[] ranges, final LineBitmap bitmap, final int[] relative, final long[] hashes, final int[] hashBits) {
+        this.bitmap = bitmap;
+        this.ranges = (bitmap == null) ? ranges : null;
+        this.relative = relative;
+        this.hashes = hashes;
+        this.hashBits = hashBits;
+        rangeCount = ranges.length / 2;
+        hash = (31 * ((31 * Arrays.hashCode(ranges)) + Arrays.hashCode(relative))) + Arrays.hashCode(hashes);
+        long count = 0L;
+        for (int i = 0; i < ranges.length; i += 2) {
+            count += ((long) ranges[i + 1] - ranges[i]) + 1L;
+        }
+        size = (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns whether the absolute ranges of this {@link LineSet} contain the given line,
+     * ranges relative to the last line are not considered (see {@link #contains(int, int)})
+     *
+     * @param line the line to look for
+     *
+     * @return {@code true} if this {@link LineSet} contains the line, otherwise {@code false}
+     */
+    public boolean contains(final int line) {
+        if (bitmap != null) {
+            return bitmap.contains(line);
+        }
+
+        int low = 0;
+        int high = getRangeCount() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (line < ranges[2 * middle]) {
+                high = middle - 1;
+            } else if (line > ranges[(2 * middle) + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether this {@link LineSet} contains the given line of a resource with the given number of lines
+     *
+     * @param line the line to look for
+     * @param lineCount the number of lines of the resource, a negative value if unknown: then
+     * ranges relative to the last line don't contain any lines
+     *
+     * @return {@code true} if this {@link LineSet} contains the line, otherwise {@code false}
+     */
+    public boolean contains(final int line, final int lineCount) {
+        if (contains(line)) {
+            return true;
+        }
+        if ((lineCount < 0) || (line < 1) || (line > lineCount)) {
+            return false;
+        }
+        for (int i = 0; i < relative.length; i += 2) {
+            if ((resolve(relative[i], lineCount) <= line) && (line <= resolve(relative[i + 1], lineCount))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether this {@link LineSet} contains the given line of a resource with the given {@link LineHashes}
+     *
+     * @param line the line to look for
+     * @param lineHashes the {@link LineHashes} of the resource
+     *
+     * @return {@code true} if this {@link LineSet} contains the line, otherwise {@code false}
+     */
+    public boolean contains(final int line, final LineHashes lineHashes) {
+        final int lineCount = lineHashes.getLineCount();
+        if (contains(line, lineCount)) {
+            return true;
+        }
+        return (line >= 1) && (line <= lineCount) && matchesContentHash(lineHashes.getHash(line));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LineSet)) {
+            return false;
+        }
+
+        final LineSet that = (LineSet) o;
+        if ((hash != that.hash) || (size != that.size) || (rangeCount != that.rangeCount)) {
+            return false;
+        }
+        if (!Arrays.equals(hashes, that.hashes) || !Arrays.equals(hashBits, that.hashBits)) {
+            return false;
+        }
+        return Arrays.equals(relative, that.relative) && Arrays.equals(toRanges(), that.toRanges());
+    }
+
+
+    /**
+     * Returns the number of disjoint ranges in this {@link LineSet}
+     *
+     * @return the number of disjoint ranges
+     */
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns whether this {@link LineSet} contains content hashes, that must be resolved
+     * against the {@link LineHashes} of a resource (see {@link #resolve(LineHashes)})
+     *
+     * @return {@code true} if there are content hashes, otherwise {@code false}
+     */
+    public boolean hasContentHashes() {
+        return hashes.length > 0;
+    }
+
+    /**
+     * Returns whether this {@link LineSet} does not contain any lines
+     *
+     * @return {@code true} if there are no lines, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return (rangeCount == 0) && (relative.length == 0) && (hashes.length == 0);
+    }
+
+    boolean isBitmap() {
+        return bitmap != null;
+    }
+
+    /**
+     * Returns whether this {@link LineSet} contains ranges relative to the last line or content hashes,
+     * that must be resolved against a resource (see {@link #resolve(int)} and {@link #resolve(LineHashes)})
+     *
+     * @return {@code true} if there are ranges relative to the last line or content hashes, otherwise {@code false}
+     */
+    public boolean isSymbolic() {
+        return (relative.length > 0) || (hashes.length > 0);
+    }
+
+    /**
+     * Returns whether the given content hash matches any content hash of this {@link LineSet}
+     *
+     * @param contentHash the content hash of a line (see {@link LineHashes#hash(CharSequence)})
+     *
+     * @return {@code true} if the content hash matches, otherwise {@code false}
+     */
+    boolean matchesContentHash(final long contentHash) {
+        for (int i = 0; i < hashes.length; i++) {
+            if ((contentHash >>> (64 - hashBits[i])) == hashes[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an {@link Iterator} over all lines of the absolute ranges in ascending order
+     *
+     * @return an {@link Iterator} over all lines of the absolute ranges in ascending order
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        final int[] lines = toRanges();
+        return new Iterator<Integer>() {
+
+            private int next = isEmpty() ? 0 : lines[0];
+
+            private int range = 0;
+
+            @Override
+            public boolean hasNext() {
+                return range < rangeCount;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                final int line = next;
+                if (line == lines[(2 * range) + 1]) {
+                    range++;
+                    if (hasNext()) {
+                        next = lines[2 * range];
+                    }
+                } else {
+                    next++;
+                }
+                return line;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("LineSet is immutable");
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link LineSet} where all ranges relative to the last line are resolved against
+     * the given number of lines, content hashes are dropped. Note that the resolved {@link LineSet}
+     * is empty if none of the ranges is within the resource
+     *
+     * @param lineCount the number of lines of the resource
+     *
+     * @return the {@link LineSet} with absolute ranges only
+     */
+    public LineSet resolve(final int lineCount) {
+        if (!isSymbolic()) {
+            return this;
+        }
+
+        final Builder builder = new Builder();
+        final int[] values = toRanges();
+        for (int i = 0; i < values.length; i += 2) {
+            builder.add(values[i], values[i + 1]);
+        }
+        for (int i = 0; i < relative.length; i += 2) {
+            final int from = Math.max(1, resolve(relative[i], lineCount));
+            final int to = Math.min(lineCount, resolve(relative[i + 1], lineCount));
+            if (from <= to) {
+                builder.add(from, to);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a {@link LineSet} where all ranges relative to the last line and all content hashes are
+     * resolved against the given {@link LineHashes}. Note that the resolved {@link LineSet} is empty if
+     * none of the ranges is within the resource and none of the content hashes matches
+     *
+     * @param lineHashes the {@link LineHashes} of the resource
+     *
+     * @return the {@link LineSet} with absolute ranges only
+     */
+    public LineSet resolve(final LineHashes lineHashes) {
+        final LineSet resolved = resolve(lineHashes.getLineCount());
+        if (!hasContentHashes()) {
+            return resolved;
+        }
+
+        final Builder builder = new Builder().add(resolved);
+        for (int line = 1; line <= lineHashes.getLineCount(); line++) {
+            if (matchesContentHash(lineHashes.getHash(line))) {
+                builder.add(line);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of lines in the absolute ranges of this {@link LineSet}
+     *
+     * @return the number of lines, at most {@link Integer#MAX_VALUE}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes this {@link LineSet} in a binary format that can be read by {@link #read(DataInputStream)}
+     *
+     * @param output the {@link DataOutput} to write to
+     *
+     * @throws IOException in case the {@link DataOutput} can not be written
+     */
+    void write(final DataOutput output) throws IOException {
+        final int[] values = toRanges();
+        output.writeInt(values.length);
+        for (final int value : values) {
+            output.writeInt(value);
+        }
+        output.writeInt(relative.length);
+        for (final int value : relative) {
+            output.writeInt(value);
+        }
+        output.writeInt(hashes.length);
+        for (int i = 0; i < hashes.length; i++) {
+            output.writeLong(hashes[i]);
+            output.writeInt(hashBits[i]);
+        }
+    }
+
+    /**
+     * Returns the sorted and disjoint ranges of this {@link LineSet}, must not be modified
+     *
+     * @return the alternating start and end values (both including) of all ranges
+     */
+    int[] toRanges() {
+        if (bitmap != null) {
+            return bitmap.toRanges(rangeCount);
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append('[');
+        append(builder, toRanges(), false);
+        append(builder, relative, true);
+        appendContentHashes(builder, hashes, hashBits);
+        builder.append(']');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * {@link LruCache} is a bounded cache that evicts the least recently used entry once the
+ * maximal number of entries is exceeded. It counts all hits and misses so the size of the
+ * cache can be tuned
+ */
+public final class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    private long hits;
+
+    private final int maxSize;
+
+    private long misses;
+
+    /**
+     * Create a new {@link LruCache} with the given maximal size
+     *
+     * @param maxSize the maximal number of entries, a size of {@code 0} disables the cache
+     */
+    public LruCache(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize: " + maxSize + " must be greater or equal than 0");
+        }
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the given key
+     *
+     * @param key the key of the value
+     *
+     * @return the cached value or {@code null} if there is no value for the key in the cache
+     */
+    @CheckForNull
+    public synchronized V get(final K key) {
+        final V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value
+     *
+     * @return the number of lookups that found a cached value
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached value
+     *
+     * @return the number of lookups that did not find a cached value
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Cache the given value for the given key, the least recently used entry is evicted
+     * if the cache exceeds its maximal size
+     *
+     * @param key the key of the value
+     * @param value the value to cache
+     */
+    public synchronized void put(final K key, final V value) {
+        if (maxSize > 0) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the number of currently cached entries
+     *
+     * @return the number of currently cached entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("LruCache [size=");
+        builder.append(entries.size());
+        builder.append(", maxSize=");
+        builder.append(maxSize);
+        builder.append(", hits=");
+        builder.append(hits);
+        builder.append(", misses=");
+        builder.append(misses);
+        builder.append(']');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * {@link PackageTrie} holds package patterns like {@code pkg:net.example.gen.**} in a trie of
+ * their segments: {@code *} matches exactly one segment, {@code **} any number of segments and
+ * all other segments follow the syntax of {@link GlobPattern}. The qualified name of a class is
+ * matched against all package patterns in one descent
+ * <p>
+ * A package pattern matches the same classes as the {@link org.sonar.api.utils.WildcardPattern} of its
+ * segments on the path of the qualified name: the last segment of the qualified name is always the class
+ * name, so {@code pkg:net.example.**} matches the classes in {@code net.example} and its sub packages,
+ * but not a class {@code net.example} in the package {@code net}
+ */
+final class PackageTrie {
+
+    private static final class Node {
+
+        Node anySegment;
+
+        Node anySegments;
+
+        final Map<String, Node> children = new HashMap<>();
+
+        final boolean loop;
+
+        final BitSet patterns = new BitSet();
+
+        final List<GlobPattern> wildcardSegments = new ArrayList<>();
+
+        final List<Node> wildcardChildren = new ArrayList<>();
+
+        final Map<String, Node> wildcards = new HashMap<>();
+
+        Node(final boolean loop) {
+            this.loop = loop;
+        }
+    }
+
+    private static final String ANY_SEGMENT = "*";
+
+    private static final String ANY_SEGMENTS = "**";
+
+    /**
+     * prefix of all package patterns
+     */
+    static final String PREFIX = "pkg:";
+
+    private static void closure(final Node node, final Set<Node> active) {
+        if (active.add(node) && (node.anySegments != null)) {
+            closure(node.anySegments, active);
+        }
+    }
+
+    /**
+     * Returns whether the given resource pattern is a package pattern
+     *
+     * @param resourcePattern the resource pattern
+     *
+     * @return {@code true} if the resource pattern is a package pattern, otherwise {@code false}
+     */
+    static boolean isPackagePattern(final String resourcePattern) {
+        return resourcePattern.startsWith(PREFIX);
+    }
+
+    private final Node root = new Node(false);
+
+    private int size;
+
+    /**
+     * Adds the given package pattern
+     *
+     * @param packagePattern the package pattern including its {@link #PREFIX}
+     * @param index the index of the pattern
+     */
+    void add(final String packagePattern, final int index) {
+        Node node = root;
+        for (final String segment : StringUtils.split(packagePattern.substring(PREFIX.length()), '.')) {
+            node = child(node, segment);
+        }
+        node.patterns.set(index);
+        size++;
+    }
+
+    private Node child(final Node node, final String segment) {
+        if (ANY_SEGMENTS.equals(segment)) {
+            if (node.anySegments == null) {
+                node.anySegments = new Node(true);
+            }
+            return node.anySegments;
+        }
+
+        if (ANY_SEGMENT.equals(segment)) {
+            if (node.anySegment == null) {
+                node.anySegment = new Node(false);
+            }
+            return node.anySegment;
+        }
+
+        if (PatternIndex.isLiteral(segment)) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node(false);
+                node.children.put(segment, child);
+            }
+            return child;
+        }
+
+        Node child = node.wildcards.get(segment);
+        if (child == null) {
+            child = new Node(false);
+            node.wildcards.put(segment, child);
+            node.wildcardSegments.add(GlobPattern.compile(segment));
+            node.wildcardChildren.add(child);
+        }
+        return child;
+    }
+
+    /**
+     * Returns whether this {@link PackageTrie} does not contain any package patterns
+     *
+     * @return {@code true} if there are no package patterns, otherwise {@code false}
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the indices of all package patterns that match the given qualified name
+     *
+     * @param qualifiedName the segments of the qualified name of the class
+     *
+     * @return the {@link BitSet} of the indices of all matching package patterns
+     */
+    BitSet match(final List<String> qualifiedName) {
+        Set<Node> active = new LinkedHashSet<>();
+        closure(root, active);
+        Set<Node> entered = new LinkedHashSet<>();
+        for (final String segment : qualifiedName) {
+            entered = new LinkedHashSet<>();
+            for (final Node node : active) {
+                if (node.loop) {
+                    entered.add(node);
+                }
+                if (node.anySegment != null) {
+                    entered.add(node.anySegment);
+                }
+                final Node child = node.children.get(segment);
+                if (child != null) {
+                    entered.add(child);
+                }
+                for (int i = 0; i < node.wildcardSegments.size(); i++) {
+                    if (node.wildcardSegments.get(i).match(segment)) {
+                        entered.add(node.wildcardChildren.get(i));
+                    }
+                }
+            }
+            if (entered.isEmpty()) {
+                return new BitSet();
+            }
+            active = new LinkedHashSet<>();
+            for (final Node node : entered) {
+                closure(node, active);
+            }
+        }
+
+        // only nodes that have been entered with the class name match, a trailing ** that is reached
+        // without a segment would match a package segment as class name
+        final BitSet matching = new BitSet();
+        for (final Node node : entered) {
+            matching.or(node.patterns);
+        }
+        return matching;
+    }
+}
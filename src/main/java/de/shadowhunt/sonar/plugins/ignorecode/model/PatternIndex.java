@@ -0,0 +1,302 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PatternIndex} holds the compiled resource matchers of a list of patterns,
+ * every resource pattern is compiled exactly once when the {@link PatternIndex} is created.
+ * Resource patterns without any wildcard are looked up by a single hash probe, all
+ * remaining wildcard patterns are grouped by their literal leading directories in a
+ * {@link ResourceTrie}, the patterns of each directory are combined into one {@link GlobAutomaton}.
+ * A resource path only runs the automata of the directories on its own path. The matches
+ * of the most recently used resource paths are kept in a {@link LruCache}.
+ * <p>
+ * Most resources don't match any pattern, so a {@link BloomFilter} over all literal paths and
+ * the literal directory prefixes of all wildcard patterns rejects them before any matching.
+ * The {@link BloomFilter} is not used if any pattern starts with a wildcard.
+ * <p>
+ * Package patterns ({@code pkg:net.example.gen.**}) are matched against the qualified name
+ * of the class in the resource by a {@link PackageTrie}
+ */
+public class PatternIndex<P extends AbstractPattern> {
+
+    /**
+     * default number of resource keys whose matches are cached
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final BitSet NO_MATCH = new BitSet();
+
+    static int[] append(final int[] indices, final int index) {
+        final int[] result = Arrays.copyOf(indices, indices.length + 1);
+        result[indices.length] = index;
+        return result;
+    }
+
+    /**
+     * Returns the literal directory prefix of a normalized wildcard pattern: the part
+     * before the last separator that precedes the first wildcard
+     *
+     * @return the literal directory prefix or an empty {@link String} if the pattern starts with a wildcard
+     */
+    static String getDirectoryPrefix(final String normalizedPattern) {
+        int wildcard = normalizedPattern.indexOf('*');
+        final int anyChar = normalizedPattern.indexOf('?');
+        if ((wildcard < 0) || ((anyChar >= 0) && (anyChar < wildcard))) {
+            wildcard = anyChar;
+        }
+
+        final int separator = normalizedPattern.lastIndexOf('/', wildcard);
+        if (separator < 0) {
+            return "";
+        }
+        return normalizedPattern.substring(0, separator);
+    }
+
+    static boolean isLiteral(final String pattern) {
+        return (pattern.indexOf('*') < 0) && (pattern.indexOf('?') < 0);
+    }
+
+    /**
+     * Returns whether the given resource pattern matches the given {@link ResourcePath},
+     * without building a {@link PatternIndex}
+     *
+     * @param resourcePattern the resource pattern, either a {@link GlobPattern} or a package pattern
+     * @param resourcePath the {@link ResourcePath} of the resource
+     *
+     * @return {@code true} if the resource pattern matches the {@link ResourcePath}, otherwise {@code false}
+     */
+    public static boolean matchResource(final String resourcePattern, final ResourcePath resourcePath) {
+        if (PackageTrie.isPackagePattern(resourcePattern)) {
+            final PackageTrie trie = new PackageTrie();
+            trie.add(resourcePattern, 0);
+            return trie.match(resourcePath.getQualifiedName()).get(0);
+        }
+        return GlobPattern.compile(resourcePattern).match(resourcePath);
+    }
+
+    /**
+     * Normalizes a literal resource pattern the same way {@link GlobPattern} interprets it:
+     * a leading separator is dropped and backslashes are treated as directory separators
+     */
+    static String normalizeLiteral(final String pattern) {
+        final String path;
+        if (pattern.startsWith("/") || pattern.startsWith("\\")) {
+            path = pattern.substring(1);
+        } else {
+            path = pattern;
+        }
+        return path.replace('\\', '/');
+    }
+
+    private final LruCache<String, BitSet> cache;
+
+    private final Map<String, BitSet> literals;
+
+    private final PackageTrie packages = new PackageTrie();
+
+    private final BloomFilter prefilter;
+
+    protected final List<P> patterns;
+
+    private final ResourceTrie resources;
+
+    /**
+     * Create a new {@link PatternIndex} for the given patterns
+     *
+     * @param patterns the patterns to compile, the order of the patterns is retained
+     */
+    public PatternIndex(final List<P> patterns) {
+        this(patterns, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a new {@link PatternIndex} for the given patterns
+     *
+     * @param patterns the patterns to compile, the order of the patterns is retained
+     * @param cacheSize the number of resource keys whose matches are cached, {@code 0} disables the cache
+     */
+    public PatternIndex(final List<P> patterns, final int cacheSize) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        cache = new LruCache<>(cacheSize);
+
+        final List<String> wildcards = new ArrayList<>(this.patterns.size());
+        final List<String> prefixes = new ArrayList<>(this.patterns.size());
+        boolean prefilterable = true;
+        literals = new HashMap<>();
+        for (int i = 0; i < this.patterns.size(); i++) {
+            final String resourcePattern = this.patterns.get(i).getResourcePattern();
+            if (PackageTrie.isPackagePattern(resourcePattern)) {
+                packages.add(resourcePattern, i);
+                wildcards.add(null);
+                continue;
+            }
+
+            final String path = normalizeLiteral(resourcePattern);
+            if (isLiteral(resourcePattern)) {
+                BitSet indices = literals.get(path);
+                if (indices == null) {
+                    indices = new BitSet();
+                    literals.put(path, indices);
+                }
+                indices.set(i);
+                wildcards.add(null);
+                prefixes.add(path);
+            } else {
+                wildcards.add(resourcePattern);
+                final String prefix = getDirectoryPrefix(path);
+                prefilterable &= !prefix.isEmpty();
+                prefixes.add(prefix);
+            }
+        }
+        resources = new ResourceTrie(wildcards);
+
+        if (prefilterable) {
+            prefilter = new BloomFilter(prefixes.size());
+            for (final String prefix : prefixes) {
+                prefilter.add(prefix);
+            }
+        } else {
+            prefilter = null;
+        }
+    }
+
+    /**
+     * Returns the {@link LruCache} that holds the matches of the most recently used resource keys
+     *
+     * @return the {@link LruCache} of this {@link PatternIndex}
+     */
+    public LruCache<String, BitSet> getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns all patterns of this {@link PatternIndex}
+     *
+     * @return the unmodifiable {@link List} of all patterns in their original order
+     */
+    public List<P> getPatterns() {
+        return patterns;
+    }
+
+    boolean isPrefiltered() {
+        return prefilter != null;
+    }
+
+    /**
+     * Returns whether this {@link PatternIndex} does not contain any patterns
+     *
+     * @return {@code true} if there are no patterns, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    /**
+     * Returns all patterns whose resource pattern matches the given resource key
+     *
+     * @param resourceKey the key of the resource
+     *
+     * @return the {@link List} of all matching patterns in their original order
+     */
+    public List<P> match(final String resourceKey) {
+        return match(new ResourcePath(resourceKey));
+    }
+
+    /**
+     * Returns all patterns whose resource pattern matches the given {@link ResourcePath}
+     *
+     * @param resourcePath the {@link ResourcePath} of the resource
+     *
+     * @return the {@link List} of all matching patterns in their original order
+     */
+    public List<P> match(final ResourcePath resourcePath) {
+        final BitSet indices = matchResource(resourcePath);
+        final List<P> matching = new ArrayList<>(indices.cardinality());
+        for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+            matching.add(patterns.get(index));
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the indices of all patterns whose resource pattern matches the given {@link ResourcePath}
+     *
+     * @param resourcePath the {@link ResourcePath} of the resource
+     *
+     * @return the {@link BitSet} of the indices of all matching patterns, must not be modified
+     */
+    protected final BitSet matchResource(final ResourcePath resourcePath) {
+        final String path = resourcePath.getPath();
+        final boolean prefiltered = (prefilter != null) && !mightMatch(path);
+        if (prefiltered && packages.isEmpty()) {
+            return NO_MATCH;
+        }
+
+        final BitSet cached = cache.get(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        final BitSet matching;
+        if (prefiltered) {
+            matching = new BitSet();
+        } else {
+            matching = resources.match(path);
+            final BitSet literalMatching = literals.get(path);
+            if (literalMatching != null) {
+                matching.or(literalMatching);
+            }
+        }
+        if (!packages.isEmpty()) {
+            matching.or(packages.match(resourcePath.getQualifiedName()));
+        }
+        cache.put(path, matching);
+        return matching;
+    }
+
+    private boolean mightMatch(final String path) {
+        // every directory prefix of the path could be the prefix of a wildcard pattern
+        long hash = BloomFilter.INITIAL_HASH;
+        for (int i = 0; i < path.length(); i++) {
+            final char c = path.charAt(i);
+            if ((c == '/') && prefilter.mightContain(hash)) {
+                return true;
+            }
+            hash = BloomFilter.hash(hash, c);
+        }
+        // the whole path could be a literal pattern
+        return prefilter.mightContain(hash);
+    }
+
+    /**
+     * Returns the number of patterns in this {@link PatternIndex}
+     *
+     * @return the number of patterns
+     */
+    public int size() {
+        return patterns.size();
+    }
+}
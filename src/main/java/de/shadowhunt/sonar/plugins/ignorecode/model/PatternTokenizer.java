@@ -0,0 +1,432 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * {@link PatternTokenizer} reads the entries of an ignore file straight from a {@link Reader}: fields are
+ * separated by ';' and the last field of each entry describes the lines. Only the fields themselves are
+ * created as {@link String}s, lines and ranges are parsed directly from the buffer into a {@link LineSet.Builder}.
+ * All errors report the line and column of the token that could not be parsed
+ */
+final class PatternTokenizer {
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int EOF = -1;
+
+    private static final int MAX_HEX_DIGITS = 16;
+
+    private static boolean isLineBreak(final int c) {
+        return (c == '\n') || (c == '\r');
+    }
+
+    private static boolean isSpace(final int c) {
+        return (c != EOF) && !isLineBreak(c) && Character.isWhitespace(c);
+    }
+
+    private char[] buffer;
+
+    private int column = 1;
+
+    private final boolean includes;
+
+    private int limit;
+
+    private int line;
+
+    private int position;
+
+    private final Reader reader;
+
+    private final StringBuilder text = new StringBuilder();
+
+    private int tokenColumn = 1;
+
+    private int tokenLine;
+
+    PatternTokenizer(final Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    PatternTokenizer(final Reader reader, final int bufferSize) {
+        this(reader, bufferSize, 1, false);
+    }
+
+    /**
+     * Create a new {@link PatternTokenizer}
+     *
+     * @param reader the {@link Reader} of the entries
+     * @param bufferSize the initial size of the read buffer
+     * @param firstLine the line number of the first line of the {@link Reader}
+     * @param includes {@code true} if include directives are resolved by the caller and must be skipped,
+     * {@code false} if include directives must be rejected
+     */
+    PatternTokenizer(final Reader reader, final int bufferSize, final int firstLine, final boolean includes) {
+        this.reader = reader;
+        this.includes = includes;
+        buffer = new char[bufferSize];
+        line = firstLine;
+        tokenLine = firstLine;
+    }
+
+    /**
+     * Creates an {@link IllegalArgumentException} for the last token that has been started
+     *
+     * @param message the description of the error
+     *
+     * @return the {@link IllegalArgumentException} with the line and column of the token
+     */
+    IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " (line " + tokenLine + ", column " + tokenColumn + ")");
+    }
+
+    private void expectEndOfLine() throws IOException {
+        skipSpaces();
+        // trailing separators are allowed, like the empty fields they would create
+        skipSeparators();
+        skipSpaces();
+        final int c = peek(0);
+        if ((c != EOF) && !isLineBreak(c)) {
+            startToken();
+            throw error("The line must end after the lines, but found '" + (char) c + "'");
+        }
+        skipLineBreak();
+    }
+
+    int getColumn() {
+        return column;
+    }
+
+    int getLine() {
+        return line;
+    }
+
+    private boolean isIncludeDirective() throws IOException {
+        final String directive = IncludeDirective.INCLUDE;
+        for (int i = 0; i < directive.length(); i++) {
+            if (peek(i) != directive.charAt(i)) {
+                return false;
+            }
+        }
+        return IncludeDirective.isDirectiveEnd(peek(directive.length()));
+    }
+
+    private int next() throws IOException {
+        final int c = peek(0);
+        if (c != EOF) {
+            position++;
+            column++;
+        }
+        return c;
+    }
+
+    /**
+     * Skips all blank lines, comments (lines starting with '#') and include directives (see {@link IncludeDirective})
+     * that are resolved by the caller
+     *
+     * @return {@code true} if there is another entry, {@code false} if the end of the input is reached
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     * @throws IllegalArgumentException if there is an include directive that is not resolved by the caller
+     */
+    boolean nextEntry() throws IOException {
+        while (true) {
+            int c = peek(0);
+            if (c == EOF) {
+                return false;
+            }
+            if (c == '#') {
+                skipLine();
+                continue;
+            }
+            if ((c == '@') && isIncludeDirective()) {
+                if (!includes) {
+                    // silently dropping the included ignores would apply less ignores than configured
+                    startToken();
+                    throw error("The include directive is only supported for ignore files loaded from the configuration");
+                }
+                // includes are resolved by the caller (see IncludeDirective#scan(ByteBuffer))
+                skipLine();
+                continue;
+            }
+
+            // look ahead without consuming, leading whitespace belongs to the first field
+            int offset = 0;
+            while (isSpace(c)) {
+                c = peek(++offset);
+            }
+            if ((c != EOF) && !isLineBreak(c)) {
+                return true;
+            }
+            skipLine();
+        }
+    }
+
+    /**
+     * Returns the character at the given offset from the current position without consuming it
+     */
+    private int peek(final int offset) throws IOException {
+        while ((position + offset) >= limit) {
+            if (!fill()) {
+                return EOF;
+            }
+        }
+        return buffer[position + offset];
+    }
+
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        final int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Reads a single bound of a range of lines: a positive line, {@code $} for the last line
+     * or {@code $-20} for the first of the last 20 lines
+     *
+     * @return the positive line, {@code 0} for the last line or the number of last lines as negative value
+     */
+    private int readBound() throws IOException {
+        if (peek(0) != '$') {
+            final int line = readNumber();
+            if (line < 1) {
+                throw error("The line must be positive");
+            }
+            return line;
+        }
+
+        next();
+        if ((peek(0) == '-') && Character.isDigit(peek(1))) {
+            next();
+            return -readNumber();
+        }
+        return 0;
+    }
+
+    private void readContentHash(final LineSet.Builder lines) throws IOException {
+        for (int i = 0; i < LineSet.CONTENT_HASH_PREFIX.length(); i++) {
+            if (next() != LineSet.CONTENT_HASH_PREFIX.charAt(i)) {
+                throw error("The content hash must start with " + LineSet.CONTENT_HASH_PREFIX);
+            }
+        }
+
+        long value = 0L;
+        int digits = 0;
+        int digit;
+        while ((digit = Character.digit(peek(0), 16)) >= 0) {
+            if (digits == MAX_HEX_DIGITS) {
+                throw error("The content hash must have between 1 and " + MAX_HEX_DIGITS + " hexadecimal digits");
+            }
+            next();
+            value = (value << 4) | digit;
+            digits++;
+        }
+        if (digits == 0) {
+            throw error("The content hash must have between 1 and " + MAX_HEX_DIGITS + " hexadecimal digits");
+        }
+        lines.addContentHash(value, 4 * digits);
+    }
+
+    /**
+     * Reads a field that is terminated by ';', the separator is consumed. Consecutive separators
+     * are treated as one (there are no empty fields), as ignore files always have been split this way
+     *
+     * @param description the description of the field for error messages
+     *
+     * @return the content of the field, only valid until the next field is read
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     * @throws IllegalArgumentException if the field is blank or not terminated by ';'
+     */
+    CharSequence readField(final String description) throws IOException {
+        skipSeparators();
+        startToken();
+        text.setLength(0);
+        boolean blank = true;
+        while (true) {
+            final int c = peek(0);
+            if ((c == EOF) || isLineBreak(c)) {
+                throw error("The line does not define " + description + " terminated by ';'");
+            }
+            next();
+            if (c == ';') {
+                break;
+            }
+            blank &= Character.isWhitespace(c);
+            text.append((char) c);
+        }
+        if (blank) {
+            throw error("The line does not define " + description);
+        }
+        return text;
+    }
+
+    /**
+     * Reads the last field of an entry that describes the lines: {@code *} for all lines, a single
+     * content hash ({@code #h:3fa9c1}) or a list of lines and ranges in brackets ({@code [1,3,5-10]}).
+     * The rest of the line is consumed
+     *
+     * @return the {@link LineSet} of the entry
+     *
+     * @throws IOException in case the {@link Reader} can not be read
+     * @throws IllegalArgumentException if the lines are invalid
+     */
+    LineSet readLines() throws IOException {
+        skipSeparators();
+        skipSpaces();
+        startToken();
+        final int c = peek(0);
+        if (c == '*') {
+            next();
+            expectEndOfLine();
+            return LineSet.EMPTY;
+        }
+
+        final LineSet.Builder lines = new LineSet.Builder();
+        if (c == '#') {
+            readContentHash(lines);
+        } else if (c == '[') {
+            next();
+            do {
+                skipSpaces();
+                readRange(lines);
+                skipSpaces();
+            } while (skip(','));
+            startToken();
+            if (next() != ']') {
+                throw error("The lines must be terminated by ']'");
+            }
+        } else {
+            throw error("The line does not define a range of lines");
+        }
+        expectEndOfLine();
+        return lines.build();
+    }
+
+    private int readNumber() throws IOException {
+        if (!Character.isDigit(peek(0))) {
+            throw error("The range is invalid");
+        }
+
+        long value = 0L;
+        while (Character.isDigit(peek(0))) {
+            value = (value * 10) + (next() - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("The number is too large");
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a single line ({@code 10}) or a range of lines ({@code 20-25}) into the given {@link LineSet.Builder}.
+     * A range without start begins at the first line ({@code -40}), a range without end ends at the last line
+     * ({@code 500-}). Ranges with a bound relative to the last line ({@code $-20-$}) are added as symbolic range
+     * and {@code #h:3fa9c1} adds all lines whose content hash starts with the given hexadecimal digits
+     */
+    private void readRange(final LineSet.Builder lines) throws IOException {
+        startToken();
+        if (peek(0) == '#') {
+            readContentHash(lines);
+            return;
+        }
+
+        final boolean openStart = (peek(0) == '-');
+        final int from = openStart ? 1 : readBound();
+        if (!skip('-')) {
+            add(lines, from, from);
+            return;
+        }
+
+        final int c = peek(0);
+        final boolean openEnd = (c != '$') && !Character.isDigit(c);
+        if (openStart && openEnd) {
+            throw error("The range does not define any bound");
+        }
+        // an open end doesn't depend on the number of lines, so it is kept as absolute range
+        add(lines, from, openEnd ? Integer.MAX_VALUE : readBound());
+    }
+
+    private void add(final LineSet.Builder lines, final int from, final int to) {
+        try {
+            lines.addRelative(from, to);
+        } catch (final IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+    }
+
+    private boolean skip(final char expected) throws IOException {
+        if (peek(0) != expected) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    private void skipLine() throws IOException {
+        int c = peek(0);
+        while ((c != EOF) && !isLineBreak(c)) {
+            next();
+            c = peek(0);
+        }
+        skipLineBreak();
+    }
+
+    private void skipLineBreak() throws IOException {
+        final int c = next();
+        if ((c == '\r') && (peek(0) == '\n')) {
+            position++;
+        }
+        if (c != EOF) {
+            line++;
+            column = 1;
+        }
+    }
+
+    private void skipSeparators() throws IOException {
+        while (skip(';')) {
+            // empty field
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (isSpace(peek(0))) {
+            next();
+        }
+    }
+
+    private void startToken() {
+        tokenLine = line;
+        tokenColumn = column;
+    }
+}
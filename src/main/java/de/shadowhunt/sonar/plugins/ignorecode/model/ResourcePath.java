@@ -0,0 +1,202 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ResourcePath} is the tokenized form of a resource key. It is created once per resource
+ * and passed to every matcher, so the resource key is normalized only once. The segments, the
+ * file name and the qualified name are only computed when a matcher asks for them
+ */
+public final class ResourcePath {
+
+    private static final char SEPARATOR = '/';
+
+    /**
+     * source roots that are stripped from the path to get the qualified name of a class,
+     * the first matching source root is used
+     */
+    static final List<List<String>> SOURCE_ROOTS;
+
+    static {
+        final List<List<String>> sourceRoots = new ArrayList<>();
+        sourceRoots.add(Arrays.asList("src", "main", "java"));
+        sourceRoots.add(Arrays.asList("src", "test", "java"));
+        sourceRoots.add(Arrays.asList("src", "it", "java"));
+        sourceRoots.add(Arrays.asList("src", "java"));
+        sourceRoots.add(Arrays.asList("src"));
+        SOURCE_ROOTS = Collections.unmodifiableList(sourceRoots);
+    }
+
+    /**
+     * Normalizes a resource key the same way {@link GlobPattern#match(String)} does:
+     * a leading and a trailing separator are dropped
+     */
+    static String normalize(final String resourceKey) {
+        final int from = ((resourceKey.length() > 0) && (resourceKey.charAt(0) == SEPARATOR)) ? 1 : 0;
+        int to = resourceKey.length();
+        if ((to > from) && (resourceKey.charAt(to - 1) == SEPARATOR)) {
+            to--;
+        }
+        return resourceKey.substring(from, to);
+    }
+
+    private String extension;
+
+    private String fileName;
+
+    private final String key;
+
+    private final String path;
+
+    private List<String> qualifiedName;
+
+    private List<String> segments;
+
+    /**
+     * Create a new {@link ResourcePath} for the given resource key
+     *
+     * @param key the key of the resource
+     */
+    public ResourcePath(final String key) {
+        this.key = key;
+        path = normalize(key);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ResourcePath other = (ResourcePath) obj;
+        return path.equals(other.path);
+    }
+
+    /**
+     * Returns the extension of the file name without the leading dot
+     *
+     * @return the extension of the file name or an empty {@link String} if the file name has no extension
+     */
+    public String getExtension() {
+        if (extension == null) {
+            final String name = getFileName();
+            final int dot = name.lastIndexOf('.');
+            extension = (dot < 0) ? "" : name.substring(dot + 1);
+        }
+        return extension;
+    }
+
+    /**
+     * Returns the last segment of the path
+     *
+     * @return the last segment of the path
+     */
+    public String getFileName() {
+        if (fileName == null) {
+            fileName = path.substring(path.lastIndexOf(SEPARATOR) + 1);
+        }
+        return fileName;
+    }
+
+    /**
+     * Returns the original resource key
+     *
+     * @return the original resource key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the normalized resource key: without a leading and a trailing separator
+     *
+     * @return the normalized resource key
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the segments of the qualified name of the class in this resource: the path
+     * without its source root (see {@link #SOURCE_ROOTS}) and without the extension of
+     * the file name, e.g. {@code [net, example, Foo]} for {@code src/main/java/net/example/Foo.java}
+     *
+     * @return the unmodifiable {@link List} of all segments of the qualified name
+     */
+    public List<String> getQualifiedName() {
+        if (qualifiedName == null) {
+            final List<String> pathSegments = getSegments();
+            final String lastSegment = getFileName();
+            int start = 0;
+            for (final List<String> sourceRoot : SOURCE_ROOTS) {
+                if ((sourceRoot.size() < pathSegments.size()) && sourceRoot.equals(pathSegments.subList(0, sourceRoot.size()))) {
+                    start = sourceRoot.size();
+                    break;
+                }
+            }
+
+            final List<String> name = new ArrayList<>(pathSegments.subList(start, pathSegments.size()));
+            final int dot = lastSegment.lastIndexOf('.');
+            if (dot > 0) {
+                name.set(name.size() - 1, lastSegment.substring(0, dot));
+            }
+            qualifiedName = Collections.unmodifiableList(name);
+        }
+        return qualifiedName;
+    }
+
+    /**
+     * Returns all segments of the normalized resource key, the last segment is the file name
+     *
+     * @return the unmodifiable {@link List} of all segments
+     */
+    public List<String> getSegments() {
+        if (segments == null) {
+            final List<String> tokens = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i < path.length(); i++) {
+                if (path.charAt(i) == SEPARATOR) {
+                    tokens.add(path.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            tokens.add(path.substring(start));
+            segments = Collections.unmodifiableList(tokens);
+        }
+        return segments;
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
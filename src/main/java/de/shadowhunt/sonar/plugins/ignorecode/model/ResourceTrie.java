@@ -0,0 +1,151 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ResourceTrie} indexes resource patterns by the literal directories they start with. The patterns of
+ * each directory are combined into one {@link GlobAutomaton}, so a resource key only runs the automata of the
+ * directories on its own path and each automaton only holds the patterns that can match below its directory
+ */
+final class ResourceTrie {
+
+    private static final class Node {
+
+        GlobAutomaton automaton;
+
+        final Map<String, Node> children = new HashMap<>();
+
+        int[] indices = new int[0];
+    }
+
+    private static int firstWildcard(final String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if ((c == '*') || (c == '?')) {
+                return i;
+            }
+        }
+        return pattern.length();
+    }
+
+    /**
+     * Returns the literal leading directories of the given resource pattern: all
+     * directories in front of the first directory that contains a wildcard
+     *
+     * @param resourcePattern the resource pattern to analyze
+     *
+     * @return the literal leading directories of the resource pattern
+     */
+    static List<String> getLiteralDirectories(final String resourcePattern) {
+        final String pattern = PatternIndex.normalizeLiteral(resourcePattern);
+        final int wildcard = firstWildcard(pattern);
+
+        final List<String> directories = new ArrayList<>();
+        int start = 0;
+        int end = pattern.indexOf('/');
+        while ((end >= 0) && (end < wildcard)) {
+            directories.add(pattern.substring(start, end));
+            start = end + 1;
+            end = pattern.indexOf('/', start);
+        }
+        return directories;
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Create a new {@link ResourceTrie} for the given resource patterns
+     *
+     * @param resourcePatterns the resource patterns, the index of a pattern in the list is its id, {@code null} entries are skipped
+     */
+    ResourceTrie(final List<String> resourcePatterns) {
+        for (int id = 0; id < resourcePatterns.size(); id++) {
+            final String pattern = resourcePatterns.get(id);
+            if (pattern == null) {
+                continue;
+            }
+
+            Node node = root;
+            for (final String directory : getLiteralDirectories(pattern)) {
+                Node child = node.children.get(directory);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(directory, child);
+                }
+                node = child;
+            }
+            node.indices = PatternIndex.append(node.indices, id);
+        }
+        compile(root, resourcePatterns);
+    }
+
+    private void compile(final Node node, final List<String> resourcePatterns) {
+        if (node.indices.length > 0) {
+            // the automaton uses the position in the indices as id
+            final List<String> patterns = new ArrayList<>(node.indices.length);
+            for (final int index : node.indices) {
+                patterns.add(resourcePatterns.get(index));
+            }
+            node.automaton = new GlobAutomaton(patterns);
+        }
+        for (final Node child : node.children.values()) {
+            compile(child, resourcePatterns);
+        }
+    }
+
+    /**
+     * Returns the ids of all resource patterns that match the given resource key
+     *
+     * @param resourceKey the normalized key of the resource
+     *
+     * @return the {@link BitSet} of the ids of all matching resource patterns
+     */
+    BitSet match(final String resourceKey) {
+        final BitSet matching = new BitSet();
+        Node node = root;
+        match(node, resourceKey, matching);
+        int start = 0;
+        int end = resourceKey.indexOf('/');
+        while (end >= 0) {
+            node = node.children.get(resourceKey.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            match(node, resourceKey, matching);
+            start = end + 1;
+            end = resourceKey.indexOf('/', start);
+        }
+        return matching;
+    }
+
+    private void match(final Node node, final String resourceKey, final BitSet matching) {
+        if (node.automaton == null) {
+            return;
+        }
+
+        final BitSet local = node.automaton.match(resourceKey);
+        for (int i = local.nextSetBit(0); i >= 0; i = local.nextSetBit(i + 1)) {
+            matching.set(node.indices[i]);
+        }
+    }
+}
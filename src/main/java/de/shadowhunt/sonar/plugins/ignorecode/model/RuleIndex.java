@@ -0,0 +1,176 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * {@link RuleIndex} indexes a list of rule patterns: exact rule keys are looked up in a map,
+ * {@code repository:*} patterns by their repository and {@code *} patterns apply to every rule.
+ * Only the remaining rule patterns are matched one by one. The matches of each {@link RuleKey} are cached
+ */
+final class RuleIndex {
+
+    private static final String ANY_RULE = "*";
+
+    private static final String ANY_RULE_OF_REPOSITORY = ":*";
+
+    private static void add(final Map<String, BitSet> bucket, final String key, final int index) {
+        BitSet indices = bucket.get(key);
+        if (indices == null) {
+            indices = new BitSet();
+            bucket.put(key, indices);
+        }
+        indices.set(index);
+    }
+
+    static GlobPattern compile(final Map<String, GlobPattern> compiled, final String pattern) {
+        GlobPattern globPattern = compiled.get(pattern);
+        if (globPattern == null) {
+            globPattern = GlobPattern.compile(pattern);
+            compiled.put(pattern, globPattern);
+        }
+        return globPattern;
+    }
+
+    /**
+     * Returns the repository of a {@code repository:*} rule pattern
+     *
+     * @param rulePattern the rule pattern to analyze
+     *
+     * @return the repository or {@code null} if the rule pattern does not match all rules of exactly one repository
+     */
+    @CheckForNull
+    static String getRepository(final String rulePattern) {
+        if (!rulePattern.endsWith(ANY_RULE_OF_REPOSITORY)) {
+            return null;
+        }
+
+        final String repository = rulePattern.substring(0, rulePattern.length() - ANY_RULE_OF_REPOSITORY.length());
+        if (repository.isEmpty() || !PatternIndex.isLiteral(repository) || (repository.indexOf(':') >= 0)) {
+            return null;
+        }
+        if ((repository.indexOf('/') >= 0) || (repository.indexOf('\\') >= 0)) {
+            return null;
+        }
+        return repository;
+    }
+
+    private final BitSet anyRule = new BitSet();
+
+    private final Map<String, BitSet> exactRules = new HashMap<>();
+
+    private final Map<String, BitSet> repositoryRules = new HashMap<>();
+
+    private final Map<RuleKey, BitSet> ruleCache = new ConcurrentHashMap<>();
+
+    private final GlobPattern[] ruleMatchers;
+
+    private final BitSet wildcardRules = new BitSet();
+
+    /**
+     * Create a new {@link RuleIndex} for the given rule patterns
+     *
+     * @param rulePatterns the rule patterns to compile, a {@code null} rule pattern never matches
+     */
+    RuleIndex(final List<String> rulePatterns) {
+        final Map<String, GlobPattern> compiled = new HashMap<>();
+        ruleMatchers = new GlobPattern[rulePatterns.size()];
+        for (int i = 0; i < ruleMatchers.length; i++) {
+            final String rulePattern = rulePatterns.get(i);
+            if (rulePattern == null) {
+                continue;
+            }
+            ruleMatchers[i] = compile(compiled, rulePattern);
+
+            if (ANY_RULE.equals(rulePattern)) {
+                anyRule.set(i);
+                continue;
+            }
+
+            if (PatternIndex.isLiteral(rulePattern)) {
+                add(exactRules, PatternIndex.normalizeLiteral(rulePattern), i);
+                continue;
+            }
+
+            final String repository = getRepository(rulePattern);
+            if (repository != null) {
+                add(repositoryRules, repository, i);
+                continue;
+            }
+
+            wildcardRules.set(i);
+        }
+    }
+
+    /**
+     * Returns the indices of all rule patterns that match the given {@link RuleKey}
+     *
+     * @param ruleKey the {@link RuleKey} of the issue
+     *
+     * @return the {@link BitSet} of the indices of all matching rule patterns, must not be modified
+     */
+    BitSet match(final RuleKey ruleKey) {
+        BitSet indices = ruleCache.get(ruleKey);
+        if (indices == null) {
+            indices = compute(ruleKey.repository() + ":" + ruleKey.rule());
+            ruleCache.put(ruleKey, indices);
+        }
+        return indices;
+    }
+
+    private BitSet compute(final String rule) {
+        final BitSet indices = new BitSet(ruleMatchers.length);
+        if ((rule.indexOf('/') >= 0) || (rule.indexOf('\\') >= 0)) {
+            // separators are handled specially by the wildcard matching, so don't rely on the buckets
+            for (int i = 0; i < ruleMatchers.length; i++) {
+                if ((ruleMatchers[i] != null) && ruleMatchers[i].match(rule)) {
+                    indices.set(i);
+                }
+            }
+            return indices;
+        }
+
+        indices.or(anyRule);
+
+        final BitSet exact = exactRules.get(rule);
+        if (exact != null) {
+            indices.or(exact);
+        }
+
+        final BitSet repository = repositoryRules.get(StringUtils.substringBefore(rule, ":"));
+        if (repository != null) {
+            indices.or(repository);
+        }
+
+        for (int index = wildcardRules.nextSetBit(0); index >= 0; index = wildcardRules.nextSetBit(index + 1)) {
+            if (ruleMatchers[index].match(rule)) {
+                indices.set(index);
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * {@link Utf8Reader} reads the characters of a {@link ByteBuffer}, eg. a file that is mapped into memory,
+ * so large ignore files are parsed straight from the page cache without copying them into the heap.
+ * Runs of ASCII bytes are converted directly, all other bytes are decoded as UTF-8
+ */
+final class Utf8Reader extends Reader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer bytes;
+
+    private final CharsetDecoder decoder = UTF_8.newDecoder() //
+            .onMalformedInput(CodingErrorAction.REPLACE) //
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final CharBuffer pending = CharBuffer.allocate(2);
+
+    Utf8Reader(final ByteBuffer bytes) {
+        this.bytes = bytes;
+        pending.flip();
+    }
+
+    @Override
+    public void close() {
+        // the mapping is released by the garbage collector
+    }
+
+    private int decode(final char[] buffer, final int offset, final int length) {
+        final CharBuffer target = CharBuffer.wrap(buffer, offset, length);
+        final CoderResult result = decoder.decode(bytes, target, true);
+        if (result.isOverflow() && (target.position() == offset)) {
+            // a surrogate pair doesn't fit into the remaining space
+            pending.clear();
+            decoder.decode(bytes, pending, true);
+            pending.flip();
+            buffer[offset] = pending.get();
+            return 1;
+        }
+        if (!bytes.hasRemaining()) {
+            decoder.flush(target);
+        }
+        return target.position() - offset;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (pending.hasRemaining()) {
+            buffer[offset] = pending.get();
+            return 1;
+        }
+        if (!bytes.hasRemaining()) {
+            return -1;
+        }
+
+        int count = 0;
+        int position = bytes.position();
+        final int limit = Math.min(bytes.limit(), position + length);
+        while (position < limit) {
+            final byte b = bytes.get(position);
+            if (b < 0) {
+                break;
+            }
+            buffer[offset + count] = (char) b;
+            count++;
+            position++;
+        }
+        bytes.position(position);
+
+        if (count > 0) {
+            return count;
+        }
+        return decode(buffer, offset, length);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.configuration.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class ConfigurationHelperTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGetFiles() throws Exception {
+        final File first = temporaryFolder.newFile("first.ignore");
+        final File second = temporaryFolder.newFile("second.ignore");
+        final String root = temporaryFolder.getRoot().getAbsolutePath();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString("key")).thenReturn(second.getAbsolutePath() + " , " + root + "/missing.ignore,, " + root + "/f*.ignore");
+        final List<File> files = ConfigurationHelper.getFiles(configuration, "key");
+        Assert.assertEquals("files must match", Arrays.asList(second, first), files);
+    }
+
+    @Test
+    public void testGetFilesMissing() throws Exception {
+        Assert.assertTrue("files must be empty", ConfigurationHelper.getFiles(null, "key").isEmpty());
+        Assert.assertTrue("files must be empty", ConfigurationHelper.getFiles(Mockito.mock(Configuration.class), "key").isEmpty());
+    }
+
+    @Test
+    public void testGetFilesSplit() throws Exception {
+        final File first = temporaryFolder.newFile("first.ignore");
+        final File second = temporaryFolder.newFile("second.ignore");
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getStringArray("key")).thenReturn(new String[] { first.getAbsolutePath(), second.getAbsolutePath() });
+        final List<File> files = ConfigurationHelper.getFiles(configuration, "key");
+        Assert.assertEquals("files must match", Arrays.asList(first, second), files);
+    }
+
+    @Test
+    public void testGetInt() throws Exception {
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString("key")).thenReturn(" 42 ");
+        Assert.assertEquals("value must be read", 42, ConfigurationHelper.getInt(configuration, "key", 7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetIntInvalid() throws Exception {
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString("key")).thenReturn("many");
+        ConfigurationHelper.getInt(configuration, "key", 7);
+        Assert.fail("invalid value must not be accepted");
+    }
+
+    @Test
+    public void testGetIntMissing() throws Exception {
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Assert.assertEquals("default value must be used", 7, ConfigurationHelper.getInt(configuration, "key", 7));
+        Assert.assertEquals("default value must be used", 7, ConfigurationHelper.getInt(null, "key", 7));
+    }
+}
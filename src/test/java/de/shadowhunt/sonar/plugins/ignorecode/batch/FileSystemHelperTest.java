@@ -0,0 +1,48 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+public class FileSystemHelperTest {
+
+    @Test
+    public void testGetLineCount() throws Exception {
+        final FilePredicate predicate = Mockito.mock(FilePredicate.class);
+        final FilePredicates predicates = Mockito.mock(FilePredicates.class);
+        Mockito.when(predicates.hasRelativePath("src/Foo.java")).thenReturn(predicate);
+        final InputFile inputFile = Mockito.mock(InputFile.class);
+        Mockito.when(inputFile.lines()).thenReturn(42);
+        final FileSystem fileSystem = Mockito.mock(FileSystem.class);
+        Mockito.when(fileSystem.predicates()).thenReturn(predicates);
+        Mockito.when(fileSystem.inputFile(predicate)).thenReturn(inputFile);
+
+        Assert.assertEquals("number of lines must match", 42, FileSystemHelper.getLineCount(fileSystem, "src/Foo.java"));
+        Assert.assertEquals("unknown resource", FileSystemHelper.UNKNOWN_LINE_COUNT, FileSystemHelper.getLineCount(fileSystem, "src/Bar.java"));
+    }
+
+    @Test
+    public void testGetLineCountNull() throws Exception {
+        Assert.assertEquals("no file system", FileSystemHelper.UNKNOWN_LINE_COUNT, FileSystemHelper.getLineCount(null, "src/Foo.java"));
+    }
+}
@@ -28,6 +28,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.batch.DecoratorContext;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
 import org.sonar.api.resources.Directory;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Scopes;
@@ -38,6 +40,14 @@ import de.shadowhunt.sonar.plugins.ignorecode.model.CoveragePattern;
 
 public class IgnoreCoverageDecoratorTest {
 
+    private static IgnoreCoverageDecorator createDecorator(final Configuration configuration) {
+        return new IgnoreCoverageDecorator(new SharedIgnoreIndex(configuration, new PatternRegistry()), null);
+    }
+
+    private static List<CoveragePattern> loadPatterns(final Configuration configuration) {
+        return new SharedIgnoreIndex(configuration, new PatternRegistry()).getIndex().getCoveragePatterns();
+    }
+
     @Rule
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
@@ -51,7 +61,7 @@ public class IgnoreCoverageDecoratorTest {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(configFile.getAbsolutePath());
 
-        final IgnoreCoverageDecorator decorator = new IgnoreCoverageDecorator(configuration);
+        final IgnoreCoverageDecorator decorator = createDecorator(configuration);
         decorator.setModifyMeasures(Mockito.mock(ModifyMeasures.class));
 
         final org.sonar.api.resources.File file = org.sonar.api.resources.File.create("src/java/net/example/Foo.java");
@@ -69,7 +79,7 @@ public class IgnoreCoverageDecoratorTest {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(configFile.getAbsolutePath());
 
-        final IgnoreCoverageDecorator decorator = new IgnoreCoverageDecorator(configuration);
+        final IgnoreCoverageDecorator decorator = createDecorator(configuration);
 
         final org.sonar.api.resources.File file = org.sonar.api.resources.File.create("src/java/net/example/Foo.java");
         final DecoratorContext context = Mockito.mock(DecoratorContext.class);
@@ -79,7 +89,7 @@ public class IgnoreCoverageDecoratorTest {
     @Test
     public void testDecorateDirectory() throws Exception {
         final Configuration configuration = Mockito.mock(Configuration.class);
-        final IgnoreCoverageDecorator decorator = new IgnoreCoverageDecorator(configuration);
+        final IgnoreCoverageDecorator decorator = createDecorator(configuration);
 
         final Directory directory = Mockito.mock(Directory.class);
         Mockito.when(directory.getScope()).thenReturn(Scopes.DIRECTORY);
@@ -97,7 +107,7 @@ public class IgnoreCoverageDecoratorTest {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(configFile.getAbsolutePath());
 
-        final IgnoreCoverageDecorator decorator = new IgnoreCoverageDecorator(configuration);
+        final IgnoreCoverageDecorator decorator = createDecorator(configuration);
         decorator.setModifyMeasures(Mockito.mock(ModifyMeasures.class));
 
         final org.sonar.api.resources.File file = org.sonar.api.resources.File.create("src/java/net/example/Bar.java");
@@ -109,7 +119,7 @@ public class IgnoreCoverageDecoratorTest {
     public void testLoadPatternsEmptyConfigFile() {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn("");
-        final List<CoveragePattern> patterns = IgnoreCoverageDecorator.loadPatterns(configuration);
+        final List<CoveragePattern> patterns = loadPatterns(configuration);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertTrue("List must be empty", patterns.isEmpty());
     }
@@ -123,7 +133,7 @@ public class IgnoreCoverageDecoratorTest {
 
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
-        final List<CoveragePattern> patterns = IgnoreCoverageDecorator.loadPatterns(configuration);
+        final List<CoveragePattern> patterns = loadPatterns(configuration);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertEquals("List must contain the exact number of entries", 1, patterns.size());
     }
@@ -137,7 +147,7 @@ public class IgnoreCoverageDecoratorTest {
 
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
-        IgnoreCoverageDecorator.loadPatterns(configuration);
+        loadPatterns(configuration);
         Assert.fail("must not load invalid file");
     }
 
@@ -145,22 +155,31 @@ public class IgnoreCoverageDecoratorTest {
     public void testLoadPatternsNoConfigFile() {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn("no file");
-        final List<CoveragePattern> patterns = IgnoreCoverageDecorator.loadPatterns(configuration);
+        final List<CoveragePattern> patterns = loadPatterns(configuration);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertTrue("List must be empty", patterns.isEmpty());
     }
 
     @Test
     public void testLoadPatternsNull() throws Exception {
-        final List<CoveragePattern> patterns = IgnoreCoverageDecorator.loadPatterns(null);
+        final List<CoveragePattern> patterns = loadPatterns(null);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertTrue("List must be empty", patterns.isEmpty());
     }
 
+    @Test
+    public void testGetLineCount() throws Exception {
+        final DecoratorContext context = Mockito.mock(DecoratorContext.class);
+        Assert.assertEquals("unknown number of lines", FileSystemHelper.UNKNOWN_LINE_COUNT, IgnoreCoverageDecorator.getLineCount(context));
+
+        Mockito.when(context.getMeasure(CoreMetrics.LINES)).thenReturn(new Measure(CoreMetrics.LINES, 20.0));
+        Assert.assertEquals("number of lines must match", 20, IgnoreCoverageDecorator.getLineCount(context));
+    }
+
     @Test
     public void testShouldExecuteOnProject() throws Exception {
         final Configuration configuration = Mockito.mock(Configuration.class);
-        final IgnoreCoverageDecorator decorator = new IgnoreCoverageDecorator(configuration);
+        final IgnoreCoverageDecorator decorator = createDecorator(configuration);
         final Project project = Mockito.mock(Project.class);
         Assert.assertTrue("decorate every project", decorator.shouldExecuteOnProject(project));
     }
@@ -17,8 +17,6 @@
 package de.shadowhunt.sonar.plugins.ignorecode.batch;
 
 import java.io.PrintWriter;
-import java.util.Collections;
-import java.util.Set;
 
 import org.apache.commons.configuration.Configuration;
 import org.junit.Assert;
@@ -33,8 +31,14 @@ import org.sonar.api.resources.Directory;
 import org.sonar.api.resources.File;
 import org.sonar.api.resources.Scopes;
 
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+
 public class IgnoreCoverageMeasurementFilterTest {
 
+    private static IgnoreCoverageMeasurementFilter createFilter(final Configuration configuration) {
+        return new IgnoreCoverageMeasurementFilter(new SharedIgnoreIndex(configuration, new PatternRegistry()), null);
+    }
+
     @Rule
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
@@ -48,7 +52,7 @@ public class IgnoreCoverageMeasurementFilterTest {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(configFile.getAbsolutePath());
 
-        final IgnoreCoverageMeasurementFilter filter = new IgnoreCoverageMeasurementFilter(configuration);
+        final IgnoreCoverageMeasurementFilter filter = createFilter(configuration);
 
         final File file = File.create("src/java/net/example/Foo.java");
         Assert.assertTrue("measure modified but accepted", filter.accept(file, new Measure(CoreMetrics.COVERAGE, 42.0)));
@@ -64,7 +68,7 @@ public class IgnoreCoverageMeasurementFilterTest {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(configFile.getAbsolutePath());
 
-        final IgnoreCoverageMeasurementFilter filter = new IgnoreCoverageMeasurementFilter(configuration);
+        final IgnoreCoverageMeasurementFilter filter = createFilter(configuration);
 
         final File file = File.create("src/java/net/example/Foo.java");
         Assert.assertFalse("matching on all lines", filter.accept(file, new Measure(CoreMetrics.COVERAGE, 42.0)));
@@ -73,7 +77,7 @@ public class IgnoreCoverageMeasurementFilterTest {
     @Test
     public void testAcceptDirectory() throws Exception {
         final Configuration configuration = Mockito.mock(Configuration.class);
-        final IgnoreCoverageMeasurementFilter filter = new IgnoreCoverageMeasurementFilter(configuration);
+        final IgnoreCoverageMeasurementFilter filter = createFilter(configuration);
 
         final Directory directory = Mockito.mock(Directory.class);
         Mockito.when(directory.getScope()).thenReturn(Scopes.DIRECTORY);
@@ -83,10 +87,9 @@ public class IgnoreCoverageMeasurementFilterTest {
     @Test
     public void testAcceptNotFilteredMetric() throws Exception {
         final Configuration configuration = Mockito.mock(Configuration.class);
-        final IgnoreCoverageMeasurementFilter filter = new IgnoreCoverageMeasurementFilter(configuration);
+        final IgnoreCoverageMeasurementFilter filter = createFilter(configuration);
 
-        final File file = Mockito.mock(File.class);
-        Mockito.when(file.getScope()).thenReturn(Scopes.FILE);
+        final File file = File.create("src/java/net/example/Foo.java");
         final Metric metric = Mockito.mock(Metric.class);
         Mockito.when(metric.getKey()).thenReturn("test");
         Assert.assertTrue("don't filter directories", filter.accept(file, new Measure(metric, 42.0)));
@@ -102,7 +105,7 @@ public class IgnoreCoverageMeasurementFilterTest {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(configFile.getAbsolutePath());
 
-        final IgnoreCoverageMeasurementFilter filter = new IgnoreCoverageMeasurementFilter(configuration);
+        final IgnoreCoverageMeasurementFilter filter = createFilter(configuration);
 
         final File file = File.create("src/java/net/example/Bar.java");
         Assert.assertTrue("non matching file", filter.accept(file, new Measure(CoreMetrics.COVERAGE, 42.0)));
@@ -111,9 +114,9 @@ public class IgnoreCoverageMeasurementFilterTest {
     @Test
     public void testRewrite() throws Exception {
         final Configuration configuration = Mockito.mock(Configuration.class);
-        final IgnoreCoverageMeasurementFilter filter = new IgnoreCoverageMeasurementFilter(configuration);
+        final IgnoreCoverageMeasurementFilter filter = createFilter(configuration);
 
-        final Set<Integer> lines = Collections.emptySet();
+        final LineSet lines = LineSet.EMPTY;
         // unit test
         filter.rewrite(new Measure(CoreMetrics.COVERAGE, 42.0), lines);
         filter.rewrite(new Measure(CoreMetrics.CONDITIONS_BY_LINE, 42.0), lines);
@@ -0,0 +1,72 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IgnoreFileResolverTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File createFile(final String path) throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), path);
+        Assert.assertTrue("directory must exist", file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        Assert.assertTrue("file must be created", file.createNewFile());
+        return file;
+    }
+
+    @Test
+    public void testIsGlob() throws Exception {
+        Assert.assertFalse("path must not be a glob", IgnoreFileResolver.isGlob("ignores/foo.ignore"));
+        Assert.assertTrue("path must be a glob", IgnoreFileResolver.isGlob("ignores/*.ignore"));
+        Assert.assertTrue("path must be a glob", IgnoreFileResolver.isGlob("ignores/foo?.ignore"));
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        final File root = temporaryFolder.getRoot();
+        Assert.assertEquals("relative path must be resolved", Collections.singletonList(new File(root, "missing.ignore")), IgnoreFileResolver.resolve(root, "missing.ignore"));
+        final File absolute = new File(root, "foo.ignore");
+        Assert.assertEquals("absolute path must be kept", Collections.singletonList(absolute), IgnoreFileResolver.resolve(null, absolute.getAbsolutePath()));
+    }
+
+    @Test
+    public void testResolveGlob() throws Exception {
+        final File a = createFile("ignores/a.ignore");
+        final File b = createFile("ignores/b.ignore");
+        createFile("ignores/c.txt");
+        final File nested = createFile("ignores/team/d.ignore");
+        final File root = temporaryFolder.getRoot();
+
+        final List<File> files = IgnoreFileResolver.resolve(root, "ignores/*.ignore");
+        Assert.assertEquals("files must match", Arrays.asList(a, b), files);
+
+        final List<File> recursive = IgnoreFileResolver.resolve(null, root.getAbsolutePath() + "/ignores/**/*.ignore");
+        Assert.assertEquals("files must match", Arrays.asList(a, b, nested), recursive);
+
+        Assert.assertTrue("missing directory must not match", IgnoreFileResolver.resolve(root, "missing/*.ignore").isEmpty());
+    }
+}
@@ -19,9 +19,8 @@ package de.shadowhunt.sonar.plugins.ignorecode.batch;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import org.apache.commons.configuration.Configuration;
 import org.junit.Assert;
@@ -30,6 +29,10 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.batch.IssueFilterChain;
 import org.sonar.api.rule.RuleKey;
@@ -37,6 +40,8 @@ import org.sonar.api.utils.SonarException;
 import org.sonar.core.issue.DefaultIssueBuilder;
 
 import de.shadowhunt.sonar.plugins.ignorecode.model.IssuePattern;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineHashes;
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
 
 public class IgnoreIssueFilterTest {
 
@@ -58,6 +63,24 @@ public class IgnoreIssueFilterTest {
         DEFAULT_ISSUE = ib.build();
     }
 
+    private static IgnoreIssueFilter createFilter(final Configuration configuration, final LineHashCache lineHashCache) {
+        return new IgnoreIssueFilter(configuration, lineHashCache, new SharedIgnoreIndex(configuration, new PatternRegistry()));
+    }
+
+    private static List<IssuePattern> loadPatterns(final Configuration configuration) {
+        return new SharedIgnoreIndex(configuration, new PatternRegistry()).getIndex().getIssuePatterns();
+    }
+
+    @Test
+    public void getResourceKey() {
+        final String[] componentKeys = { "", "project", "group:project", "group:project:", "group:project:src/Foo.java", "group:project:src/Foo.java:", "group:project:src/Foo.java::", "group:project:src/Foo.java:bar", "::src/Foo.java", "group::", ":::" };
+        for (final String componentKey : componentKeys) {
+            final String[] parts = componentKey.split(":");
+            final String expected = (parts.length == 3) ? parts[2] : null;
+            Assert.assertEquals("resource key of " + componentKey + " must match", expected, IgnoreIssueFilter.getResourceKey(componentKey));
+        }
+    }
+
     @Test
     public void isIgnored() throws IOException {
         final File tempFile = temporaryFolder.newFile("issue.txt");
@@ -68,14 +91,105 @@ public class IgnoreIssueFilterTest {
 
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
-        final IgnoreIssueFilter filter = new IgnoreIssueFilter(configuration);
+        final IgnoreIssueFilter filter = createFilter(configuration, null);
 
         Assert.assertFalse("mating ignore", filter.accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
     }
 
+    @Test
+    public void isIgnoredAdaptiveOrder() throws IOException {
+        final File tempFile = temporaryFolder.newFile("issue.txt");
+        final PrintWriter writer = new PrintWriter(tempFile);
+        writer.println("**/*;pmd:AbstractClassWithoutAnyMethod;*");
+        writer.println("**/foo/*;*;[1-10]");
+        writer.println("**/*;*;*");
+        writer.close();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
+        Mockito.when(configuration.getBoolean(IgnoreIssueFilter.ADAPTIVE_ORDER, false)).thenReturn(true);
+        final IgnoreIssueFilter filter = createFilter(configuration, null);
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertFalse("mating ignore", filter.accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+        }
+    }
+
+    @Test
+    public void isIgnoredFromEnd() throws IOException {
+        final File tempFile = temporaryFolder.newFile("issue.txt");
+        final PrintWriter writer = new PrintWriter(tempFile);
+        writer.println("**/*;*;[$-5-$]");
+        writer.close();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
+        Assert.assertTrue("unknown number of lines", createFilter(configuration, null).accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+
+        final FilePredicate predicate = Mockito.mock(FilePredicate.class);
+        final FilePredicates predicates = Mockito.mock(FilePredicates.class);
+        Mockito.when(predicates.hasRelativePath("src/main/java/net/example/foo/Bar.java")).thenReturn(predicate);
+        final InputFile inputFile = Mockito.mock(InputFile.class);
+        // the issue is on line 5, so it is one of the last 5 lines of a file with 9 lines
+        Mockito.when(inputFile.lines()).thenReturn(9);
+        final FileSystem fileSystem = Mockito.mock(FileSystem.class);
+        Mockito.when(fileSystem.predicates()).thenReturn(predicates);
+        Mockito.when(fileSystem.inputFile(predicate)).thenReturn(inputFile);
+        Assert.assertFalse("mating ignore", createFilter(configuration, new LineHashCache(fileSystem)).accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+
+        Mockito.when(inputFile.lines()).thenReturn(10);
+        Assert.assertTrue("no mating ignore", createFilter(configuration, new LineHashCache(fileSystem)).accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+    }
+
+    @Test
+    public void isIgnoredContentHash() throws IOException {
+        final File source = temporaryFolder.newFile("Bar.java");
+        final PrintWriter sourceWriter = new PrintWriter(source, "UTF-8");
+        for (int i = 1; i <= 10; i++) {
+            sourceWriter.println("line " + i);
+        }
+        sourceWriter.close();
+
+        final File tempFile = temporaryFolder.newFile("issue.txt");
+        final PrintWriter writer = new PrintWriter(tempFile);
+        writer.println("**/*;*;#h:" + LineHashes.toHex(LineHashes.hash("  line  5")).substring(0, 6));
+        writer.close();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
+        Assert.assertTrue("unknown content", createFilter(configuration, null).accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+
+        final FilePredicate predicate = Mockito.mock(FilePredicate.class);
+        final FilePredicates predicates = Mockito.mock(FilePredicates.class);
+        Mockito.when(predicates.hasRelativePath("src/main/java/net/example/foo/Bar.java")).thenReturn(predicate);
+        final InputFile inputFile = Mockito.mock(InputFile.class);
+        Mockito.when(inputFile.file()).thenReturn(source);
+        final FileSystem fileSystem = Mockito.mock(FileSystem.class);
+        Mockito.when(fileSystem.predicates()).thenReturn(predicates);
+        Mockito.when(fileSystem.inputFile(predicate)).thenReturn(inputFile);
+        Mockito.when(fileSystem.encoding()).thenReturn(Charset.forName("UTF-8"));
+        final LineHashCache lineHashCache = new LineHashCache(fileSystem);
+        Assert.assertFalse("mating ignore", createFilter(configuration, lineHashCache).accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+        Assert.assertEquals("content hashes must be cached", 1, lineHashCache.getCache().size());
+    }
+
+    @Test
+    public void isIgnoredSharedIndex() throws IOException {
+        final File tempFile = temporaryFolder.newFile("ignore.txt");
+        final PrintWriter writer = new PrintWriter(tempFile);
+        writer.println("coverage;**/*;*");
+        writer.println("issue;**/*;pmd:*;*");
+        writer.close();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
+        final SharedIgnoreIndex sharedIndex = new SharedIgnoreIndex(configuration, new PatternRegistry());
+        Assert.assertFalse("mating ignore", new IgnoreIssueFilter(configuration, null, sharedIndex).accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
+    }
+
     @Test
     public void isIgnoredNoIgnores() {
-        final IgnoreIssueFilter filter = new IgnoreIssueFilter(null);
+        final IgnoreIssueFilter filter = createFilter(null, null);
         Assert.assertTrue("no ignores => all false", filter.accept(DEFAULT_ISSUE, DEFAULT_CHAIN));
     }
 
@@ -83,7 +197,7 @@ public class IgnoreIssueFilterTest {
     public void loadPatternsEmptyConfigFile() {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn("");
-        final List<IssuePattern> patterns = IgnoreIssueFilter.loadPatterns(configuration);
+        final List<IssuePattern> patterns = loadPatterns(configuration);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertTrue("List must be empty", patterns.isEmpty());
     }
@@ -97,11 +211,43 @@ public class IgnoreIssueFilterTest {
 
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
-        final List<IssuePattern> patterns = IgnoreIssueFilter.loadPatterns(configuration);
+        final List<IssuePattern> patterns = loadPatterns(configuration);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertEquals("List must contain the exact number of entries", 1, patterns.size());
     }
 
+    @Test(expected = SonarException.class)
+    public void loadPatternsComplexFile() throws IOException {
+        final File tempFile = temporaryFolder.newFile("issue.txt");
+        final PrintWriter writer = new PrintWriter(tempFile);
+        writer.println("**/*;*;*");
+        writer.println("src/*/*/*/**/*;*;*");
+        writer.close();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
+        Mockito.when(configuration.getString(IgnoreIssueFilter.MAX_COMPLEXITY)).thenReturn("4");
+        loadPatterns(configuration);
+        Assert.fail("must not load too complex patterns");
+    }
+
+    @Test
+    public void loadPatternsDuplicateFile() throws IOException {
+        final File tempFile = temporaryFolder.newFile("issue.txt");
+        final PrintWriter writer = new PrintWriter(tempFile);
+        writer.println("src/Foo.java;*;[10-18]");
+        writer.println("src/Foo.java;pmd:*;[19]");
+        writer.println("src/Foo.java;*;[19-20]");
+        writer.close();
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
+        final List<IssuePattern> patterns = loadPatterns(configuration);
+        Assert.assertNotNull("List must not be null", patterns);
+        Assert.assertEquals("List must contain the exact number of entries", 2, patterns.size());
+        Assert.assertEquals("lines must be merged", "[10-20]", patterns.get(0).getLines().toString());
+    }
+
     @Test(expected = SonarException.class)
     public void loadPatternsInvalidFile() throws IOException {
         final File tempFile = temporaryFolder.newFile("issue.txt");
@@ -111,7 +257,7 @@ public class IgnoreIssueFilterTest {
 
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(tempFile.getAbsolutePath());
-        IgnoreIssueFilter.loadPatterns(configuration);
+        loadPatterns(configuration);
         Assert.fail("must not load invalid file");
     }
 
@@ -119,76 +265,76 @@ public class IgnoreIssueFilterTest {
     public void loadPatternsNoConfigFile() {
         final Configuration configuration = Mockito.mock(Configuration.class);
         Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn("no file");
-        final List<IssuePattern> patterns = IgnoreIssueFilter.loadPatterns(configuration);
+        final List<IssuePattern> patterns = loadPatterns(configuration);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertTrue("List must be empty", patterns.isEmpty());
     }
 
     @Test
     public void loadPatternsNull() {
-        final List<IssuePattern> patterns = IgnoreIssueFilter.loadPatterns(null);
+        final List<IssuePattern> patterns = loadPatterns(null);
         Assert.assertNotNull("List must not be null", patterns);
         Assert.assertTrue("List must be empty", patterns.isEmpty());
     }
 
     @Test
     public void matchAnyResourceMatchingRuleMatchingLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(5);
-        final IssuePattern pattern = new IssuePattern("**/*", "pmd:AbstractClassWithoutAbstractMethod", lines);
+        final IssuePattern pattern = new IssuePattern("**/*", "pmd:AbstractClassWithoutAbstractMethod", lines.build());
 
         Assert.assertTrue("must match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
 
     @Test
     public void matchMatchingResourceAnyRuleMatchingLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(5);
-        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "*", lines);
+        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "*", lines.build());
 
         Assert.assertTrue("must match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
 
     @Test
     public void matchMatchingResourceMatchingRuleAnyLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
-        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAbstractMethod", lines);
+        final LineSet.Builder lines = new LineSet.Builder();
+        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAbstractMethod", lines.build());
 
         Assert.assertTrue("must match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
 
     @Test
     public void matchMatchingResourceMatchingRuleMatchingLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(5);
-        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAbstractMethod", lines);
+        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAbstractMethod", lines.build());
 
         Assert.assertTrue("must match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
 
     @Test
     public void matchMatchingResourceMatchingRuleNotMatchingLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(4);
-        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAnyMethod", lines);
+        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAnyMethod", lines.build());
 
         Assert.assertFalse("must not match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
 
     @Test
     public void matchMatchingResourceNotMatchingRuleMatchingLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(5);
-        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAnyMethod", lines);
+        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Bar.java", "pmd:AbstractClassWithoutAnyMethod", lines.build());
 
         Assert.assertFalse("must not match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
 
     @Test
     public void matchNotMatchingResourceMatchingRuleMatchingLine() {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(5);
-        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Foo.java", "pmd:AbstractClassWithoutAnyMethod", lines);
+        final IssuePattern pattern = new IssuePattern("src/main/java/net/example/foo/Foo.java", "pmd:AbstractClassWithoutAnyMethod", lines.build());
 
         Assert.assertFalse("must not match", IgnoreIssueFilter.match(DEFAULT_ISSUE, pattern));
     }
@@ -201,10 +347,13 @@ public class IgnoreIssueFilterTest {
         Assert.assertTrue("exact pattern must match", IgnoreIssueFilter.matchResource(componentKey, "src/main/java/net/example/foo/Bar.java"));
         Assert.assertTrue("net.** pattern must match", IgnoreIssueFilter.matchResource(componentKey, "src/main/java/net/**"));
         Assert.assertTrue("net.example.foo.B?r pattern must match", IgnoreIssueFilter.matchResource(componentKey, "src/main/java/net/example/foo/B?r.java"));
+        Assert.assertTrue("pkg:net.** pattern must match", IgnoreIssueFilter.matchResource(componentKey, "pkg:net.**"));
+        Assert.assertTrue("pkg:net.example.*.Bar pattern must match", IgnoreIssueFilter.matchResource(componentKey, "pkg:net.example.*.Bar"));
 
         Assert.assertFalse("* pattern must not match", IgnoreIssueFilter.matchResource(componentKey, "*"));
         Assert.assertFalse("empty pattern must not match", IgnoreIssueFilter.matchResource(componentKey, ""));
         Assert.assertFalse("net.**.Foo pattern must match", IgnoreIssueFilter.matchResource(componentKey, "src/main/java/net/**/Foo"));
+        Assert.assertFalse("pkg:net.*.Bar pattern must not match", IgnoreIssueFilter.matchResource(componentKey, "pkg:net.*.Bar"));
     }
 
     @Test
@@ -0,0 +1,87 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineHashes;
+
+public class LineHashCacheTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileSystem createFileSystem(final File file) {
+        final FilePredicate predicate = Mockito.mock(FilePredicate.class);
+        final FilePredicates predicates = Mockito.mock(FilePredicates.class);
+        Mockito.when(predicates.hasRelativePath("src/Foo.java")).thenReturn(predicate);
+        final InputFile inputFile = Mockito.mock(InputFile.class);
+        Mockito.when(inputFile.file()).thenReturn(file);
+        Mockito.when(inputFile.lines()).thenReturn(3);
+        final FileSystem fileSystem = Mockito.mock(FileSystem.class);
+        Mockito.when(fileSystem.predicates()).thenReturn(predicates);
+        Mockito.when(fileSystem.inputFile(predicate)).thenReturn(inputFile);
+        Mockito.when(fileSystem.encoding()).thenReturn(Charset.forName("UTF-8"));
+        return fileSystem;
+    }
+
+    @Test
+    public void testGetLineCount() throws Exception {
+        final LineHashCache lineHashCache = new LineHashCache(createFileSystem(temporaryFolder.newFile("Foo.java")));
+        Assert.assertEquals("number of lines must match", 3, lineHashCache.getLineCount("src/Foo.java"));
+        Assert.assertEquals("unknown resource", FileSystemHelper.UNKNOWN_LINE_COUNT, lineHashCache.getLineCount("src/Bar.java"));
+        Assert.assertEquals("resource must not be read", 0, lineHashCache.getCache().size());
+    }
+
+    @Test
+    public void testGetLineHashes() throws Exception {
+        final File file = temporaryFolder.newFile("Foo.java");
+        final PrintWriter writer = new PrintWriter(file, "UTF-8");
+        writer.println("class Foo {");
+        writer.println("    int i;");
+        writer.println("}");
+        writer.close();
+
+        final LineHashCache lineHashCache = new LineHashCache(createFileSystem(file));
+        final LineHashes lineHashes = lineHashCache.getLineHashes("src/Foo.java");
+        Assert.assertNotNull("LineHashes must not be null", lineHashes);
+        Assert.assertEquals("number of lines must match", 3, lineHashes.getLineCount());
+        Assert.assertEquals("hash of line 2 must match", LineHashes.hash("int i;"), lineHashes.getHash(2));
+        Assert.assertSame("LineHashes must be cached", lineHashes, lineHashCache.getLineHashes("src/Foo.java"));
+        Assert.assertEquals("cache hits must match", 1L, lineHashCache.getCache().getHits());
+    }
+
+    @Test
+    public void testGetLineHashesMissing() throws Exception {
+        final LineHashCache lineHashCache = new LineHashCache(createFileSystem(new File(temporaryFolder.getRoot(), "missing.java")));
+        Assert.assertNull("unknown resource", lineHashCache.getLineHashes("src/Bar.java"));
+        Assert.assertNull("unreadable resource", lineHashCache.getLineHashes("src/Foo.java"));
+        Assert.assertNull("no file system", new LineHashCache(null).getLineHashes("src/Foo.java"));
+    }
+}
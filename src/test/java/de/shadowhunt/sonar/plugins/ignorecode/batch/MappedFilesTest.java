@@ -0,0 +1,53 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFilesTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMap() throws Exception {
+        final File file = temporaryFolder.newFile();
+        final FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write("src/Foo.java;*\n".getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+
+        final ByteBuffer content = MappedFiles.map(file);
+        Assert.assertEquals("number of bytes must match", 15, content.remaining());
+        Assert.assertEquals("first byte must match", 's', content.get(0));
+        Assert.assertEquals("last byte must match", '\n', content.get(14));
+    }
+
+    @Test
+    public void testMapEmpty() throws Exception {
+        Assert.assertEquals("number of bytes must match", 0, MappedFiles.map(temporaryFolder.newFile()).remaining());
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.apache.commons.configuration.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+import org.sonar.api.utils.SonarException;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+
+public class PatternRegistryTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Configuration createConfiguration(final File file) {
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(file.getAbsolutePath());
+        return configuration;
+    }
+
+    private File createFile(final String name, final String... lines) throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), name);
+        final PrintWriter writer = new PrintWriter(file);
+        for (final String line : lines) {
+            writer.println(line);
+        }
+        writer.close();
+        return file;
+    }
+
+    @Test
+    public void getIndexChangedFile() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]");
+        final PatternRegistry registry = new PatternRegistry();
+        final IgnoreIndex first = registry.getIndex(createConfiguration(file));
+
+        createFile("ignore.txt", "coverage;src/Foo.java;[1]", "issue;src/Bar.java;*;*");
+        Assert.assertTrue("modification time must be set", file.setLastModified(file.lastModified() - 10000L));
+        final IgnoreIndex second = registry.getIndex(createConfiguration(file));
+        Assert.assertNotSame("changed file must be loaded again", first, second);
+        Assert.assertEquals("file must be loaded twice", 2, registry.getLoadCount());
+        Assert.assertEquals("violation ignores must be loaded", 1, second.getIssuePatterns().size());
+        Assert.assertEquals("outdated ignores must be replaced", 1, registry.getFragmentCount());
+        Assert.assertSame("IgnoreIndex must be reused", second, registry.getIndex(createConfiguration(file)));
+    }
+
+    @Test
+    public void getIndexDifferentSettings() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]");
+        final PatternRegistry registry = new PatternRegistry();
+        final IgnoreIndex first = registry.getIndex(createConfiguration(file));
+
+        final Configuration configuration = createConfiguration(file);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CACHE_SIZE)).thenReturn("7");
+        final IgnoreIndex second = registry.getIndex(configuration);
+        Assert.assertNotSame("different cache size must not share IgnoreIndex", first, second);
+        Assert.assertSame("patterns must be shared", first.getCoveragePatterns().get(0), second.getCoveragePatterns().get(0));
+        Assert.assertEquals("file must be loaded once", 1, registry.getLoadCount());
+    }
+
+    @Test
+    public void getIndexNoConfiguration() throws Exception {
+        final PatternRegistry registry = new PatternRegistry();
+        final IgnoreIndex index = registry.getIndex(null);
+        Assert.assertFalse("IgnoreIndex must not contain coverage ignores", index.hasCoveragePatterns());
+        Assert.assertFalse("IgnoreIndex must not contain violation ignores", index.hasIssuePatterns());
+        Assert.assertEquals("no file must be loaded", 0, registry.getLoadCount());
+    }
+
+    @Test
+    public void getIndexSameFile() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]", "issue;src/Foo.java;pmd:*;[2]");
+        final File coverage = createFile("coverage.txt", "src/Foo.java;[3]");
+        final PatternRegistry registry = new PatternRegistry();
+
+        final Configuration first = createConfiguration(file);
+        Mockito.when(first.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(coverage.getAbsolutePath());
+        final Configuration second = createConfiguration(new File(file.getParentFile(), "./" + file.getName()));
+        Mockito.when(second.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(coverage.getAbsolutePath());
+
+        final IgnoreIndex index = registry.getIndex(first);
+        Assert.assertSame("IgnoreIndex must be shared", index, registry.getIndex(second));
+        Assert.assertSame("IgnoreIndex must be shared", index, new SharedIgnoreIndex(first, registry).getIndex());
+        Assert.assertEquals("each file must be loaded once", 2, registry.getLoadCount());
+        Assert.assertEquals("LineSet must match", "[1,3]", index.getCoveragePatterns().get(0).getLines().toString());
+    }
+
+    @Test
+    public void getIndexSharedFile() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]");
+        final File coverage = createFile("coverage.txt", "src/Foo.java;[3]");
+        final PatternRegistry registry = new PatternRegistry();
+
+        final Configuration configuration = createConfiguration(file);
+        Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(coverage.getAbsolutePath());
+        final IgnoreIndex first = registry.getIndex(configuration);
+        final IgnoreIndex second = registry.getIndex(createConfiguration(file));
+        Assert.assertNotSame("different files must not share IgnoreIndex", first, second);
+        Assert.assertEquals("each file must be loaded once", 2, registry.getLoadCount());
+        Assert.assertEquals("LineSet must match", "[1]", second.getCoveragePatterns().get(0).getLines().toString());
+    }
+
+    @Test
+    public void getIndexSnapshot() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]", "issue;src/Foo.java;pmd:*;[2]");
+        final File workDir = temporaryFolder.newFolder("work");
+        final ProjectReactor reactor = new ProjectReactor(ProjectDefinition.create().setWorkDir(workDir));
+
+        final PatternRegistry first = new PatternRegistry(reactor);
+        final IgnoreIndex parsed = first.getIndex(createConfiguration(file));
+        Assert.assertEquals("file must be parsed", 0, first.getSnapshotCount());
+        Assert.assertEquals("snapshot must be written", 1, new File(workDir, PatternRegistry.SNAPSHOT_FOLDER).list().length);
+
+        final PatternRegistry second = new PatternRegistry(reactor);
+        final IgnoreIndex snapshot = second.getIndex(createConfiguration(file));
+        Assert.assertEquals("snapshot must be loaded", 1, second.getSnapshotCount());
+        Assert.assertEquals("coverage ignores must match", parsed.getCoveragePatterns().toString(), snapshot.getCoveragePatterns().toString());
+        Assert.assertEquals("violation ignores must match", parsed.getIssuePatterns().toString(), snapshot.getIssuePatterns().toString());
+
+        createFile("ignore.txt", "coverage;src/Foo.java;[3]");
+        final PatternRegistry third = new PatternRegistry(reactor);
+        final IgnoreIndex changed = third.getIndex(createConfiguration(file));
+        Assert.assertEquals("changed file must be parsed", 0, third.getSnapshotCount());
+        Assert.assertEquals("outdated snapshot must be removed", 1, new File(workDir, PatternRegistry.SNAPSHOT_FOLDER).list().length);
+        Assert.assertEquals("LineSet must match", "[3]", changed.getCoveragePatterns().get(0).getLines().toString());
+    }
+
+    @Test
+    public void getSnapshotDirectory() throws Exception {
+        Assert.assertNull("without working directory there must be no snapshot directory", new PatternRegistry().getSnapshotDirectory(null));
+        Assert.assertNull("without working directory there must be no snapshot directory", new PatternRegistry(null).getSnapshotDirectory(null));
+
+        final File workDir = temporaryFolder.newFolder("work");
+        final PatternRegistry registry = new PatternRegistry(new ProjectReactor(ProjectDefinition.create().setWorkDir(workDir)));
+        Assert.assertEquals("snapshot directory must be in working directory", new File(workDir, PatternRegistry.SNAPSHOT_FOLDER), registry.getSnapshotDirectory(null));
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(PatternRegistry.SNAPSHOT_DIRECTORY)).thenReturn("/tmp/snapshots");
+        Assert.assertEquals("configured snapshot directory must be used", new File("/tmp/snapshots"), registry.getSnapshotDirectory(configuration));
+    }
+
+    @Test
+    public void getIndexDuplicates() throws Exception {
+        final File shared = createFile("shared.ignore", "coverage;src/Foo.java;[1]", "issue;src/Foo.java;pmd:*;[2]");
+        final File team = createFile("team.ignore", "coverage;src/Foo.java;[1]", "issue;src/Foo.java;pmd:*;[2]", "issue;src/Foo.java;pmd:*;[3]");
+        final File coverage = createFile("coverage.txt", "src/Foo.java;[1]");
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(shared.getAbsolutePath() + "," + team.getAbsolutePath());
+        Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(coverage.getAbsolutePath());
+
+        final PatternRegistry registry = new PatternRegistry();
+        final IgnoreIndex index = registry.getIndex(configuration);
+        Assert.assertEquals("duplicates across files must be dropped", 3, registry.getDuplicateCount());
+        Assert.assertEquals("LineSet must match", "[1]", index.getCoveragePatterns().get(0).getLines().toString());
+        Assert.assertEquals("LineSet must match", "[2-3]", index.getIssuePatterns().get(0).getLines().toString());
+
+        final Configuration single = Mockito.mock(Configuration.class);
+        Mockito.when(single.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(shared.getAbsolutePath());
+        registry.getIndex(single);
+        Assert.assertEquals("duplicates must be counted per combined index", 0, registry.getDuplicateCount());
+    }
+
+    @Test
+    public void getIndexGlob() throws Exception {
+        final File directory = temporaryFolder.newFolder("ignores");
+        createFile("ignores/a.ignore", "coverage;src/Foo.java;[1]");
+        createFile("ignores/b.ignore", "coverage;src/Foo.java;[2]");
+        createFile("ignores/c.ignore", "coverage;src/Foo.java;[3]");
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(directory.getAbsolutePath() + "/*.ignore");
+
+        final PatternRegistry registry = new PatternRegistry();
+        final IgnoreIndex index = registry.getIndex(configuration);
+        Assert.assertEquals("all files must be loaded", 3, registry.getLoadCount());
+        Assert.assertEquals("LineSet must match", "[1-3]", index.getCoveragePatterns().get(0).getLines().toString());
+    }
+
+    @Test
+    public void getIndexInclude() throws Exception {
+        temporaryFolder.newFolder("teams");
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]", "@include teams/*.ignore", "@include shared.ignore");
+        createFile("teams/a.ignore", "issue;src/Foo.java;pmd:*;[2]", "@include ../shared.ignore");
+        createFile("teams/b.ignore", "issue;src/Bar.java;pmd:*;[3]");
+        final File shared = createFile("shared.ignore", "coverage;src/Bar.java;*", "@include ignore.txt");
+
+        final PatternRegistry registry = new PatternRegistry();
+        final IgnoreIndex index = registry.getIndex(createConfiguration(file));
+        Assert.assertEquals("each file must be loaded once", 4, registry.getLoadCount());
+        Assert.assertEquals("coverage ignores must match", "[CoveragePattern [resourcePattern=src/Foo.java, lines=[1]], CoveragePattern [resourcePattern=src/Bar.java, lines=[]]]", index.getCoveragePatterns().toString());
+        Assert.assertEquals("violation ignores must match", 2, index.getIssuePatterns().size());
+
+        createFile("shared.ignore", "coverage;src/Bar.java;[4-5]");
+        Assert.assertTrue("modification time must be set", shared.setLastModified(shared.lastModified() - 10000L));
+        final IgnoreIndex changed = registry.getIndex(createConfiguration(file));
+        Assert.assertNotSame("changed include must not share IgnoreIndex", index, changed);
+        Assert.assertEquals("only the changed include must be loaded again", 5, registry.getLoadCount());
+        Assert.assertEquals("outdated include must be replaced", 4, registry.getFragmentCount());
+        Assert.assertEquals("LineSet must match", "[4-5]", changed.getCoveragePatterns().get(1).getLines().toString());
+    }
+
+    @Test(expected = SonarException.class)
+    public void getIndexInvalidInclude() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;src/Foo.java;[1]", "@include");
+        new PatternRegistry().getIndex(createConfiguration(file));
+        Assert.fail("must not load include directive without path");
+    }
+}
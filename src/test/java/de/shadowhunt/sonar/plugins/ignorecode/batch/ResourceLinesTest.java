@@ -0,0 +1,51 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+
+public class ResourceLinesTest {
+
+    @Test
+    public void testContains() throws Exception {
+        final LineHashCache lineHashCache = Mockito.mock(LineHashCache.class);
+        Mockito.when(lineHashCache.getLineCount("src/Foo.java")).thenReturn(10);
+        final ResourceLines resourceLines = new ResourceLines(lineHashCache, "src/Foo.java", FileSystemHelper.UNKNOWN_LINE_COUNT);
+
+        Assert.assertTrue("absolute line must be contained", resourceLines.contains(LineSet.of(3), 3));
+        Mockito.verifyZeroInteractions(lineHashCache);
+
+        final LineSet lines = new LineSet.Builder().addRelative(-2, 0).build();
+        Assert.assertTrue("relative line must be contained", resourceLines.contains(lines, 9));
+        Assert.assertFalse("relative line must not be contained", resourceLines.contains(lines, 8));
+        Mockito.verify(lineHashCache, Mockito.times(1)).getLineCount("src/Foo.java");
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(2).addRelative(-5, 0).build();
+
+        Assert.assertSame("absolute lines must not be resolved", LineSet.EMPTY, new ResourceLines(null, "src/Foo.java", 20).resolve(LineSet.EMPTY));
+        Assert.assertEquals("relative lines must be resolved", "[2,16-20]", new ResourceLines(null, "src/Foo.java", 20).resolve(lines).toString());
+        Assert.assertEquals("unknown number of lines", "[2]", new ResourceLines(null, "src/Foo.java", FileSystemHelper.UNKNOWN_LINE_COUNT).resolve(lines).toString());
+        Assert.assertEquals("unknown content", "[2]", new ResourceLines(null, "src/Foo.java", FileSystemHelper.UNKNOWN_LINE_COUNT).resolve(new LineSet.Builder().add(2).addContentHash("ff").build()).toString());
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.apache.commons.configuration.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.sonar.api.utils.SonarException;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreIndex;
+
+public class SharedIgnoreIndexTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File createFile(final String name, final String... lines) throws Exception {
+        final File file = temporaryFolder.newFile(name);
+        final PrintWriter writer = new PrintWriter(file);
+        for (final String line : lines) {
+            writer.println(line);
+        }
+        writer.close();
+        return file;
+    }
+
+    @Test
+    public void loadIndexMissingFile() throws Exception {
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn("/tmp/missing.file");
+        final IgnoreIndex index = new SharedIgnoreIndex(configuration, new PatternRegistry()).getIndex();
+        Assert.assertTrue("List must be empty", index.getCoveragePatterns().isEmpty());
+        Assert.assertTrue("List must be empty", index.getIssuePatterns().isEmpty());
+    }
+
+    @Test
+    public void loadIndexNoConfiguration() throws Exception {
+        final IgnoreIndex index = new SharedIgnoreIndex(null, new PatternRegistry()).getIndex();
+        Assert.assertTrue("List must be empty", index.getCoveragePatterns().isEmpty());
+        Assert.assertTrue("List must be empty", index.getIssuePatterns().isEmpty());
+    }
+
+    @Test(expected = SonarException.class)
+    public void loadIndexInvalidFile() throws Exception {
+        final File file = createFile("ignore.txt", "coverage;**/*;*;*");
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(file.getAbsolutePath());
+        new SharedIgnoreIndex(configuration, new PatternRegistry());
+        Assert.fail("must not load invalid file");
+    }
+
+    @Test
+    public void loadIndex() throws Exception {
+        final File unified = createFile("ignore.txt", "coverage;src/Foo.java;[1]", "issue;src/Foo.java;pmd:*;[2]", "issue;src/Bar.java;*;*");
+        final File coverage = createFile("coverage.txt", "src/Foo.java;[3]");
+        final File issues = createFile("issues.txt", "src/Foo.java;pmd:*;[4]");
+
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getString(SharedIgnoreIndex.CONFIG_FILE)).thenReturn(unified.getAbsolutePath());
+        Mockito.when(configuration.getString(IgnoreCoverageDecorator.CONFIG_FILE)).thenReturn(coverage.getAbsolutePath());
+        Mockito.when(configuration.getString(IgnoreIssueFilter.CONFIG_FILE)).thenReturn(issues.getAbsolutePath());
+
+        final IgnoreIndex index = new SharedIgnoreIndex(configuration, new PatternRegistry()).getIndex();
+        Assert.assertEquals("coverage ignores must be merged", 1, index.getCoveragePatterns().size());
+        Assert.assertEquals("LineSet must match", "[1,3]", index.getCoveragePatterns().get(0).getLines().toString());
+        Assert.assertEquals("violation ignores must be merged", 2, index.getIssuePatterns().size());
+        Assert.assertEquals("LineSet must match", "[2,4]", index.getIssuePatterns().get(0).getLines().toString());
+    }
+}
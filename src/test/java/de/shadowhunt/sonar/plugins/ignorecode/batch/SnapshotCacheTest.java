@@ -0,0 +1,120 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.shadowhunt.sonar.plugins.ignorecode.model.IgnoreFile;
+
+public class SnapshotCacheTest {
+
+    private static IgnoreFile createIgnoreFile() throws Exception {
+        final String content = "coverage;src/Foo.java;[1-5]\nissue;src/Bar.java;pmd:*;*\n";
+        return IgnoreFile.parse(new ByteArrayInputStream(content.getBytes("UTF-8")));
+    }
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testHash() throws Exception {
+        final ByteBuffer content = ByteBuffer.wrap("coverage;src/Foo.java;[1-5]\n".getBytes("UTF-8"));
+        final String hash = SnapshotCache.hash(SharedIgnoreIndex.CONFIG_FILE, content, 3);
+        Assert.assertEquals("hash must have 64 hexadecimal digits", 64, hash.length());
+        Assert.assertEquals("hash must not change the content", 0, content.position());
+        Assert.assertEquals("hash must be stable", hash, SnapshotCache.hash(SharedIgnoreIndex.CONFIG_FILE, content, 3));
+        Assert.assertNotEquals("hash must depend on the maximal complexity", hash, SnapshotCache.hash(SharedIgnoreIndex.CONFIG_FILE, content, 4));
+        Assert.assertNotEquals("hash must depend on the property", hash, SnapshotCache.hash(IgnoreCoverageDecorator.CONFIG_FILE, content, 3));
+        final ByteBuffer changed = ByteBuffer.wrap("coverage;src/Foo.java;[1-6]\n".getBytes("UTF-8"));
+        Assert.assertNotEquals("hash must depend on the content", hash, SnapshotCache.hash(SharedIgnoreIndex.CONFIG_FILE, changed, 3));
+    }
+
+    @Test
+    public void testReadCorrupt() throws Exception {
+        final SnapshotCache cache = new SnapshotCache(temporaryFolder.getRoot());
+        final OutputStream output = new FileOutputStream(cache.getFile("source", "abc"));
+        output.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        output.close();
+        Assert.assertNull("corrupt snapshot must be ignored", cache.read("source", "abc"));
+
+        Assert.assertTrue("snapshot must be written", cache.write("source", "abc", createIgnoreFile()));
+        Assert.assertNotNull("corrupt snapshot must be replaced", cache.read("source", "abc"));
+    }
+
+    @Test
+    public void testReadMissing() throws Exception {
+        final SnapshotCache cache = new SnapshotCache(temporaryFolder.getRoot());
+        Assert.assertNull("missing snapshot must not be found", cache.read("source", "abc"));
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        final File directory = new File(temporaryFolder.getRoot(), "work/ignorecode");
+        final SnapshotCache cache = new SnapshotCache(directory);
+        final IgnoreFile file = createIgnoreFile();
+        Assert.assertTrue("snapshot must be written", cache.write("source", "abc", file));
+        Assert.assertTrue("snapshot must exist", cache.getFile("source", "abc").isFile());
+        Assert.assertEquals("only the snapshot must remain", 1, directory.list().length);
+
+        final IgnoreFile snapshot = cache.read("source", "abc");
+        Assert.assertNotNull("snapshot must be found", snapshot);
+        Assert.assertEquals("coverage ignores must match", file.getCoveragePatterns().toString(), snapshot.getCoveragePatterns().toString());
+        Assert.assertEquals("violation ignores must match", file.getIssuePatterns().toString(), snapshot.getIssuePatterns().toString());
+    }
+
+    @Test
+    public void testWriteInvalidDirectory() throws Exception {
+        final File directory = temporaryFolder.newFile("file");
+        final SnapshotCache cache = new SnapshotCache(directory);
+        Assert.assertFalse("snapshot must not be written", cache.write("source", "abc", createIgnoreFile()));
+    }
+
+    @Test
+    public void testSource() throws Exception {
+        final File file = new File("/tmp/ignore.txt");
+        final String source = SnapshotCache.source(SharedIgnoreIndex.CONFIG_FILE, file, 3);
+        Assert.assertEquals("source must have 16 hexadecimal digits", 16, source.length());
+        Assert.assertEquals("source must be stable", source, SnapshotCache.source(SharedIgnoreIndex.CONFIG_FILE, file, 3));
+        Assert.assertNotEquals("source must depend on the file", source, SnapshotCache.source(SharedIgnoreIndex.CONFIG_FILE, new File("/tmp/other.txt"), 3));
+        Assert.assertNotEquals("source must depend on the maximal complexity", source, SnapshotCache.source(SharedIgnoreIndex.CONFIG_FILE, file, 4));
+        Assert.assertNotEquals("source must depend on the property", source, SnapshotCache.source(IgnoreCoverageDecorator.CONFIG_FILE, file, 3));
+    }
+
+    @Test
+    public void testWriteRemovesOutdated() throws Exception {
+        final File directory = temporaryFolder.getRoot();
+        final SnapshotCache cache = new SnapshotCache(directory);
+        final IgnoreFile file = createIgnoreFile();
+        Assert.assertTrue("snapshot must be written", cache.write("source", "abc", file));
+        Assert.assertTrue("snapshot must be written", cache.write("other", "abc", file));
+        Assert.assertTrue("snapshot must be written", cache.write("source", "def", file));
+
+        Assert.assertFalse("outdated snapshot must be removed", cache.getFile("source", "abc").exists());
+        Assert.assertTrue("current snapshot must remain", cache.getFile("source", "def").isFile());
+        Assert.assertTrue("snapshot of other source must remain", cache.getFile("other", "abc").isFile());
+        Assert.assertEquals("only current snapshots must remain", 2, directory.list().length);
+    }
+}
@@ -17,10 +17,8 @@
 package de.shadowhunt.sonar.plugins.ignorecode.internal;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -31,6 +29,8 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.utils.KeyValueFormat;
 
+import de.shadowhunt.sonar.plugins.ignorecode.model.LineSet;
+
 public class ModifyMeasuresTest {
 
     private static final KeyValueFormat.IntegerConverter CONVERTER = KeyValueFormat.newIntegerConverter();
@@ -201,11 +201,7 @@ public class ModifyMeasuresTest {
         Assert.assertEquals("COVERAGE", 0.0, measure.getValue(), DELTA);
     }
 
-    private Set<Integer> toSet(final int... values) {
-        final Set<Integer> set = new HashSet<>(values.length);
-        for (final int value : values) {
-            set.add(value);
-        }
-        return set;
+    private LineSet toSet(final int... values) {
+        return LineSet.of(values);
     }
 }
@@ -0,0 +1,75 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveOrderTest {
+
+    private static BitSet createCandidates(final int... indices) {
+        final BitSet candidates = new BitSet();
+        for (final int index : indices) {
+            candidates.set(index);
+        }
+        return candidates;
+    }
+
+    private static List<CoveragePattern> createPatterns(final String... resourcePatterns) {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        for (final String resourcePattern : resourcePatterns) {
+            patterns.add(new CoveragePattern(resourcePattern, LineSet.EMPTY));
+        }
+        return patterns;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() throws Exception {
+        new AdaptiveOrder<>(createPatterns("**/*"), 0);
+        Assert.fail("interval must be greater than 0");
+    }
+
+    @Test
+    public void testReorder() throws Exception {
+        final List<CoveragePattern> patterns = createPatterns("a/**", "b/**", "**/generated/**");
+        final AdaptiveOrder<CoveragePattern> order = new AdaptiveOrder<>(patterns, 3);
+
+        order.hit(patterns.get(2));
+        order.hit(patterns.get(2));
+        Assert.assertEquals("order must not change before the interval is reached", patterns, order.sort(createCandidates(0, 1, 2)));
+
+        order.hit(patterns.get(1));
+        Assert.assertEquals("hits must be counted", 2, order.getHits(patterns.get(2)));
+        Assert.assertEquals("hottest pattern must come first", Arrays.asList(patterns.get(2), patterns.get(1), patterns.get(0)), order.sort(createCandidates(0, 1, 2)));
+        Assert.assertEquals("subset must be ordered", Arrays.asList(patterns.get(2), patterns.get(0)), order.sort(createCandidates(0, 2)));
+        Assert.assertEquals("single candidate must be returned", Arrays.asList(patterns.get(1)), order.sort(createCandidates(1)));
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        final List<CoveragePattern> patterns = createPatterns("a/**", "b/**", "c/**");
+        final AdaptiveOrder<CoveragePattern> order = new AdaptiveOrder<>(patterns);
+        Assert.assertEquals("patterns must retain their order", patterns, order.sort(createCandidates(0, 1, 2)));
+        Assert.assertEquals("candidates must retain their order", Arrays.asList(patterns.get(0), patterns.get(2)), order.sort(createCandidates(0, 2)));
+        Assert.assertTrue("empty candidates must stay empty", order.sort(new BitSet()).isEmpty());
+    }
+}
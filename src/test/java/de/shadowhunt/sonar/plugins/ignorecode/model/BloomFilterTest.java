@@ -0,0 +1,67 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testEmpty() throws Exception {
+        final BloomFilter filter = new BloomFilter(0);
+        Assert.assertFalse("empty filter must not contain any value", filter.mightContain("src/java"));
+        Assert.assertFalse("empty filter must not contain any value", filter.mightContain(""));
+    }
+
+    @Test
+    public void testFalsePositives() throws Exception {
+        final BloomFilter filter = new BloomFilter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("src/main/java/module" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("src/test/java/module" + i)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positive rate must be low: " + falsePositives, falsePositives < 500);
+    }
+
+    @Test
+    public void testHash() throws Exception {
+        final String value = "src/main/java";
+        long hash = BloomFilter.INITIAL_HASH;
+        for (int i = 0; i < value.length(); i++) {
+            hash = BloomFilter.hash(hash, value.charAt(i));
+        }
+        Assert.assertEquals("incremental hash must match", BloomFilter.hash(value), hash);
+    }
+
+    @Test
+    public void testMightContain() throws Exception {
+        final BloomFilter filter = new BloomFilter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("src/main/java/module" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue("added value must be contained", filter.mightContain("src/main/java/module" + i));
+        }
+    }
+}
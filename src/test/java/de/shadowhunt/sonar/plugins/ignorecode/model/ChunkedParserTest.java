@@ -0,0 +1,111 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChunkedParserTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static ChunkedParser<IssuePattern> createParser(final int chunkSize) {
+        return createParser(chunkSize, new Interner());
+    }
+
+    private static ChunkedParser<IssuePattern> createParser(final int chunkSize, final Interner interner) {
+        return new ChunkedParser<IssuePattern>(POOL, chunkSize, interner) {
+
+            @Override
+            IssuePattern parseEntry(final PatternTokenizer tokenizer, final Interner chunkInterner) throws IOException {
+                return IssuePattern.parseEntry(tokenizer, GlobPattern.DEFAULT_MAX_COMPLEXITY, chunkInterner);
+            }
+        };
+    }
+
+    private static ByteBuffer createContent(final int entries, final String invalid) throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= entries; i++) {
+            if ((i % 3) == 0) {
+                builder.append("# comment ").append(i).append("\r\n");
+            }
+            builder.append("src/Foo").append(i).append(".java;pmd:*;[").append(i).append("]\n");
+        }
+        builder.append(invalid);
+        return ByteBuffer.wrap(builder.toString().getBytes("UTF-8"));
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        final ByteBuffer content = createContent(1000, "");
+        final List<IssuePattern> sequential = createParser(Integer.MAX_VALUE).parse(content);
+        final List<IssuePattern> parallel = createParser(64).parse(content);
+        Assert.assertEquals("List must contain the exact number of entries", 1000, sequential.size());
+        Assert.assertEquals("patterns must be merged in file order", sequential, parallel);
+        Assert.assertEquals("content must not be changed", 0, content.position());
+    }
+
+    @Test
+    public void testParseInterned() throws Exception {
+        final ByteBuffer content = createContent(1000, "");
+        final Interner interner = new Interner();
+        final List<IssuePattern> patterns = createParser(64, interner).parse(content);
+        Assert.assertEquals("List must contain the exact number of entries", 1000, patterns.size());
+        for (final IssuePattern pattern : patterns) {
+            Assert.assertSame("rule pattern must be shared between all chunks", patterns.get(0).getRulePattern(), pattern.getRulePattern());
+            Assert.assertSame("resource pattern must be interned into the shared Interner", pattern.getResourcePattern(), interner.intern(pattern.getResourcePattern()));
+            Assert.assertSame("lines must be interned into the shared Interner", pattern.getLines(), interner.intern(pattern.getLines()));
+        }
+        Assert.assertEquals("number of distinct Strings must match", 1001, interner.getStringCount());
+        Assert.assertEquals("number of distinct LineSets must match", 1000, interner.getLineSetCount());
+    }
+
+    @Test
+    public void testParseError() throws Exception {
+        final ByteBuffer content = createContent(1000, "src/Bar.java;pmd:*;[1+2]\n");
+        try {
+            createParser(64).parse(content);
+            Assert.fail("must not parse invalid input");
+        } catch (final IllegalArgumentException e) {
+            // 1000 entries and 333 comments precede the invalid entry
+            Assert.assertTrue("error must report the line in the file: " + e.getMessage(), e.getMessage().endsWith("(line 1334, column 22)"));
+        }
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+        final ByteBuffer content = ByteBuffer.wrap("aa\nbbbb\nc\n\nddd".getBytes("UTF-8"));
+        final List<ByteBuffer> chunks = ChunkedParser.split(content, 2);
+        Assert.assertEquals("number of chunks must match", 4, chunks.size());
+        Assert.assertEquals("chunk must end after a line break", 3, chunks.get(0).remaining());
+        Assert.assertEquals("chunk must end after a line break", 5, chunks.get(1).remaining());
+        Assert.assertEquals("chunk must end after a line break", 2, chunks.get(2).remaining());
+        Assert.assertEquals("last chunk must contain the rest", 4, chunks.get(3).remaining());
+        Assert.assertEquals("single chunk", 1, ChunkedParser.split(content, 100).size());
+    }
+}
@@ -21,9 +21,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
@@ -33,39 +32,39 @@ public class CoveragePatternTest {
 
     @Test
     public void testAddLine() throws Exception {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(1);
         lines.add(3);
         lines.add(5);
-        final CoveragePattern pattern = new CoveragePattern("resourcePattern", lines);
+        final CoveragePattern pattern = new CoveragePattern("resourcePattern", lines.build());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 3, full.size());
-        Assert.assertTrue("SortedSet must contain line 1", full.contains(1));
-        Assert.assertTrue("SortedSet must contain line 3", full.contains(3));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 3, full.size());
+        Assert.assertTrue("LineSet must contain line 1", full.contains(1));
+        Assert.assertTrue("LineSet must contain line 3", full.contains(3));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
     }
 
     @Test
     public void testAddLines() throws Exception {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         CoveragePattern.addLines(lines, 2, 2);
         CoveragePattern.addLines(lines, 4, 6);
-        final CoveragePattern pattern = new CoveragePattern("resourcePattern", lines);
+        final CoveragePattern pattern = new CoveragePattern("resourcePattern", lines.build());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 4, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-        Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-        Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 4, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+        Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+        Assert.assertTrue("LineSet must contain line 6", full.contains(6));
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testAddLinesException() throws Exception {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         CoveragePattern.addLines(lines, 6, 4);
 
         Assert.fail("must not allow to switch from and to");
@@ -73,11 +72,40 @@ public class CoveragePatternTest {
 
     @Test
     public void testEmpty() throws Exception {
-        final CoveragePattern pattern = new CoveragePattern("resourcePattern", new TreeSet<Integer>());
+        final CoveragePattern pattern = new CoveragePattern("resourcePattern", LineSet.EMPTY);
 
-        final SortedSet<Integer> empty = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", empty);
-        Assert.assertEquals("SortedSet must not contain any entries", 0, empty.size());
+        final LineSet empty = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", empty);
+        Assert.assertEquals("LineSet must not contain any entries", 0, empty.size());
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        final CoveragePattern pattern = CoveragePattern.parseLine("src/Foo.java;[1-3]");
+        Assert.assertEquals("patterns must be equal", pattern, CoveragePattern.parseLine("src/Foo.java;[1-3]"));
+        Assert.assertEquals("hashCode must be equal", pattern.hashCode(), CoveragePattern.parseLine("src/Foo.java;[1-3]").hashCode());
+        Assert.assertNotEquals("patterns must not be equal", pattern, CoveragePattern.parseLine("src/Foo.java;[1-4]"));
+        Assert.assertNotEquals("patterns must not be equal", pattern, IssuePattern.parseLine("src/Foo.java;*;[1-3]"));
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final CoveragePattern first = new CoveragePattern("a", LineSet.of(1, 2));
+        final CoveragePattern other = new CoveragePattern("b", LineSet.of(5));
+        final CoveragePattern second = new CoveragePattern("a", LineSet.of(3, 10));
+        final List<CoveragePattern> merged = CoveragePattern.merge(Arrays.asList(first, other, second));
+        Assert.assertEquals("List must contain the exact number of entries", 2, merged.size());
+        Assert.assertEquals("merged pattern must keep the position of its first occurrence", new CoveragePattern("a", LineSet.of(1, 2, 3, 10)).toString(), merged.get(0).toString());
+        Assert.assertSame("single pattern must not be changed", other, merged.get(1));
+    }
+
+    @Test
+    public void testMergeAllLines() throws Exception {
+        final CoveragePattern first = new CoveragePattern("a", LineSet.of(1, 2));
+        final CoveragePattern second = new CoveragePattern("a", LineSet.EMPTY);
+        final List<CoveragePattern> merged = CoveragePattern.merge(Arrays.asList(first, second));
+        Assert.assertEquals("List must contain the exact number of entries", 1, merged.size());
+        Assert.assertTrue("merged pattern must match all lines", merged.get(0).getLines().isEmpty());
     }
 
     @Test
@@ -96,13 +124,13 @@ public class CoveragePatternTest {
             Assert.assertEquals("List must contain the exact number of entries", 1, lines.size());
 
             final CoveragePattern pattern = lines.get(0);
-            final SortedSet<Integer> full = pattern.getLines();
-            Assert.assertNotNull("SortedSet must not be null", full);
-            Assert.assertEquals("SortedSet must contain the exact number of entries", 4, full.size());
-            Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-            Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-            Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-            Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+            final LineSet full = pattern.getLines();
+            Assert.assertNotNull("LineSet must not be null", full);
+            Assert.assertEquals("LineSet must contain the exact number of entries", 4, full.size());
+            Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+            Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+            Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+            Assert.assertTrue("LineSet must contain line 6", full.contains(6));
         } finally {
             IOUtils.closeQuietly(is);
             IOUtils.closeQuietly(baos);
@@ -121,6 +149,46 @@ public class CoveragePatternTest {
         }
     }
 
+    @Test
+    public void testParseLineComplex() throws Exception {
+        Assert.assertNotNull("pattern within the budget must be parsed", CoveragePattern.parseLine("src/*/*/*/*;*", 4));
+        Assert.assertNotNull("collapsed pattern within the budget must be parsed", CoveragePattern.parseLine("src/**/**/**/**/*/*/*;*", 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineComplexResourcePattern() throws Exception {
+        CoveragePattern.parseLine("src/*/*/*/*;*", 3);
+        Assert.fail("must not parse too complex patterns");
+    }
+
+    @Test
+    public void testParseLineContentHash() throws Exception {
+        Assert.assertEquals("LineSet must match", "[#h:3fa9c1]", CoveragePattern.parseLine("resourcePattern;#h:3fa9c1").getLines().toString());
+        Assert.assertEquals("LineSet must match", "[2,#h:3fa9c1,#h:00ff]", CoveragePattern.parseLine("resourcePattern;[2,#h:3FA9C1,#h:00ff]").getLines().toString());
+    }
+
+    @Test
+    public void testParseLineFromEnd() throws Exception {
+        final CoveragePattern pattern = CoveragePattern.parseLine("resourcePattern;[2,$-20-$,$,10-$-5,$-3]");
+
+        final LineSet lines = pattern.getLines();
+        Assert.assertTrue("LineSet must be symbolic", lines.isSymbolic());
+        Assert.assertEquals("LineSet must contain the exact number of entries", 1, lines.size());
+        Assert.assertEquals("LineSet must be resolved", "[2,10-50]", lines.resolve(50).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineInvalidRange() throws Exception {
+        CoveragePattern.parseLine("resourcePattern;[2+4]");
+        Assert.fail("must not parse invalid input");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineMissingBounds() throws Exception {
+        CoveragePattern.parseLine("resourcePattern;[-]");
+        Assert.fail("must not parse invalid input");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testParseLineMissingLines() throws Exception {
         CoveragePattern.parseLine("resourcePattern; ");
@@ -133,6 +201,15 @@ public class CoveragePatternTest {
         Assert.fail("must not parse invalid input");
     }
 
+    @Test
+    public void testParseLineEmptyFields() throws Exception {
+        // ignore files have always been split with StringUtils.split, which merges consecutive separators
+        final CoveragePattern expected = CoveragePattern.parseLine("src/**;[1-3]");
+        for (final String line : new String[] { "src/**;;[1-3]", ";src/**;[1-3]", "src/**;[1-3];", "src/**;;[1-3];;" }) {
+            Assert.assertEquals("CoveragePattern must match: " + line, expected, CoveragePattern.parseLine(line));
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testParseLineMissingRulePattern() throws Exception {
         CoveragePattern.parseLine("resourcePattern; ;[2-3]");
@@ -144,13 +221,28 @@ public class CoveragePatternTest {
         final CoveragePattern pattern = CoveragePattern.parseLine("resourcePattern;[2,4-6]");
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 4, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-        Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-        Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 4, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+        Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+        Assert.assertTrue("LineSet must contain line 6", full.contains(6));
+    }
+
+    @Test
+    public void testParseLineOpenRange() throws Exception {
+        final CoveragePattern pattern = CoveragePattern.parseLine("resourcePattern;[-40,500-]");
+
+        final LineSet lines = pattern.getLines();
+        Assert.assertFalse("LineSet must not be symbolic", lines.isSymbolic());
+        Assert.assertEquals("LineSet must contain the exact number of ranges", 2, lines.getRangeCount());
+        Assert.assertTrue("LineSet must contain line 1", lines.contains(1));
+        Assert.assertTrue("LineSet must contain line 40", lines.contains(40));
+        Assert.assertFalse("LineSet must not contain line 41", lines.contains(41));
+        Assert.assertFalse("LineSet must not contain line 499", lines.contains(499));
+        Assert.assertTrue("LineSet must contain line 500", lines.contains(500));
+        Assert.assertTrue("LineSet must contain line " + Integer.MAX_VALUE, lines.contains(Integer.MAX_VALUE));
     }
 
     @Test
@@ -158,14 +250,14 @@ public class CoveragePatternTest {
         final CoveragePattern pattern = CoveragePattern.parseLine("resourcePattern;[2-6]");
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 5, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-        Assert.assertTrue("SortedSet must contain line 3", full.contains(3));
-        Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-        Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 5, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+        Assert.assertTrue("LineSet must contain line 3", full.contains(3));
+        Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+        Assert.assertTrue("LineSet must contain line 6", full.contains(6));
     }
 
     @Test
@@ -173,9 +265,9 @@ public class CoveragePatternTest {
         final CoveragePattern pattern = CoveragePattern.parseLine("resourcePattern;*");
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 0, full.size());
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 0, full.size());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -184,15 +276,26 @@ public class CoveragePatternTest {
         Assert.fail("must not allow to switch from and to");
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineRelativeRangeException() throws Exception {
+        CoveragePattern.parseLineValues("[$-2-$-6]");
+        Assert.fail("must not allow to switch from and to");
+    }
+
     @Test
     public void testParseLineSingle() throws Exception {
         final CoveragePattern pattern = CoveragePattern.parseLine("resourcePattern;[2]");
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 1, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 1, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
     }
-}
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineZero() throws Exception {
+        CoveragePattern.parseLine("resourcePattern;[0-5]");
+        Assert.fail("must not parse lines that are not positive");
+    }
+}
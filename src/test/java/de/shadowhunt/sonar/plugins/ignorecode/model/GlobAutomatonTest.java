@@ -0,0 +1,128 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+public class GlobAutomatonTest {
+
+    private static final List<String> PATTERNS = Arrays.asList( //
+            "**/*", //
+            "*", //
+            "src/java/net/**", //
+            "src/java/net/**/gen/*.java", //
+            "src/java/net/example/F?o.java", //
+            "/src/java/*/example/*.java", //
+            "src\\java\\**\\*.java", //
+            "**/Foo*", //
+            "src/**.java", //
+            "src/java/net/*/*/*.java", //
+            "src/java/net/example/Foo.java", //
+            "src/java/n***/Foo.java", //
+            "**/gen/**" //
+    );
+
+    private static final List<String> RESOURCES = Arrays.asList( //
+            "src/java/net/example/Foo.java", //
+            "src/java/net/example/gen/Bar.java", //
+            "src/java/net/example/deep/gen/Bar.java", //
+            "src/java/net/gen/Bar.java", //
+            "src/java/net/Foo.java", //
+            "src/java/Foo.java", //
+            "Foo.java", //
+            "gen/Foo.txt", //
+            "src/java/net/example/Fao.java", //
+            "src/java/net/example/F/o.java", //
+            "", //
+            "src" //
+    );
+
+    @Test
+    public void testCacheOverflow() throws Exception {
+        final GlobAutomaton automaton = new GlobAutomaton(PATTERNS, 4);
+        for (int round = 0; round < 2; round++) {
+            for (final String resource : RESOURCES) {
+                for (int id = 0; id < PATTERNS.size(); id++) {
+                    final boolean expected = WildcardPattern.create(PATTERNS.get(id)).match(resource);
+                    Assert.assertEquals(PATTERNS.get(id) + " on " + resource, expected, automaton.match(resource).get(id));
+                }
+                Assert.assertTrue("cache must be bounded", automaton.getCachedStates() <= 4);
+            }
+        }
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        final GlobAutomaton automaton = new GlobAutomaton(PATTERNS);
+        for (final String resource : RESOURCES) {
+            final BitSet matching = automaton.match(resource);
+            for (int id = 0; id < PATTERNS.size(); id++) {
+                final boolean expected = WildcardPattern.create(PATTERNS.get(id)).match(resource);
+                Assert.assertEquals(PATTERNS.get(id) + " on " + resource, expected, matching.get(id));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchCached() throws Exception {
+        final GlobAutomaton automaton = new GlobAutomaton(PATTERNS);
+        final BitSet first = automaton.match("src/java/net/example/Foo.java");
+        final int cachedStates = automaton.getCachedStates();
+
+        final BitSet second = automaton.match("src/java/net/example/Foo.java");
+        Assert.assertEquals("result must not change", first, second);
+        Assert.assertEquals("no new states must be created", cachedStates, automaton.getCachedStates());
+    }
+
+    @Test
+    public void testMatchEmpty() throws Exception {
+        final GlobAutomaton automaton = new GlobAutomaton(Collections.<String> emptyList());
+        Assert.assertTrue("nothing must match", automaton.match("src/java/net/example/Foo.java").isEmpty());
+    }
+
+    @Test
+    public void testMatchManyTransitions() throws Exception {
+        final GlobAutomaton automaton = new GlobAutomaton(PATTERNS);
+        // the characters are scanned in descending order in the same state, also beyond ASCII
+        final String characters = "\u00fc\u00e4zyxFEDCBA9876543210._-/";
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < characters.length(); i++) {
+                final String resource = "src/java/net/example/F" + characters.charAt(i) + "o.java";
+                final BitSet matching = automaton.match(resource);
+                for (int id = 0; id < PATTERNS.size(); id++) {
+                    final boolean expected = WildcardPattern.create(PATTERNS.get(id)).match(resource);
+                    Assert.assertEquals(PATTERNS.get(id) + " on " + resource, expected, matching.get(id));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchSkipped() throws Exception {
+        final GlobAutomaton automaton = new GlobAutomaton(Arrays.asList(null, "**/*.java"));
+        final BitSet matching = automaton.match("src/java/net/example/Foo.java");
+        Assert.assertFalse("skipped pattern must not match", matching.get(0));
+        Assert.assertTrue("pattern must match", matching.get(1));
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+public class GlobPatternTest {
+
+    private static final List<String> PATTERNS = Arrays.asList( //
+            "", //
+            "*", //
+            "**", //
+            "**/*", //
+            "**/", //
+            "/**/*.java", //
+            "src/java/net/**", //
+            "src/java/net/**/gen/*.java", //
+            "src/java/net/example/F?o.java", //
+            "src\\java\\*\\example\\*.java", //
+            "src/**.java", //
+            "src/java/n***/Foo.java", //
+            "src/***/Foo.java", //
+            "src/**/**/gen/*.java", //
+            "src/*/**/*/gen/**/**", //
+            "src/**/*.java", //
+            "**/**.java", //
+            "src/java/net/example/Foo.java", //
+            "src/java/net/example/Foo.java/", //
+            "src/java/net/example/Foo(1).java", //
+            "pmd:*", //
+            "pmd:Abstract*", //
+            "*:S1210", //
+            "?" //
+    );
+
+    private static final List<String> VALUES = Arrays.asList( //
+            "", //
+            "/", //
+            "a", //
+            "src", //
+            "src/java/net/example/Foo.java", //
+            "/src/java/net/example/Foo.java/", //
+            "src/java/net/example/Foo.java//", //
+            "src/java/net/example/gen/Bar.java", //
+            "src/java/net/example/deep/gen/Bar.java", //
+            "src/java/net/Foo.java", //
+            "src/java/net/example/F/o.java", //
+            "src/java/net/example/Foo(1).java", //
+            "src\\java\\net\\example\\Foo.java", //
+            "pmd:AbstractClassWithoutAbstractMethod", //
+            "squid:S1210" //
+    );
+
+    @Test
+    public void testCollapse() throws Exception {
+        Assert.assertEquals("* and * must collapse", GlobPattern.TOKEN_SEGMENT, GlobPattern.collapse(GlobPattern.TOKEN_SEGMENT, GlobPattern.TOKEN_SEGMENT));
+        Assert.assertEquals("* and ** must collapse", GlobPattern.TOKEN_ANY, GlobPattern.collapse(GlobPattern.TOKEN_SEGMENT, GlobPattern.TOKEN_ANY));
+        Assert.assertEquals("** and **/ must collapse", GlobPattern.TOKEN_ANY, GlobPattern.collapse(GlobPattern.TOKEN_ANY, GlobPattern.TOKEN_DIRECTORIES));
+        Assert.assertEquals("**/ and **/ must collapse", GlobPattern.TOKEN_DIRECTORIES, GlobPattern.collapse(GlobPattern.TOKEN_DIRECTORIES, GlobPattern.TOKEN_DIRECTORIES));
+        Assert.assertEquals("* and **/ must not collapse", -1, GlobPattern.collapse(GlobPattern.TOKEN_SEGMENT, GlobPattern.TOKEN_DIRECTORIES));
+        Assert.assertEquals("**/ and * must not collapse", -1, GlobPattern.collapse(GlobPattern.TOKEN_DIRECTORIES, GlobPattern.TOKEN_SEGMENT));
+        Assert.assertEquals("? and * must not collapse", -1, GlobPattern.collapse(GlobPattern.TOKEN_ANY_CHAR, GlobPattern.TOKEN_SEGMENT));
+    }
+
+    @Test
+    public void testGetComplexity() throws Exception {
+        Assert.assertEquals("literal must not have any complexity", 0, GlobPattern.compile("src/java/F?o.java").getComplexity());
+        Assert.assertEquals("complexity must match", 2, GlobPattern.compile("**/*.java").getComplexity());
+        Assert.assertEquals("consecutive wildcards must be collapsed", 1, GlobPattern.compile("src/*****").getComplexity());
+        Assert.assertEquals("consecutive wildcards must be collapsed", 4, GlobPattern.compile("src/**/**/**/*/**/*.java").getComplexity());
+        Assert.assertEquals("consecutive wildcards must be collapsed", 1, GlobPattern.compile("**/**/**/**/**/**").getComplexity());
+    }
+
+    @Test
+    public void testGetPattern() throws Exception {
+        final GlobPattern pattern = GlobPattern.compile("**/*.java");
+        Assert.assertEquals("pattern must match", "**/*.java", pattern.getPattern());
+        Assert.assertEquals("pattern must match", "**/*.java", pattern.toString());
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        for (final String pattern : PATTERNS) {
+            final GlobPattern globPattern = GlobPattern.compile(pattern);
+            final WildcardPattern wildcardPattern = WildcardPattern.create(pattern);
+            for (final String value : VALUES) {
+                Assert.assertEquals(pattern + " on " + value, wildcardPattern.match(value), globPattern.match(value));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchLongPattern() throws Exception {
+        final String directories = StringUtils.repeat("directory/", 20);
+        final GlobPattern pattern = GlobPattern.compile(directories + "**/*.java");
+        Assert.assertTrue("must match", pattern.match(directories + "gen/Foo.java"));
+        Assert.assertFalse("must not match", pattern.match(directories + "gen/Foo.txt"));
+    }
+
+    @Test(timeout = 5000)
+    public void testMatchPathological() throws Exception {
+        final GlobPattern pattern = GlobPattern.compile("**a**a**a**a**a**a**a**a**a**a**b");
+        final String value = StringUtils.repeat("a", 100000);
+        Assert.assertFalse("must not match", pattern.match(value));
+        Assert.assertTrue("must match", pattern.match(value + "b"));
+    }
+}
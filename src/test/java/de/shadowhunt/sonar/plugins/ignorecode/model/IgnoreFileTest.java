@@ -0,0 +1,135 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IgnoreFileTest {
+
+    @Test
+    public void testParse() throws Exception {
+        final String content = "# comment\n\ncoverage;src/main/java/net/example/gen/**/*.java;*\nissue;**/*;pmd:*;[1-5]\n coverage ;src/main/java/net/example/Foo.java;[10]\n";
+        final InputStream stream = new ByteArrayInputStream(content.getBytes("UTF-8"));
+        final IgnoreFile file = IgnoreFile.parse(stream);
+        Assert.assertNotNull("IgnoreFile must not be null", file);
+        Assert.assertEquals("List must contain the exact number of entries", 2, file.getCoveragePatterns().size());
+        Assert.assertEquals("List must contain the exact number of entries", 1, file.getIssuePatterns().size());
+        Assert.assertEquals("resourcePattern must match", "src/main/java/net/example/gen/**/*.java", file.getCoveragePatterns().get(0).getResourcePattern());
+        Assert.assertEquals("resourcePattern must match", "src/main/java/net/example/Foo.java", file.getCoveragePatterns().get(1).getResourcePattern());
+        Assert.assertEquals("rulePattern must match", "pmd:*", file.getIssuePatterns().get(0).getRulePattern());
+        Assert.assertEquals("LineSet must match", "[1-5]", file.getIssuePatterns().get(0).getLines().toString());
+    }
+
+    @Test
+    public void testParseEmpty() throws Exception {
+        final IgnoreFile file = IgnoreFile.parse(new ByteArrayInputStream(new byte[0]));
+        Assert.assertTrue("List must be empty", file.getCoveragePatterns().isEmpty());
+        Assert.assertTrue("List must be empty", file.getIssuePatterns().isEmpty());
+    }
+
+    @Test
+    public void testParseLine() throws Exception {
+        final Interner interner = new Interner();
+        final AbstractPattern coverage = IgnoreFile.parseLine("coverage;**/*.java;[1-3]", GlobPattern.DEFAULT_MAX_COMPLEXITY, interner);
+        Assert.assertTrue("pattern must be a CoveragePattern", coverage instanceof CoveragePattern);
+        final AbstractPattern issue = IgnoreFile.parseLine("issue;**/*.java;*;[1-3]", GlobPattern.DEFAULT_MAX_COMPLEXITY, interner);
+        Assert.assertTrue("pattern must be an IssuePattern", issue instanceof IssuePattern);
+        Assert.assertSame("equal resource patterns must be shared", coverage.getResourcePattern(), issue.getResourcePattern());
+        Assert.assertSame("equal lines must be shared", coverage.getLines(), issue.getLines());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInclude() throws Exception {
+        IgnoreFile.parse(new ByteArrayInputStream("coverage;**/*.java;[1-3]\n@include other.ignore\n".getBytes("UTF-8")));
+        Assert.fail("must not drop unresolved include directives");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineInvalidFields() throws Exception {
+        IgnoreFile.parseLine("coverage;**/*.java;*;[1-3]", GlobPattern.DEFAULT_MAX_COMPLEXITY, new Interner());
+        Assert.fail("must not parse coverage line with rule pattern");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineInvalidKind() throws Exception {
+        IgnoreFile.parseLine("violation;**/*.java;*;[1-3]", GlobPattern.DEFAULT_MAX_COMPLEXITY, new Interner());
+        Assert.fail("must not parse line of unknown kind");
+    }
+
+    private static byte[] write(final String content) throws Exception {
+        final IgnoreFile file = IgnoreFile.parse(new ByteArrayInputStream(content.getBytes("UTF-8")));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        file.write(output);
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        final byte[] content = write("coverage;src/Foo.java;[1-5,$-3-$]\nissue;src/*.java;pmd:*;*\nissue;src/Bar.java;checkstyle:*;[3,#h:abc]\n");
+        final Interner interner = new Interner();
+        final IgnoreFile file = IgnoreFile.read(content, interner);
+        Assert.assertEquals("List must contain the exact number of entries", 1, file.getCoveragePatterns().size());
+        Assert.assertEquals("List must contain the exact number of entries", 2, file.getIssuePatterns().size());
+        Assert.assertEquals("CoveragePattern must match", CoveragePattern.parseLine("src/Foo.java;[1-5,$-3-$]").toString(), file.getCoveragePatterns().get(0).toString());
+        Assert.assertEquals("IssuePattern must match", IssuePattern.parseLine("src/*.java;pmd:*;*"), file.getIssuePatterns().get(0));
+        Assert.assertEquals("IssuePattern must match", IssuePattern.parseLine("src/Bar.java;checkstyle:*;[3,#h:abc]"), file.getIssuePatterns().get(1));
+        Assert.assertSame("empty LineSet must be shared", LineSet.EMPTY, file.getIssuePatterns().get(0).getLines());
+        Assert.assertEquals("patterns must be interned", 5, interner.getStringCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadCorrupt() throws Exception {
+        final byte[] content = write("coverage;src/Foo.java;[1-5]\n");
+        content[12] ^= 0x01;
+        IgnoreFile.read(content, new Interner());
+        Assert.fail("must not read corrupt content");
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTruncated() throws Exception {
+        final byte[] content = write("coverage;src/Foo.java;[1-5]\n");
+        IgnoreFile.read(Arrays.copyOf(content, content.length - 1), new Interner());
+        Assert.fail("must not read truncated content");
+    }
+
+    @Test
+    public void testReadVersion() throws Exception {
+        final byte[] content = write("coverage;src/Foo.java;[1-5]\n");
+        // replace the version and fix the checksum, so only the version is invalid
+        content[7] = (byte) (IgnoreFile.FORMAT_VERSION + 1);
+        final CRC32 checksum = new CRC32();
+        checksum.update(content, 0, content.length - 8);
+        final ByteArrayOutputStream trailer = new ByteArrayOutputStream();
+        new DataOutputStream(trailer).writeLong(checksum.getValue());
+        System.arraycopy(trailer.toByteArray(), 0, content, content.length - 8, 8);
+        try {
+            IgnoreFile.read(content, new Interner());
+            Assert.fail("must not read content of different version");
+        } catch (final IOException e) {
+            Assert.assertTrue("message must contain version", e.getMessage().contains("format version"));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+
+public class IgnoreIndexTest {
+
+    private static final String RESOURCE = "src/main/java/net/example/foo/Bar.java";
+
+    private static final RuleKey RULE = RuleKey.of("pmd", "AbstractClassWithoutAbstractMethod");
+
+    @Test
+    public void testEmpty() throws Exception {
+        final IgnoreIndex index = new IgnoreIndex(Collections.<CoveragePattern> emptyList(), Collections.<IssuePattern> emptyList(), 0);
+        Assert.assertFalse("IgnoreIndex must not contain coverage patterns", index.hasCoveragePatterns());
+        Assert.assertFalse("IgnoreIndex must not contain issue patterns", index.hasIssuePatterns());
+        Assert.assertTrue("List must be empty", index.matchCoverage(RESOURCE).isEmpty());
+        Assert.assertTrue("List must be empty", index.matchIssues(new ResourcePath(RESOURCE), RULE).isEmpty());
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        final List<CoveragePattern> coveragePatterns = new ArrayList<>();
+        coveragePatterns.add(new CoveragePattern("**/*", LineSet.of(1)));
+        coveragePatterns.add(new CoveragePattern("src/main/java/net/example/foo/Foo.java", LineSet.EMPTY));
+        coveragePatterns.add(new CoveragePattern(RESOURCE, LineSet.of(2)));
+        final List<IssuePattern> issuePatterns = new ArrayList<>();
+        issuePatterns.add(new IssuePattern(RESOURCE, "squid:*", LineSet.EMPTY));
+        issuePatterns.add(new IssuePattern("**/*", "pmd:*", LineSet.of(3)));
+        issuePatterns.add(new IssuePattern("src/main/java/net/example/foo/Foo.java", "*", LineSet.EMPTY));
+        issuePatterns.add(new IssuePattern(RESOURCE, "*", LineSet.of(4)));
+        final IgnoreIndex index = new IgnoreIndex(coveragePatterns, issuePatterns, 16);
+        Assert.assertTrue("IgnoreIndex must contain coverage patterns", index.hasCoveragePatterns());
+        Assert.assertTrue("IgnoreIndex must contain issue patterns", index.hasIssuePatterns());
+
+        final List<CoveragePattern> coverage = index.matchCoverage(RESOURCE);
+        Assert.assertEquals("List must contain the exact number of entries", 2, coverage.size());
+        Assert.assertSame("coverage pattern must match", coveragePatterns.get(0), coverage.get(0));
+        Assert.assertSame("coverage pattern must match", coveragePatterns.get(2), coverage.get(1));
+
+        final List<IssuePattern> issues = index.matchIssues(new ResourcePath(RESOURCE), RULE);
+        Assert.assertEquals("List must contain the exact number of entries", 2, issues.size());
+        Assert.assertSame("issue pattern must match", issuePatterns.get(1), issues.get(0));
+        Assert.assertSame("issue pattern must match", issuePatterns.get(3), issues.get(1));
+
+        Assert.assertEquals("resource must be looked up once", 1L, index.getCache().getMisses());
+        Assert.assertEquals("resource must be looked up once", 1L, index.getCache().getHits());
+
+        final BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(3);
+        Assert.assertEquals("indices must match the issue patterns", expected, index.matchIssueIndices(new ResourcePath(RESOURCE), RULE));
+    }
+
+    @Test
+    public void testMatchNoRule() throws Exception {
+        final List<IssuePattern> issuePatterns = new ArrayList<>();
+        issuePatterns.add(new IssuePattern(RESOURCE, "squid:*", LineSet.EMPTY));
+        final IgnoreIndex index = new IgnoreIndex(Collections.<CoveragePattern> emptyList(), issuePatterns, 16);
+
+        Assert.assertTrue("List must be empty", index.matchIssues(new ResourcePath(RESOURCE), RULE).isEmpty());
+        Assert.assertEquals("rule must match", 1, index.matchIssues(new ResourcePath(RESOURCE), RuleKey.of("squid", "S1210")).size());
+    }
+}
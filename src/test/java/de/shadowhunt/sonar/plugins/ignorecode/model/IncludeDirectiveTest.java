@@ -0,0 +1,54 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IncludeDirectiveTest {
+
+    private static ByteBuffer wrap(final String content) throws Exception {
+        return ByteBuffer.wrap(content.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        final ByteBuffer content = wrap("@include shared.ignore\r\nsrc/Foo.java;*\n# @include comment.ignore\n@included;*\n@include\t  teams/*.ignore  \n@include \u00fcber.ignore");
+        Assert.assertEquals("paths must match", Arrays.asList("shared.ignore", "teams/*.ignore", "\u00fcber.ignore"), IncludeDirective.scan(content));
+        Assert.assertEquals("scan must not change the content", 0, content.position());
+    }
+
+    @Test
+    public void testScanEmpty() throws Exception {
+        Assert.assertEquals("paths must be empty", Collections.emptyList(), IncludeDirective.scan(wrap("")));
+        Assert.assertEquals("paths must be empty", Collections.emptyList(), IncludeDirective.scan(wrap("src/Foo.java;*\n")));
+    }
+
+    @Test
+    public void testScanMissingPath() throws Exception {
+        try {
+            IncludeDirective.scan(wrap("src/Foo.java;*\n@include  \r\n"));
+            Assert.fail("must not accept include directive without path");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertTrue("message must contain line", e.getMessage().contains("line 2"));
+        }
+    }
+}
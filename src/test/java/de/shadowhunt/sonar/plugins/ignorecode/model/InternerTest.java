@@ -0,0 +1,68 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InternerTest {
+
+    @Test
+    public void testInternLineSet() throws Exception {
+        final Interner interner = new Interner();
+        final LineSet first = interner.intern(LineSet.of(1, 2, 3));
+        Assert.assertSame("equal LineSet must be shared", first, interner.intern(new LineSet.Builder().add(1, 3).build()));
+        Assert.assertNotSame("different LineSet must not be shared", first, interner.intern(LineSet.of(1, 3)));
+        Assert.assertEquals("number of distinct LineSets must match", 2, interner.getLineSetCount());
+        Assert.assertEquals("number of requests must match", 3L, interner.getRequests());
+    }
+
+    @Test
+    public void testInternString() throws Exception {
+        final Interner interner = new Interner();
+        final String first = interner.intern(new String("pmd:*"));
+        Assert.assertSame("equal String must be shared", first, interner.intern(new String("pmd:*")));
+        Assert.assertSame("equal String must be shared", first, interner.intern(new String("pmd:*")));
+        Assert.assertEquals("number of distinct Strings must match", 1, interner.getStringCount());
+        Assert.assertEquals("number of requests must match", 3L, interner.getRequests());
+        Assert.assertEquals("string representation must match", "Interner [strings=1, lineSets=0, requests=3]", interner.toString());
+    }
+
+    @Test
+    public void testInternCharSequence() throws Exception {
+        final Interner interner = new Interner();
+        final String first = interner.intern(new StringBuilder("src/**/*.java"));
+        Assert.assertEquals("String must match", "src/**/*.java", first);
+        Assert.assertSame("equal content must be shared", first, interner.intern(new StringBuilder("src/**/*.java")));
+        Assert.assertSame("equal String must be shared", first, interner.intern(new String("src/**/*.java")));
+        Assert.assertEquals("number of distinct Strings must match", 1, interner.getStringCount());
+    }
+
+    @Test
+    public void testInternMany() throws Exception {
+        final Interner interner = new Interner();
+        final String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = interner.intern("pattern" + i);
+        }
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertSame("equal content must be shared", values[i], interner.intern(new StringBuilder("pattern").append(i)));
+        }
+        Assert.assertEquals("number of distinct Strings must match", values.length, interner.getStringCount());
+        Assert.assertEquals("hash must match String.hashCode()", "pattern1".hashCode(), Interner.hash(new StringBuilder("pattern1")));
+    }
+}
@@ -21,9 +21,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
@@ -33,39 +33,39 @@ public class IssuePatternTest {
 
     @Test
     public void testAddLine() throws Exception {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         lines.add(1);
         lines.add(3);
         lines.add(5);
-        final IssuePattern pattern = new IssuePattern("resourcePattern", "rulePattern", lines);
+        final IssuePattern pattern = new IssuePattern("resourcePattern", "rulePattern", lines.build());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 3, full.size());
-        Assert.assertTrue("SortedSet must contain line 1", full.contains(1));
-        Assert.assertTrue("SortedSet must contain line 3", full.contains(3));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 3, full.size());
+        Assert.assertTrue("LineSet must contain line 1", full.contains(1));
+        Assert.assertTrue("LineSet must contain line 3", full.contains(3));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
     }
 
     @Test
     public void testAddLines() throws Exception {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         IssuePattern.addLines(lines, 2, 2);
         IssuePattern.addLines(lines, 4, 6);
-        final IssuePattern pattern = new IssuePattern("resourcePattern", "rulePattern", lines);
+        final IssuePattern pattern = new IssuePattern("resourcePattern", "rulePattern", lines.build());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 4, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-        Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-        Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 4, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+        Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+        Assert.assertTrue("LineSet must contain line 6", full.contains(6));
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testAddLinesException() throws Exception {
-        final SortedSet<Integer> lines = new TreeSet<>();
+        final LineSet.Builder lines = new LineSet.Builder();
         IssuePattern.addLines(lines, 6, 4);
 
         Assert.fail("must not allow to switch from and to");
@@ -73,11 +73,31 @@ public class IssuePatternTest {
 
     @Test
     public void testEmpty() throws Exception {
-        final IssuePattern pattern = new IssuePattern("resourcePattern", "rulePattern", new TreeSet<Integer>());
+        final IssuePattern pattern = new IssuePattern("resourcePattern", "rulePattern", LineSet.EMPTY);
 
-        final SortedSet<Integer> empty = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", empty);
-        Assert.assertEquals("SortedSet must not contain any entries", 0, empty.size());
+        final LineSet empty = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", empty);
+        Assert.assertEquals("LineSet must not contain any entries", 0, empty.size());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final IssuePattern first = new IssuePattern("a", "r", LineSet.of(1, 2));
+        final IssuePattern other = new IssuePattern("a", "s", LineSet.of(5));
+        final IssuePattern second = new IssuePattern("a", "r", LineSet.of(3, 10));
+        final List<IssuePattern> merged = IssuePattern.merge(Arrays.asList(first, other, second));
+        Assert.assertEquals("List must contain the exact number of entries", 2, merged.size());
+        Assert.assertEquals("merged pattern must keep the position of its first occurrence", new IssuePattern("a", "r", LineSet.of(1, 2, 3, 10)).toString(), merged.get(0).toString());
+        Assert.assertSame("single pattern must not be changed", other, merged.get(1));
+    }
+
+    @Test
+    public void testMergeAllLines() throws Exception {
+        final IssuePattern first = new IssuePattern("a", "r", LineSet.of(1, 2));
+        final IssuePattern second = new IssuePattern("a", "r", LineSet.EMPTY);
+        final List<IssuePattern> merged = IssuePattern.merge(Arrays.asList(first, second));
+        Assert.assertEquals("List must contain the exact number of entries", 1, merged.size());
+        Assert.assertTrue("merged pattern must match all lines", merged.get(0).getLines().isEmpty());
     }
 
     @Test
@@ -99,13 +119,38 @@ public class IssuePatternTest {
             Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
             Assert.assertEquals("rulePattern name must match", "rulePattern", pattern.getRulePattern());
 
-            final SortedSet<Integer> full = pattern.getLines();
-            Assert.assertNotNull("SortedSet must not be null", full);
-            Assert.assertEquals("SortedSet must contain the exact number of entries", 4, full.size());
-            Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-            Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-            Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-            Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+            final LineSet full = pattern.getLines();
+            Assert.assertNotNull("LineSet must not be null", full);
+            Assert.assertEquals("LineSet must contain the exact number of entries", 4, full.size());
+            Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+            Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+            Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+            Assert.assertTrue("LineSet must contain line 6", full.contains(6));
+        } finally {
+            IOUtils.closeQuietly(is);
+            IOUtils.closeQuietly(baos);
+        }
+    }
+
+    @Test
+    public void testParseInterned() throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final PrintWriter writer = new PrintWriter(baos);
+        writer.println("src/Foo.java;pmd:*;[1-20]");
+        writer.println("src/Bar.java;pmd:*;[1-20]");
+        writer.println("src/Foo.java;squid:S1210;[1-20]");
+        writer.close();
+
+        final InputStream is = new ByteArrayInputStream(baos.toByteArray());
+        try {
+            final Interner interner = new Interner();
+            final List<IssuePattern> patterns = IssuePattern.parse(is, GlobPattern.DEFAULT_MAX_COMPLEXITY, interner);
+            Assert.assertEquals("List must contain the exact number of entries", 3, patterns.size());
+            Assert.assertSame("resource pattern must be shared", patterns.get(0).getResourcePattern(), patterns.get(2).getResourcePattern());
+            Assert.assertSame("rule pattern must be shared", patterns.get(0).getRulePattern(), patterns.get(1).getRulePattern());
+            Assert.assertSame("lines must be shared", patterns.get(0).getLines(), patterns.get(2).getLines());
+            Assert.assertEquals("number of distinct Strings must match", 4, interner.getStringCount());
+            Assert.assertEquals("number of distinct LineSets must match", 1, interner.getLineSetCount());
         } finally {
             IOUtils.closeQuietly(is);
             IOUtils.closeQuietly(baos);
@@ -130,6 +175,24 @@ public class IssuePatternTest {
         Assert.fail("must not parse invalid input");
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineComplexRulePattern() throws Exception {
+        IssuePattern.parseLine("src/**;*:*:*:*;*", 3);
+        Assert.fail("must not parse too complex patterns");
+    }
+
+    @Test
+    public void testParseLineComplex() throws Exception {
+        Assert.assertNotNull("pattern within the budget must be parsed", IssuePattern.parseLine("src/*/*/*/*;*;*", 4));
+        Assert.assertNotNull("collapsed pattern within the budget must be parsed", IssuePattern.parseLine("src/**/**/**/**/*/*/*;*;*", 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseLineComplexResourcePattern() throws Exception {
+        IssuePattern.parseLine("src/*/*/*/*;*;*", 3);
+        Assert.fail("must not parse too complex patterns");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testParseLineMissingLines() throws Exception {
         IssuePattern.parseLine("resourcePattern;rulePattern; ");
@@ -142,6 +205,15 @@ public class IssuePatternTest {
         Assert.fail("must not parse invalid input");
     }
 
+    @Test
+    public void testParseLineEmptyFields() throws Exception {
+        // ignore files have always been split with StringUtils.split, which merges consecutive separators
+        final IssuePattern expected = IssuePattern.parseLine("src/**;rule;[1]");
+        for (final String line : new String[] { "src/**;;rule;[1]", ";src/**;rule;[1]", "src/**;rule;[1];", "src/**;rule;;[1];;", "src/**;rule;[1] ;" }) {
+            Assert.assertEquals("IssuePattern must match: " + line, expected, IssuePattern.parseLine(line));
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testParseLineMissingRulePattern() throws Exception {
         IssuePattern.parseLine("resourcePattern; ;[2-3]");
@@ -154,13 +226,13 @@ public class IssuePatternTest {
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
         Assert.assertEquals("rulePattern name must match", "rulePattern", pattern.getRulePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 4, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-        Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-        Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 4, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+        Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+        Assert.assertTrue("LineSet must contain line 6", full.contains(6));
     }
 
     @Test
@@ -169,14 +241,14 @@ public class IssuePatternTest {
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
         Assert.assertEquals("rulePattern name must match", "rulePattern", pattern.getRulePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 5, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
-        Assert.assertTrue("SortedSet must contain line 3", full.contains(3));
-        Assert.assertTrue("SortedSet must contain line 4", full.contains(4));
-        Assert.assertTrue("SortedSet must contain line 5", full.contains(5));
-        Assert.assertTrue("SortedSet must contain line 6", full.contains(6));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 5, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+        Assert.assertTrue("LineSet must contain line 3", full.contains(3));
+        Assert.assertTrue("LineSet must contain line 4", full.contains(4));
+        Assert.assertTrue("LineSet must contain line 5", full.contains(5));
+        Assert.assertTrue("LineSet must contain line 6", full.contains(6));
     }
 
     @Test
@@ -185,9 +257,9 @@ public class IssuePatternTest {
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
         Assert.assertEquals("rulePattern name must match", "rulePattern", pattern.getRulePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 0, full.size());
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 0, full.size());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -202,9 +274,18 @@ public class IssuePatternTest {
         Assert.assertEquals("resourcePattern name must match", "resourcePattern", pattern.getResourcePattern());
         Assert.assertEquals("rulePattern name must match", "rulePattern", pattern.getRulePattern());
 
-        final SortedSet<Integer> full = pattern.getLines();
-        Assert.assertNotNull("SortedSet must not be null", full);
-        Assert.assertEquals("SortedSet must contain the exact number of entries", 1, full.size());
-        Assert.assertTrue("SortedSet must contain line 2", full.contains(2));
+        final LineSet full = pattern.getLines();
+        Assert.assertNotNull("LineSet must not be null", full);
+        Assert.assertEquals("LineSet must contain the exact number of entries", 1, full.size());
+        Assert.assertTrue("LineSet must contain line 2", full.contains(2));
+    }
+
+    @Test
+    public void testParseByteBuffer() throws Exception {
+        final ByteBuffer content = ByteBuffer.wrap("# comment\n\nsrc/Foo.java;pmd:*;[2,4-6]\nsrc/Bar.java;*;*\n".getBytes("UTF-8"));
+        final List<IssuePattern> patterns = IssuePattern.parse(content, GlobPattern.DEFAULT_MAX_COMPLEXITY, new Interner());
+        Assert.assertEquals("List must contain the exact number of entries", 2, patterns.size());
+        Assert.assertEquals("pattern must match", new IssuePattern("src/Foo.java", "pmd:*", LineSet.of(2, 4, 5, 6)), patterns.get(0));
+        Assert.assertEquals("pattern must match", new IssuePattern("src/Bar.java", "*", LineSet.EMPTY), patterns.get(1));
     }
 }
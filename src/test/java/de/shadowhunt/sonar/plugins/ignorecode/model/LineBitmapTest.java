@@ -0,0 +1,76 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineBitmapTest {
+
+    @Test
+    public void testChooseType() throws Exception {
+        Assert.assertEquals("few long runs must be stored as runs", LineBitmap.TYPE_RUN, LineBitmap.chooseType(2, 1000));
+        Assert.assertEquals("scattered lines must be stored as array", LineBitmap.TYPE_ARRAY, LineBitmap.chooseType(1000, 1000));
+        Assert.assertEquals("many scattered lines must be stored as bitmap", LineBitmap.TYPE_BITMAP, LineBitmap.chooseType(20000, 20000));
+    }
+
+    @Test
+    public void testContains() throws Exception {
+        final int[] ranges = { -70000, -70000, 1, 1, 3, 3, 5, 5, 65530, 65540, 131072, 131072 };
+        final LineBitmap bitmap = LineBitmap.of(ranges);
+        Assert.assertEquals("LineBitmap must contain the exact number of chunks", 4, bitmap.getChunkCount());
+        Assert.assertTrue("LineBitmap must contain line -70000", bitmap.contains(-70000));
+        Assert.assertTrue("LineBitmap must contain line 3", bitmap.contains(3));
+        Assert.assertTrue("LineBitmap must contain line 65535", bitmap.contains(65535));
+        Assert.assertTrue("LineBitmap must contain line 65536", bitmap.contains(65536));
+        Assert.assertTrue("LineBitmap must contain line 131072", bitmap.contains(131072));
+        Assert.assertFalse("LineBitmap must not contain line 2", bitmap.contains(2));
+        Assert.assertFalse("LineBitmap must not contain line 65541", bitmap.contains(65541));
+        Assert.assertFalse("LineBitmap must not contain line 200000", bitmap.contains(200000));
+        Assert.assertFalse("LineBitmap must not contain line -1", bitmap.contains(-1));
+    }
+
+    @Test
+    public void testContainsBitmap() throws Exception {
+        final int[] ranges = new int[2 * 10000];
+        for (int i = 0; i < 10000; i++) {
+            ranges[2 * i] = 6 * i;
+            ranges[(2 * i) + 1] = 6 * i;
+        }
+        final LineBitmap bitmap = LineBitmap.of(ranges);
+        Assert.assertEquals("LineBitmap must contain the exact number of chunks", 1, bitmap.getChunkCount());
+        Assert.assertEquals("dense chunk must be stored as bitmap", LineBitmap.TYPE_BITMAP, bitmap.getType(0));
+        Assert.assertTrue("LineBitmap must contain line 0", bitmap.contains(0));
+        Assert.assertTrue("LineBitmap must contain line 59994", bitmap.contains(59994));
+        Assert.assertFalse("LineBitmap must not contain line 59995", bitmap.contains(59995));
+        Assert.assertArrayEquals("ranges must be restored", ranges, bitmap.toRanges(10000));
+    }
+
+    @Test
+    public void testCountChunks() throws Exception {
+        Assert.assertEquals("empty ranges must not have any chunks", 0L, LineBitmap.countChunks(new int[0]));
+        Assert.assertEquals("ranges in one chunk must share it", 1L, LineBitmap.countChunks(new int[] { 1, 2, 4, 5 }));
+        Assert.assertEquals("range must count all chunks it spreads over", 3L, LineBitmap.countChunks(new int[] { 1, 131072 }));
+        Assert.assertEquals("ranges must share the chunk", 3L, LineBitmap.countChunks(new int[] { 1, 65536, 65538, 131072 }));
+    }
+
+    @Test
+    public void testToRanges() throws Exception {
+        final int[] ranges = { -70000, -70000, 1, 1, 3, 3, 5, 5, 65530, 65540, 131072, 131072 };
+        Assert.assertArrayEquals("ranges must be restored", ranges, LineBitmap.of(ranges).toRanges(6));
+    }
+}
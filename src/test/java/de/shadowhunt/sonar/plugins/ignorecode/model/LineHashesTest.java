@@ -0,0 +1,73 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineHashesTest {
+
+    @Test
+    public void testHash() throws Exception {
+        Assert.assertEquals("empty line must have the FNV-1a offset basis", 0xcbf29ce484222325L, LineHashes.hash(""));
+        Assert.assertEquals("FNV-1a hash must match", 0xaf63dc4c8601ec8cL, LineHashes.hash("a"));
+        Assert.assertEquals("whitespace must be ignored", LineHashes.hash("return null;"), LineHashes.hash("\t  return  null; "));
+        Assert.assertNotEquals("different content must have different hashes", LineHashes.hash("return null;"), LineHashes.hash("return 0;"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetHashException() throws Exception {
+        LineHashes.read(new StringReader("a")).getHash(2);
+        Assert.fail("must not return hash of missing line");
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        final LineHashes lineHashes = LineHashes.read(new StringReader("a\nb\r\n\r\nc\rd"));
+        Assert.assertEquals("number of lines must match", 5, lineHashes.getLineCount());
+        Assert.assertEquals("hash of line 1 must match", LineHashes.hash("a"), lineHashes.getHash(1));
+        Assert.assertEquals("hash of line 2 must match", LineHashes.hash("b"), lineHashes.getHash(2));
+        Assert.assertEquals("hash of line 3 must match", LineHashes.hash(""), lineHashes.getHash(3));
+        Assert.assertEquals("hash of line 4 must match", LineHashes.hash("c"), lineHashes.getHash(4));
+        Assert.assertEquals("hash of line 5 must match", LineHashes.hash("d"), lineHashes.getHash(5));
+    }
+
+    @Test
+    public void testReadEmpty() throws Exception {
+        Assert.assertEquals("empty resource must not have any lines", 0, LineHashes.read(new StringReader("")).getLineCount());
+        Assert.assertEquals("trailing line separator must not start a new line", 1, LineHashes.read(new StringReader("a\n")).getLineCount());
+    }
+
+    @Test
+    public void testReadLarge() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= 10000; i++) {
+            builder.append("line ").append(i).append('\n');
+        }
+        final LineHashes lineHashes = LineHashes.read(new StringReader(builder.toString()));
+        Assert.assertEquals("number of lines must match", 10000, lineHashes.getLineCount());
+        Assert.assertEquals("hash of line 9999 must match", LineHashes.hash("line 9999"), lineHashes.getHash(9999));
+    }
+
+    @Test
+    public void testToHex() throws Exception {
+        Assert.assertEquals("hex must be padded", "000000000000000f", LineHashes.toHex(15L));
+        Assert.assertEquals("hex must be unsigned", "ffffffffffffffff", LineHashes.toHex(-1L));
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineSetTest {
+
+    private static List<Integer> toList(final LineSet lines) {
+        final List<Integer> list = new ArrayList<>();
+        for (final Integer line : lines) {
+            list.add(line);
+        }
+        return list;
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(10, 20).add(2).add(21, 25).add(4, 6).add(5).add(15, 30).build();
+        Assert.assertEquals("overlapping and adjacent ranges must be merged", 3, lines.getRangeCount());
+        Assert.assertArrayEquals("ranges must match", new int[] { 2, 2, 4, 6, 10, 30 }, lines.toRanges());
+        Assert.assertEquals("LineSet must contain the exact number of lines", 25, lines.size());
+        Assert.assertEquals("string representation must match", "[2,4-6,10-30]", lines.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddRelativeException() throws Exception {
+        new LineSet.Builder().addRelative(-5, -10);
+        Assert.fail("must not allow to switch from and to");
+    }
+
+    @Test
+    public void testBuildLineSet() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(LineSet.of(1, 2, 5)).add(3).add(LineSet.EMPTY).build();
+        Assert.assertEquals("string representation must match", "[1-3,5]", lines.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildException() throws Exception {
+        new LineSet.Builder().add(6, 4);
+        Assert.fail("must not allow to switch from and to");
+    }
+
+    @Test
+    public void testContentHash() throws Exception {
+        final long hash = LineHashes.hash("return null;");
+        final LineSet lines = new LineSet.Builder().add(1).addContentHash(LineHashes.toHex(hash).substring(0, 6)).addContentHash("0123456789abcdef").build();
+        Assert.assertTrue("LineSet must be symbolic", lines.isSymbolic());
+        Assert.assertTrue("LineSet must contain content hashes", lines.hasContentHashes());
+        Assert.assertFalse("LineSet must not be empty", lines.isEmpty());
+        Assert.assertEquals("string representation must match", "[1,#h:" + LineHashes.toHex(hash).substring(0, 6) + ",#h:0123456789abcdef]", lines.toString());
+        Assert.assertEquals("same lines must be equal", lines, new LineSet.Builder().add(lines).build());
+        Assert.assertTrue("content hash must match", lines.matchesContentHash(hash));
+        Assert.assertTrue("full content hash must match", lines.matchesContentHash(0x0123456789abcdefL));
+        Assert.assertFalse("content hash must not match", lines.matchesContentHash(LineHashes.hash("return 0;")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testContentHashInvalid() throws Exception {
+        new LineSet.Builder().addContentHash("3fa9x1");
+        Assert.fail("must not allow invalid content hashes");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testContentHashTooLong() throws Exception {
+        new LineSet.Builder().addContentHash("0123456789abcdef0");
+        Assert.fail("must not allow content hashes with more than 64 bits");
+    }
+
+    @Test
+    public void testContains() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(1, 200000).add(300000).add(-5, -3).build();
+        Assert.assertTrue("LineSet must contain line 1", lines.contains(1));
+        Assert.assertTrue("LineSet must contain line 100000", lines.contains(100000));
+        Assert.assertTrue("LineSet must contain line 200000", lines.contains(200000));
+        Assert.assertTrue("LineSet must contain line 300000", lines.contains(300000));
+        Assert.assertTrue("LineSet must contain line -4", lines.contains(-4));
+        Assert.assertFalse("LineSet must not contain line 0", lines.contains(0));
+        Assert.assertFalse("LineSet must not contain line 200001", lines.contains(200001));
+        Assert.assertFalse("LineSet must not contain line 300001", lines.contains(300001));
+        Assert.assertEquals("LineSet must contain the exact number of lines", 200004, lines.size());
+    }
+
+    @Test
+    public void testDenseScatteredLines() throws Exception {
+        final LineSet.Builder builder = new LineSet.Builder();
+        for (int line = 1; line <= 30000; line += 3) {
+            builder.add(line);
+        }
+        builder.add(70000, 80000);
+        final LineSet lines = builder.build();
+        Assert.assertTrue("scattered lines must be stored in a bitmap", lines.isBitmap());
+        Assert.assertEquals("LineSet must contain the exact number of lines", 20001, lines.size());
+        Assert.assertEquals("LineSet must contain the exact number of ranges", 10001, lines.getRangeCount());
+        Assert.assertTrue("LineSet must contain line 1", lines.contains(1));
+        Assert.assertTrue("LineSet must contain line 29998", lines.contains(29998));
+        Assert.assertTrue("LineSet must contain line 75000", lines.contains(75000));
+        Assert.assertFalse("LineSet must not contain line 2", lines.contains(2));
+        Assert.assertFalse("LineSet must not contain line 30001", lines.contains(30001));
+        Assert.assertFalse("LineSet must not contain line 80001", lines.contains(80001));
+
+        int count = 0;
+        int previous = 0;
+        for (final Integer line : lines) {
+            Assert.assertTrue("lines must be iterated in ascending order", line > previous);
+            Assert.assertTrue("LineSet must contain iterated line " + line, lines.contains(line));
+            previous = line;
+            count++;
+        }
+        Assert.assertEquals("all lines must be iterated", 20001, count);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final LineSet lines = new LineSet.Builder().build();
+        Assert.assertSame("empty LineSet must be shared", LineSet.EMPTY, lines);
+        Assert.assertTrue("LineSet must be empty", lines.isEmpty());
+        Assert.assertEquals("LineSet must not contain any lines", 0, lines.size());
+        Assert.assertFalse("LineSet must not contain line 1", lines.contains(1));
+        Assert.assertFalse("Iterator must not have any lines", lines.iterator().hasNext());
+        Assert.assertEquals("string representation must match", "[]", lines.toString());
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        Assert.assertEquals("same lines must be equal", LineSet.of(1, 2, 3), new LineSet.Builder().add(1, 3).build());
+        Assert.assertEquals("same lines must have same hash", LineSet.of(1, 2, 3).hashCode(), new LineSet.Builder().add(1, 3).build().hashCode());
+        Assert.assertNotEquals("different lines must not be equal", LineSet.of(1, 2, 3), LineSet.of(1, 3));
+
+        final int[] scattered = new int[100];
+        for (int i = 0; i < scattered.length; i++) {
+            scattered[i] = 2 * i;
+        }
+        Assert.assertEquals("same scattered lines must be equal", LineSet.of(scattered), LineSet.of(scattered));
+        Assert.assertEquals("string representation must be independent of the storage", "[0,2,4]", LineSet.of(4, 2, 0).toString());
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        Assert.assertEquals("lines must be iterated in ascending order", Arrays.asList(2, 4, 5, 6, 10), toList(LineSet.of(10, 6, 5, 4, 2)));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorExhausted() throws Exception {
+        final Iterator<Integer> it = LineSet.of(1).iterator();
+        it.next();
+        it.next();
+        Assert.fail("exhausted iterator must not return any lines");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIteratorRemove() throws Exception {
+        final Iterator<Integer> it = LineSet.of(1).iterator();
+        it.next();
+        it.remove();
+        Assert.fail("LineSet must not be modifiable");
+    }
+
+    @Test
+    public void testResolveContentHash() throws Exception {
+        final LineHashes lineHashes = LineHashes.read(new StringReader("a\nreturn null;\nb\n  return null;\nc\n"));
+        final LineSet lines = new LineSet.Builder().add(1).addRelative(0, 0).addContentHash(LineHashes.toHex(LineHashes.hash("return null;"))).build();
+        Assert.assertTrue("LineSet must contain line 4", lines.contains(4, lineHashes));
+        Assert.assertTrue("LineSet must contain line 5", lines.contains(5, lineHashes));
+        Assert.assertFalse("LineSet must not contain line 3", lines.contains(3, lineHashes));
+        Assert.assertFalse("LineSet must not contain line 6", lines.contains(6, lineHashes));
+        Assert.assertEquals("resolved LineSet must match", "[1-2,4-5]", lines.resolve(lineHashes).toString());
+        Assert.assertEquals("content hashes must be dropped without content", "[1,5]", lines.resolve(5).toString());
+    }
+
+    @Test
+    public void testRelative() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(1, 3).addRelative(-20, 0).addRelative(10, -30).build();
+        Assert.assertTrue("LineSet must be symbolic", lines.isSymbolic());
+        Assert.assertFalse("LineSet must not be empty", lines.isEmpty());
+        Assert.assertEquals("LineSet must only count absolute lines", 3, lines.size());
+        Assert.assertEquals("string representation must match", "[1-3,$-20-$,10-$-30]", lines.toString());
+        Assert.assertEquals("same lines must be equal", lines, new LineSet.Builder().add(lines).build());
+
+        Assert.assertFalse("relative lines must not be contained without line count", lines.contains(100));
+        Assert.assertFalse("relative lines must not be contained with unknown line count", lines.contains(100, -1));
+        Assert.assertTrue("absolute lines must be contained with unknown line count", lines.contains(2, -1));
+        Assert.assertTrue("LineSet must contain line 81 of 100", lines.contains(81, 100));
+        Assert.assertTrue("LineSet must contain line 100 of 100", lines.contains(100, 100));
+        Assert.assertFalse("LineSet must not contain line 101 of 100", lines.contains(101, 100));
+        Assert.assertTrue("LineSet must contain line 71 of 100", lines.contains(71, 100));
+        Assert.assertFalse("LineSet must not contain line 72 of 100", lines.contains(72, 100));
+        Assert.assertFalse("LineSet must not contain line 80 of 100", lines.contains(80, 100));
+
+        Assert.assertEquals("resolved LineSet must match", "[1-3,10-21,31-50]", lines.resolve(50).toString());
+        Assert.assertEquals("resolved LineSet must match", "[1-3,10-71,81-100]", lines.resolve(100).toString());
+        Assert.assertEquals("resolved LineSet must match", "[1-3]", lines.resolve(0).toString());
+        Assert.assertFalse("resolved LineSet must not be symbolic", lines.resolve(100).isSymbolic());
+        Assert.assertTrue("resolved LineSet without lines must be empty", new LineSet.Builder().addRelative(-5, 0).build().resolve(0).isEmpty());
+    }
+
+    @Test
+    public void testRelativeLastLines() throws Exception {
+        final LineSet lines = CoveragePattern.parseLineValues("[$-20-$]");
+        Assert.assertEquals("[$-20-$] must contain the last 20 lines", 20, lines.resolve(100).size());
+        Assert.assertEquals("[$-20-$] must contain the last 20 lines", "[81-100]", lines.resolve(100).toString());
+        Assert.assertEquals("[$] must contain the last line", "[100]", CoveragePattern.parseLineValues("[$]").resolve(100).toString());
+        Assert.assertEquals("[$-20-$] must not exceed the first line", "[1-5]", lines.resolve(5).toString());
+    }
+
+    @Test
+    public void testLargeRange() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(1, 10000000).build();
+        Assert.assertFalse("single range must not be stored in a bitmap", lines.isBitmap());
+        Assert.assertEquals("LineSet must contain the exact number of lines", 10000000, lines.size());
+    }
+
+    @Test
+    public void testMaxValue() throws Exception {
+        final LineSet lines = new LineSet.Builder().add(Integer.MAX_VALUE - 1, Integer.MAX_VALUE).add(1, Integer.MAX_VALUE - 2).build();
+        Assert.assertEquals("adjacent ranges must be merged", 1, lines.getRangeCount());
+        Assert.assertEquals("size must be limited", Integer.MAX_VALUE, lines.size());
+        Assert.assertTrue("LineSet must contain the maximal line", lines.contains(Integer.MAX_VALUE));
+    }
+
+    private static LineSet readWrite(final LineSet lines) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        lines.write(new DataOutputStream(output));
+        return LineSet.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        Assert.assertSame("empty LineSet must be shared", LineSet.EMPTY, readWrite(LineSet.EMPTY));
+        final LineSet lines = new LineSet.Builder().add(1, 5).add(10).addRelative(-3, 0).addContentHash("abc").build();
+        Assert.assertEquals("LineSet must match", lines, readWrite(lines));
+        Assert.assertEquals("LineSet must match", lines.toString(), readWrite(lines).toString());
+
+        final LineSet.Builder builder = new LineSet.Builder();
+        for (int line = 1; line < 100000; line += 2) {
+            builder.add(line);
+        }
+        final LineSet scattered = builder.build();
+        Assert.assertTrue("LineSet must be a bitmap", scattered.isBitmap());
+        Assert.assertEquals("LineSet must match", scattered, readWrite(scattered));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadUnsorted() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(4);
+        data.writeInt(10);
+        data.writeInt(20);
+        data.writeInt(1);
+        data.writeInt(5);
+        data.writeInt(0);
+        data.writeInt(0);
+        LineSet.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+        Assert.fail("must not read unsorted ranges");
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadInvalidLength() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new DataOutputStream(output).writeInt(Integer.MAX_VALUE);
+        LineSet.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+        Assert.fail("must not read more values than available");
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void testDisabled() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(0);
+        cache.put("a", "A");
+        Assert.assertEquals("cache must not contain any entries", 0, cache.size());
+        Assert.assertNull("value must not be cached", cache.get("a"));
+        Assert.assertEquals("cache must count all misses", 1, cache.getMisses());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        Assert.assertEquals("value must be cached", "A", cache.get("a"));
+        cache.put("c", "C");
+
+        Assert.assertEquals("cache must contain the exact number of entries", 2, cache.size());
+        Assert.assertEquals("recently used value must be cached", "A", cache.get("a"));
+        Assert.assertNull("least recently used value must be evicted", cache.get("b"));
+        Assert.assertEquals("value must be cached", "C", cache.get("c"));
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(2);
+        Assert.assertNull("value must not be cached", cache.get("a"));
+        cache.put("a", "A");
+        Assert.assertEquals("value must be cached", "A", cache.get("a"));
+        Assert.assertEquals("value must be cached", "A", cache.get("a"));
+
+        Assert.assertEquals("cache must count all hits", 2, cache.getHits());
+        Assert.assertEquals("cache must count all misses", 1, cache.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() throws Exception {
+        new LruCache<String, String>(-1);
+        Assert.fail("negative size must not be accepted");
+    }
+}
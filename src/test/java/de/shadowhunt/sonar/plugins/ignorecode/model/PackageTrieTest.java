@@ -0,0 +1,112 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+public class PackageTrieTest {
+
+    private static final List<List<String>> NAMES = Arrays.asList( //
+            Arrays.asList("net", "example", "Foo"), //
+            Arrays.asList("net", "example", "gen"), //
+            Arrays.asList("net", "example", "gen", "Bar"), //
+            Arrays.asList("net", "example", "gen", "sub", "Foo"), //
+            Arrays.asList("net", "Foo"), //
+            Arrays.asList("com", "foo"), //
+            Arrays.asList("Foo") //
+    );
+
+    private static final List<String> PATTERNS = Arrays.asList( //
+            "pkg:net.example.gen.**", //
+            "pkg:net.example.*", //
+            "pkg:net.example.Foo", //
+            "pkg:net.**.Foo", //
+            "pkg:net.example.F?o*", //
+            "pkg:**", //
+            "pkg:net.*.*.Bar", //
+            "pkg:com.foo", //
+            "pkg:com.foo.**", //
+            "pkg:com.**", //
+            "pkg:**.Foo" //
+    );
+
+    private static BitSet bits(final int... indices) {
+        final BitSet bits = new BitSet();
+        for (final int index : indices) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final PackageTrie trie = new PackageTrie();
+        Assert.assertTrue("trie must be empty", trie.isEmpty());
+        Assert.assertTrue("nothing must match", trie.match(Arrays.asList("net", "example", "Foo")).isEmpty());
+    }
+
+    @Test
+    public void testIsPackagePattern() throws Exception {
+        Assert.assertTrue("pkg: must be a package pattern", PackageTrie.isPackagePattern("pkg:net.example.**"));
+        Assert.assertFalse("path must not be a package pattern", PackageTrie.isPackagePattern("src/main/java/net/**"));
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        final PackageTrie trie = new PackageTrie();
+        trie.add("pkg:net.example.gen.**", 0);
+        trie.add("pkg:net.example.*", 1);
+        trie.add("pkg:net.example.Foo", 2);
+        trie.add("pkg:net.**.Foo", 3);
+        trie.add("pkg:net.example.F?o*", 4);
+        trie.add("pkg:**", 5);
+        trie.add("pkg:net.*.*.Bar", 6);
+        Assert.assertFalse("trie must not be empty", trie.isEmpty());
+
+        Assert.assertEquals("patterns must match", bits(1, 2, 3, 4, 5), trie.match(Arrays.asList("net", "example", "Foo")));
+        Assert.assertEquals("patterns must match", bits(1, 5), trie.match(Arrays.asList("net", "example", "gen")));
+        Assert.assertEquals("patterns must match", bits(0, 5, 6), trie.match(Arrays.asList("net", "example", "gen", "Bar")));
+        Assert.assertEquals("patterns must match", bits(0, 3, 5), trie.match(Arrays.asList("net", "example", "gen", "sub", "Foo")));
+        Assert.assertEquals("patterns must match", bits(3, 5), trie.match(Arrays.asList("net", "Foo")));
+        Assert.assertEquals("patterns must match", bits(5), trie.match(Arrays.asList("org", "example", "Foo")));
+    }
+
+    @Test
+    public void testMatchWildcardPattern() throws Exception {
+        final PackageTrie trie = new PackageTrie();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            trie.add(PATTERNS.get(i), i);
+        }
+
+        for (final List<String> name : NAMES) {
+            final BitSet matching = trie.match(name);
+            for (int i = 0; i < PATTERNS.size(); i++) {
+                // a package pattern must match like the wildcard pattern of the path of the qualified name
+                final String path = PATTERNS.get(i).substring(PackageTrie.PREFIX.length()).replace('.', '/');
+                final boolean expected = WildcardPattern.create(path).match(StringUtils.join(name, '/'));
+                Assert.assertEquals(PATTERNS.get(i) + " on " + name, expected, matching.get(i));
+            }
+        }
+    }
+}
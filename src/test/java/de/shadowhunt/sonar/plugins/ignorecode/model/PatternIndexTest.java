@@ -0,0 +1,184 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PatternIndexTest {
+
+    private static CoveragePattern createPattern(final String resourcePattern) {
+        return new CoveragePattern(resourcePattern, LineSet.EMPTY);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(new ArrayList<CoveragePattern>());
+        Assert.assertTrue("index must be empty", index.isEmpty());
+        Assert.assertEquals("index must not contain any entries", 0, index.size());
+        Assert.assertTrue("List must be empty", index.match("src/java/net/example/Foo.java").isEmpty());
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("src/java/net/example/Foo.java"));
+        patterns.add(createPattern("src/java/net/example/Bar.java"));
+        patterns.add(createPattern("**/*"));
+        patterns.add(createPattern("src/java/net/**/F?o.java"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+        Assert.assertFalse("index must not be empty", index.isEmpty());
+        Assert.assertEquals("index must contain the exact number of entries", 4, index.size());
+
+        final List<CoveragePattern> matching = index.match("src/java/net/example/Foo.java");
+        Assert.assertNotNull("List must not be null", matching);
+        Assert.assertEquals("List must contain the exact number of entries", 3, matching.size());
+        Assert.assertSame("first pattern must match", patterns.get(0), matching.get(0));
+        Assert.assertSame("third pattern must match", patterns.get(2), matching.get(1));
+        Assert.assertSame("fourth pattern must match", patterns.get(3), matching.get(2));
+    }
+
+    @Test
+    public void testMatchCached() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("src/java/net/example/Foo.java"));
+        patterns.add(createPattern("src/java/net/**/*.java"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns, 1);
+
+        Assert.assertEquals("List must contain the exact number of entries", 2, index.match("src/java/net/example/Foo.java").size());
+        Assert.assertEquals("List must contain the exact number of entries", 2, index.match("src/java/net/example/Foo.java").size());
+        Assert.assertEquals("List must contain the exact number of entries", 1, index.match("src/java/net/example/Bar.java").size());
+        Assert.assertEquals("List must contain the exact number of entries", 2, index.match("src/java/net/example/Foo.java").size());
+
+        final LruCache<String, ?> cache = index.getCache();
+        Assert.assertEquals("cache must contain the exact number of entries", 1, cache.size());
+        Assert.assertEquals("cache must count all hits", 1, cache.getHits());
+        Assert.assertEquals("cache must count all misses", 3, cache.getMisses());
+    }
+
+    @Test
+    public void testMatchLiteral() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("src/java/net/example/*.java"));
+        patterns.add(createPattern("src/java/net/example/Foo.java"));
+        patterns.add(createPattern("/src/java/net/example/Foo.java"));
+        patterns.add(createPattern("src\\java\\net\\example\\Foo.java"));
+        patterns.add(createPattern("src/java/net/example/Foo.java"));
+        patterns.add(createPattern("src/java/net/example/Bar.java"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+
+        final List<CoveragePattern> matching = index.match("/src/java/net/example/Foo.java/");
+        Assert.assertNotNull("List must not be null", matching);
+        Assert.assertEquals("List must contain the exact number of entries", 5, matching.size());
+        for (int i = 0; i < matching.size(); i++) {
+            Assert.assertSame("patterns must retain their order", patterns.get(i), matching.get(i));
+        }
+    }
+
+    @Test
+    public void testMatchNoResource() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("src/java/net/example/Foo.java"));
+        patterns.add(createPattern("src/java/net/**/gen/*.java"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+
+        final List<CoveragePattern> matching = index.match("src/java/net/example/Bar.java");
+        Assert.assertNotNull("List must not be null", matching);
+        Assert.assertTrue("List must be empty", matching.isEmpty());
+    }
+
+    @Test
+    public void testGetDirectoryPrefix() throws Exception {
+        Assert.assertEquals("prefix must end before the last separator", "src/java/net", PatternIndex.getDirectoryPrefix("src/java/net/**/Foo.java"));
+        Assert.assertEquals("prefix must end before the wildcard directory", "src/java", PatternIndex.getDirectoryPrefix("src/java/ne?/Foo.java"));
+        Assert.assertEquals("prefix must end before the wildcard directory", "src/java", PatternIndex.getDirectoryPrefix("src/java/n*t/F?o.java"));
+        Assert.assertEquals("leading wildcard must not have a prefix", "", PatternIndex.getDirectoryPrefix("**/Foo.java"));
+        Assert.assertEquals("wildcard in first directory must not have a prefix", "", PatternIndex.getDirectoryPrefix("s?c/Foo.java"));
+    }
+
+    @Test
+    public void testMatchPackage() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("src/main/java/net/example/Foo.java"));
+        patterns.add(createPattern("pkg:net.example.gen.**"));
+        patterns.add(createPattern("pkg:net.example.Foo"));
+        patterns.add(createPattern("lib/**"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+        Assert.assertTrue("index must be prefiltered", index.isPrefiltered());
+
+        final List<CoveragePattern> matching = index.match("src/main/java/net/example/Foo.java");
+        Assert.assertEquals("List must contain the exact number of entries", 2, matching.size());
+        Assert.assertSame("first pattern must match", patterns.get(0), matching.get(0));
+        Assert.assertSame("third pattern must match", patterns.get(2), matching.get(1));
+
+        Assert.assertEquals("package pattern must match", Arrays.asList(patterns.get(1)), index.match("src/test/java/net/example/gen/sub/Bar.java"));
+        Assert.assertTrue("List must be empty", index.match("src/test/java/org/example/Bar.java").isEmpty());
+    }
+
+    @Test
+    public void testMatchResource() throws Exception {
+        final ResourcePath path = new ResourcePath("src/main/java/net/example/Foo.java");
+        Assert.assertTrue("glob pattern must match", PatternIndex.matchResource("src/**/Foo.java", path));
+        Assert.assertTrue("package pattern must match", PatternIndex.matchResource("pkg:net.**", path));
+        Assert.assertFalse("package pattern must not match", PatternIndex.matchResource("pkg:org.**", path));
+    }
+
+    @Test
+    public void testMatchPrefiltered() throws Exception {
+        final String[] resourcePatterns = { "src/java/net/example/Foo.java", "/src/java/net/**", "src\\test\\*.java", "src/java/net/**/gen/*.java", "src/main/a?c/*", "src/main/x/", "lib/**/" };
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        for (final String resourcePattern : resourcePatterns) {
+            patterns.add(createPattern(resourcePattern));
+        }
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+        Assert.assertTrue("index must be prefiltered", index.isPrefiltered());
+
+        final String[] resourceKeys = { "src/java/net/example/Foo.java", "src/java/net/gen/Bar.java", "src/java/net", "src/java/netty/Foo.java", "src/test/Foo.java", "/src/test/Foo.java/", "src/main/abc/Foo.java", "src/main/x", "src/main/x//", "lib/a/b/", "lib/a/b//", "lib", "test/Foo.java", "" };
+        for (final String resourceKey : resourceKeys) {
+            final List<CoveragePattern> expected = new ArrayList<>();
+            for (final CoveragePattern pattern : patterns) {
+                if (GlobPattern.compile(pattern.getResourcePattern()).match(resourceKey)) {
+                    expected.add(pattern);
+                }
+            }
+            Assert.assertEquals("matching patterns of " + resourceKey + " must match", expected, index.match(resourceKey));
+        }
+    }
+
+    @Test
+    public void testNotPrefiltered() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("src/java/net/example/Foo.java"));
+        patterns.add(createPattern("**/gen/*.java"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+        Assert.assertFalse("index must not be prefiltered", index.isPrefiltered());
+        Assert.assertEquals("List must contain the exact number of entries", 1, index.match("test/gen/Foo.java").size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPatternsUnmodifiable() throws Exception {
+        final List<CoveragePattern> patterns = new ArrayList<>();
+        patterns.add(createPattern("**/*"));
+        final PatternIndex<CoveragePattern> index = new PatternIndex<>(patterns);
+        index.getPatterns().clear();
+        Assert.fail("patterns must not be modifiable");
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PatternTokenizerTest {
+
+    private static String getErrorMessage(final String content) throws Exception {
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(content));
+        try {
+            while (tokenizer.nextEntry()) {
+                tokenizer.readField("a resource pattern");
+                tokenizer.readLines();
+            }
+        } catch (final IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        Assert.fail("must not parse invalid input: " + content);
+        return null;
+    }
+
+    @Test
+    public void testErrorPosition() throws Exception {
+        Assert.assertTrue("position must match", getErrorMessage("a;[1]\n\nb;[1,2+4]").endsWith("(line 3, column 7)"));
+        Assert.assertTrue("position must match", getErrorMessage("a;[1]\r\nb").endsWith("(line 2, column 1)"));
+        Assert.assertTrue("position must match", getErrorMessage("a;[0-5]").endsWith("(line 1, column 4)"));
+        Assert.assertTrue("position must match", getErrorMessage("a;[$-2-$-6]").endsWith("(line 1, column 4)"));
+        Assert.assertTrue("position must match", getErrorMessage("a; [1] x").endsWith("(line 1, column 8)"));
+        Assert.assertTrue("position must match", getErrorMessage(" ;[1]").endsWith("(line 1, column 1)"));
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        Assert.assertTrue("message must match", getErrorMessage("a;[1,]").startsWith("The range is invalid"));
+        Assert.assertTrue("message must match", getErrorMessage("a;[-]").startsWith("The range does not define any bound"));
+        Assert.assertTrue("message must match", getErrorMessage("a;[1").startsWith("The lines must be terminated by ']'"));
+        Assert.assertTrue("message must match", getErrorMessage("a;[2147483648]").startsWith("The number is too large"));
+        Assert.assertTrue("message must match", getErrorMessage("a;#h:0123456789abcdef0").startsWith("The content hash must have"));
+        Assert.assertTrue("message must match", getErrorMessage("a;#h:").startsWith("The content hash must have"));
+        Assert.assertTrue("message must match", getErrorMessage("a;#x:12").startsWith("The content hash must start with"));
+        Assert.assertTrue("message must match", getErrorMessage("a;").startsWith("The line does not define a range of lines"));
+        Assert.assertTrue("message must match", getErrorMessage("a;*; x").startsWith("The line must end after the lines"));
+    }
+
+    @Test
+    public void testIncludeDirective() throws Exception {
+        final String content = "@include other.ignore\n@included;[1]\n@include\n";
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(content), PatternTokenizer.DEFAULT_BUFFER_SIZE, 1, true);
+
+        Assert.assertTrue("entry must be found", tokenizer.nextEntry());
+        Assert.assertEquals("field must match", "@included", tokenizer.readField("a resource pattern").toString());
+        Assert.assertEquals("LineSet must match", "[1]", tokenizer.readLines().toString());
+        Assert.assertFalse("include directives must be skipped", tokenizer.nextEntry());
+    }
+
+    @Test
+    public void testIncludeDirectiveUnresolved() throws Exception {
+        final String message = getErrorMessage("a;[1]\n@include other.ignore\n");
+        Assert.assertTrue("message must match", message.startsWith("The include directive is only supported"));
+        Assert.assertTrue("position must match", message.endsWith("(line 2, column 1)"));
+    }
+
+    @Test
+    public void testReadEntries() throws Exception {
+        final String content = "# comment\n \t \n  src/Foo.java;[1, 3-5 ,$-2-$]\r\nsrc/Bar.java;*\rsrc/Baz.java;#h:3fA9\n\n";
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(content));
+
+        Assert.assertTrue("entry must be found", tokenizer.nextEntry());
+        Assert.assertEquals("leading whitespace must be retained", "  src/Foo.java", tokenizer.readField("a resource pattern").toString());
+        Assert.assertEquals("LineSet must match", "[1,3-5,$-2-$]", tokenizer.readLines().toString());
+        Assert.assertEquals("line must match", 4, tokenizer.getLine());
+
+        Assert.assertTrue("entry must be found", tokenizer.nextEntry());
+        Assert.assertEquals("field must match", "src/Bar.java", tokenizer.readField("a resource pattern").toString());
+        Assert.assertSame("LineSet must match", LineSet.EMPTY, tokenizer.readLines());
+
+        Assert.assertTrue("entry must be found", tokenizer.nextEntry());
+        Assert.assertEquals("field must match", "src/Baz.java", tokenizer.readField("a resource pattern").toString());
+        Assert.assertEquals("LineSet must match", "[#h:3fa9]", tokenizer.readLines().toString());
+
+        Assert.assertFalse("end of input must be reached", tokenizer.nextEntry());
+        Assert.assertEquals("line must match", 7, tokenizer.getLine());
+        Assert.assertEquals("column must match", 1, tokenizer.getColumn());
+    }
+
+    @Test
+    public void testSmallBuffer() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            content.append("src/Foo").append(i).append(".java;[").append(i).append(",$-").append(i).append("-$]\r\n");
+            content.append("          \r\n");
+        }
+
+        final PatternTokenizer tokenizer = new PatternTokenizer(new StringReader(content.toString()), 2);
+        for (int i = 1; i <= 100; i++) {
+            Assert.assertTrue("entry must be found", tokenizer.nextEntry());
+            Assert.assertEquals("field must match", "src/Foo" + i + ".java", tokenizer.readField("a resource pattern").toString());
+            Assert.assertEquals("LineSet must match", "[" + i + ",$-" + i + "-$]", tokenizer.readLines().toString());
+        }
+        Assert.assertFalse("end of input must be reached", tokenizer.nextEntry());
+        Assert.assertEquals("line must match", 201, tokenizer.getLine());
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResourcePathTest {
+
+    @Test
+    public void testEquals() throws Exception {
+        final ResourcePath path = new ResourcePath("src/java/net/example/Foo.java");
+        Assert.assertEquals("normalized paths must be equal", path, new ResourcePath("/src/java/net/example/Foo.java/"));
+        Assert.assertEquals("hash codes must be equal", path.hashCode(), new ResourcePath("/src/java/net/example/Foo.java/").hashCode());
+        Assert.assertNotEquals("different paths must not be equal", path, new ResourcePath("src/java/net/example/Bar.java"));
+    }
+
+    @Test
+    public void testNoDirectory() throws Exception {
+        final ResourcePath path = new ResourcePath("Makefile");
+        Assert.assertEquals("path must match", "Makefile", path.getPath());
+        Assert.assertEquals("segments must match", Arrays.asList("Makefile"), path.getSegments());
+        Assert.assertEquals("file name must match", "Makefile", path.getFileName());
+        Assert.assertEquals("extension must be empty", "", path.getExtension());
+    }
+
+    @Test
+    public void testNormalize() throws Exception {
+        Assert.assertEquals("empty key must stay empty", "", ResourcePath.normalize(""));
+        Assert.assertEquals("separator must be removed", "", ResourcePath.normalize("/"));
+        Assert.assertEquals("only one separator must be removed", "", ResourcePath.normalize("//"));
+        Assert.assertEquals("leading separator must be removed", "a/b", ResourcePath.normalize("/a/b"));
+        Assert.assertEquals("trailing separator must be removed", "a/b", ResourcePath.normalize("a/b/"));
+        Assert.assertEquals("only one separator must be removed on each side", "/a/b/", ResourcePath.normalize("//a/b//"));
+    }
+
+    @Test
+    public void testPath() throws Exception {
+        final ResourcePath path = new ResourcePath("/src/java/net/example/Foo.java");
+        Assert.assertEquals("key must be retained", "/src/java/net/example/Foo.java", path.getKey());
+        Assert.assertEquals("path must be normalized", "src/java/net/example/Foo.java", path.getPath());
+        Assert.assertEquals("segments must match", Arrays.asList("src", "java", "net", "example", "Foo.java"), path.getSegments());
+        Assert.assertEquals("file name must match", "Foo.java", path.getFileName());
+        Assert.assertEquals("extension must match", "java", path.getExtension());
+        Assert.assertSame("segments must only be computed once", path.getSegments(), path.getSegments());
+    }
+
+    @Test
+    public void testQualifiedName() throws Exception {
+        Assert.assertEquals("source root must be stripped", Arrays.asList("net", "example", "Foo"), new ResourcePath("src/main/java/net/example/Foo.java").getQualifiedName());
+        Assert.assertEquals("source root must be stripped", Arrays.asList("net", "example", "FooTest"), new ResourcePath("src/test/java/net/example/FooTest.java").getQualifiedName());
+        Assert.assertEquals("source root must be stripped", Arrays.asList("net", "Foo"), new ResourcePath("src/net/Foo.java").getQualifiedName());
+        Assert.assertEquals("unknown source root must be retained", Arrays.asList("lib", "net", "Foo"), new ResourcePath("lib/net/Foo.java").getQualifiedName());
+        Assert.assertEquals("file in source root must have no package", Arrays.asList("Foo"), new ResourcePath("src/main/java/Foo.java").getQualifiedName());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSegmentsUnmodifiable() throws Exception {
+        new ResourcePath("src/java/net/example/Foo.java").getSegments().clear();
+        Assert.fail("segments must not be modifiable");
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+public class ResourceTrieTest {
+
+    private static final List<String> PATTERNS = Arrays.asList( //
+            "src/java/net/example/**/gen/*.java", //
+            "**/*", //
+            "src/java/net/other/*.java", //
+            "/src/java/*/example/Foo.java", //
+            "src\\java\\net\\example\\F?o.java", //
+            null, //
+            "src/java/net/**" //
+    );
+
+    private static final List<String> RESOURCES = Arrays.asList( //
+            "src/java/net/example/Foo.java", //
+            "src/java/net/example/gen/Bar.java", //
+            "src/java/net/other/Foo.java", //
+            "src/java/net", //
+            "test/java/net/example/Foo.java", //
+            "Foo.java", //
+            "" //
+    );
+
+    @Test
+    public void testGetLiteralDirectories() throws Exception {
+        Assert.assertEquals("directories must match", Arrays.asList("src", "java", "net", "example"), ResourceTrie.getLiteralDirectories("src/java/net/example/**/gen/*.java"));
+        Assert.assertEquals("directories must match", Arrays.asList("src", "java"), ResourceTrie.getLiteralDirectories("/src/java/ne?/Foo.java"));
+        Assert.assertEquals("directories must match", Arrays.asList("src", "java"), ResourceTrie.getLiteralDirectories("src\\java\\**"));
+        Assert.assertEquals("directories must match", Collections.emptyList(), ResourceTrie.getLiteralDirectories("**/*"));
+        Assert.assertEquals("directories must match", Collections.emptyList(), ResourceTrie.getLiteralDirectories("*.java"));
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        final ResourceTrie trie = new ResourceTrie(PATTERNS);
+        for (final String resource : RESOURCES) {
+            final BitSet matching = trie.match(resource);
+            for (int id = 0; id < PATTERNS.size(); id++) {
+                final String pattern = PATTERNS.get(id);
+                final boolean expected = (pattern != null) && WildcardPattern.create(pattern).match(resource);
+                Assert.assertEquals(pattern + " on " + resource, expected, matching.get(id));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchEmpty() throws Exception {
+        final ResourceTrie trie = new ResourceTrie(Collections.<String> emptyList());
+        Assert.assertTrue("there must not be any match", trie.match("src/java/net/example/Foo.java").isEmpty());
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.WildcardPattern;
+
+public class RuleIndexTest {
+
+    @Test
+    public void testGetRepository() throws Exception {
+        Assert.assertEquals("repository must match", "pmd", RuleIndex.getRepository("pmd:*"));
+        Assert.assertEquals("repository must match", "common-java", RuleIndex.getRepository("common-java:*"));
+
+        Assert.assertNull("any rule has no repository", RuleIndex.getRepository("*"));
+        Assert.assertNull("empty repository", RuleIndex.getRepository(":*"));
+        Assert.assertNull("exact rule", RuleIndex.getRepository("pmd:AbstractClassWithoutAbstractMethod"));
+        Assert.assertNull("partial rule", RuleIndex.getRepository("pmd:Abstract*"));
+        Assert.assertNull("wildcard repository", RuleIndex.getRepository("p?d:*"));
+        Assert.assertNull("multiple separators", RuleIndex.getRepository("pmd:unused:*"));
+    }
+
+    @Test
+    public void testMatchNullRulePattern() throws Exception {
+        final RuleIndex index = new RuleIndex(Arrays.asList(null, "*", null, "pmd:*"));
+
+        final BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(3);
+        Assert.assertEquals("null rule patterns must not match", expected, index.match(RuleKey.of("pmd", "UnusedLocalVariable")));
+
+        final BitSet separators = index.match(RuleKey.of("pmd", "rule/with/separators"));
+        Assert.assertFalse("null rule patterns must not match", separators.get(0));
+        Assert.assertFalse("null rule patterns must not match", separators.get(2));
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        final List<String> patterns = Arrays.asList("*", "pmd:AbstractClassWithoutAbstractMethod", "pmd:*", "pmd:Abstract*", "squid:*", "squid:S1210", "*:S1210", "**");
+        final RuleIndex index = new RuleIndex(patterns);
+
+        final String[] rules = { "pmd:AbstractClassWithoutAbstractMethod", "pmd:UnusedLocalVariable", "squid:S1210", "findbugs:S1210", "common-java:DuplicatedBlocks", "repo:rule/with/separators" };
+        for (final String rule : rules) {
+            final RuleKey ruleKey = RuleKey.parse(rule);
+            final BitSet indices = index.match(ruleKey);
+            for (int i = 0; i < patterns.size(); i++) {
+                final boolean expected = WildcardPattern.create(patterns.get(i)).match(rule);
+                Assert.assertEquals(patterns.get(i) + " on " + rule, expected, indices.get(i));
+            }
+            Assert.assertSame("rule must be cached", indices, index.match(ruleKey));
+        }
+    }
+}
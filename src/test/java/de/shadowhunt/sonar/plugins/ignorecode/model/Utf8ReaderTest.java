@@ -0,0 +1,63 @@
+/**
+ * This file is part of Sonar Ignore Code Plugin.
+ *
+ * Sonar Ignore Code Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Sonar Ignore Code Plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Sonar Ignore Code Plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.shadowhunt.sonar.plugins.ignorecode.model;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Utf8ReaderTest {
+
+    private static String readSingleChars(final Reader reader) throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[1];
+        while (reader.read(buffer, 0, 1) >= 0) {
+            builder.append(buffer[0]);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testReadAscii() throws Exception {
+        final Reader reader = new Utf8Reader(ByteBuffer.wrap("src/Foo.java;[1-5]\nsrc/Bar.java;*\n".getBytes("US-ASCII")));
+        Assert.assertEquals("content must match", "src/Foo.java;[1-5]\nsrc/Bar.java;*\n", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testReadEmpty() throws Exception {
+        final Reader reader = new Utf8Reader(ByteBuffer.allocate(0));
+        Assert.assertEquals("end of content must be reached", -1, reader.read(new char[8], 0, 8));
+    }
+
+    @Test
+    public void testReadMalformed() throws Exception {
+        final byte[] content = { 'a', (byte) 0xC3, ';', 'b' };
+        final Reader reader = new Utf8Reader(ByteBuffer.wrap(content));
+        Assert.assertEquals("malformed bytes must be replaced", "a\uFFFD;b", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testReadUtf8() throws Exception {
+        final String content = "src/\u00e4\u00f6\u00fc/Gr\u00fc\u00dfe.java;*\n\ud83d\ude00/\u20ac.java;[1]\n";
+        final byte[] bytes = content.getBytes("UTF-8");
+        Assert.assertEquals("content must match", content, IOUtils.toString(new Utf8Reader(ByteBuffer.wrap(bytes))));
+        Assert.assertEquals("content must match", content, readSingleChars(new Utf8Reader(ByteBuffer.wrap(bytes))));
+    }
+}